@@ -2,11 +2,11 @@ import React from "react";
 import BasicLayout from "main/layouts/BasicLayout/BasicLayout";
 import UsersTable from "main/components/Users/UsersTable"
 
-import { useBackend } from "main/utils/useBackend";
+import { useBackendAllPages } from "main/utils/useBackend";
 const AdminUsersPage = () => {
 
     const { data: users, error: _error, status: _status } =
-        useBackend(
+        useBackendAllPages(
             // Stryker disable next-line all : don't test internal caching of React Query
             ["/api/admin/users"],
             { method: "GET", url: "/api/admin/users" },
@@ -32,16 +32,56 @@ export function useBackend(queryKey, axiosParameters, initialData) {
             const response = await axios(axiosParameters);
             return response.data;
         } catch (e) {
-            const errorMessage = `Error communicating with backend via ${axiosParameters.method} on ${axiosParameters.url}`;
-            toast(errorMessage);
-            console.error(errorMessage, e);
-            throw e;
+            reportBackendError(axiosParameters, e);
         }
     }, {
         initialData
     });
 }
 
+// Like useBackend, for endpoints that return a list one page at a time with
+// a Link header pointing to the next page (e.g. /api/admin/users): fetches
+// every page, following rel="next" until there is none, and returns them
+// as one list.
+export function useBackendAllPages(queryKey, axiosParameters, initialData) {
+
+    return useQuery(queryKey, async () => {
+        try {
+            let all = [];
+            let params = axiosParameters;
+            while (params) {
+                const response = await axios(params);
+                all = all.concat(response.data);
+                const next = nextPageUrl(response.headers.link);
+                params = next && { ...axiosParameters, url: next, params: undefined };
+            }
+            return all;
+        } catch (e) {
+            reportBackendError(axiosParameters, e);
+        }
+    }, {
+        initialData
+    });
+}
+
+// The server writes absolute URLs in Link; only the path and query are
+// kept so that the request goes through the same origin (and dev proxy).
+export function nextPageUrl(linkHeader) {
+    const match = /<([^>]*)>\s*;\s*rel="next"/.exec(linkHeader || "");
+    if (!match) {
+        return null;
+    }
+    const url = new URL(match[1], window.location.origin);
+    return url.pathname + url.search;
+}
+
+const reportBackendError = (axiosParameters, e) => {
+    const errorMessage = `Error communicating with backend via ${axiosParameters.method} on ${axiosParameters.url}`;
+    toast(errorMessage);
+    console.error(errorMessage, e);
+    throw e;
+};
+
 // const wrappedParams = async (params) =>
 //   await ( await axios(params)).data;
 
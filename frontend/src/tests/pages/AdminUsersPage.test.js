@@ -42,6 +42,25 @@ describe("AdminUsersPage tests", () => {
 
     });
 
+    test("shows the users from every page", async () => {
+        const queryClient = new QueryClient();
+        axiosMock.onGet("/api/admin/users").reply(200, usersFixtures.threeUsers.slice(0, 2),
+            { link: '<http://localhost:8080/api/admin/users?afterId=2&limit=2>; rel="next"' });
+        axiosMock.onGet("/api/admin/users?afterId=2&limit=2").reply(200, usersFixtures.threeUsers.slice(2));
+
+        const { getByTestId } = render(
+            <QueryClientProvider client={queryClient}>
+                <MemoryRouter>
+                    <AdminUsersPage />
+                </MemoryRouter>
+            </QueryClientProvider>
+        );
+
+        await waitFor(() => expect(getByTestId(`${testId}-cell-row-2-col-id`)).toHaveTextContent("3"));
+        expect(getByTestId(`${testId}-cell-row-0-col-id`)).toHaveTextContent("1");
+        expect(axiosMock.history.get.filter((request) => request.url.startsWith("/api/admin/users")).length).toBe(2);
+    });
+
     test("renders empty table when backend unavailable", async () => {
         const queryClient = new QueryClient();
         axiosMock.onGet("/api/admin/users").timeout();
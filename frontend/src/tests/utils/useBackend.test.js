@@ -3,7 +3,7 @@ import { renderHook, act } from '@testing-library/react-hooks'
 
 import axios from "axios";
 import AxiosMockAdapter from "axios-mock-adapter";
-import { useBackend, useBackendMutation } from "main/utils/useBackend";
+import { useBackend, useBackendAllPages, useBackendMutation, nextPageUrl } from "main/utils/useBackend";
 
 
 jest.mock('react-router-dom');
@@ -187,4 +187,76 @@ describe("utils/useBackend tests", () => {
             expect(errorMessage2).toMatch(/onError from mutation.mutate called!/);
         });
     });
-});
\ No newline at end of file
+    describe("utils/useBackend useBackendAllPages tests", () => {
+
+        const queryClient = () => new QueryClient({
+            defaultOptions: {
+                queries: {
+                    retry: false,
+                },
+            },
+        });
+
+        test("follows rel=next links and returns every page as one list", async () => {
+            const client = queryClient();
+            const wrapper = ({ children }) => (
+                <QueryClientProvider client={client}>
+                    {children}
+                </QueryClientProvider>
+            );
+
+            const axiosMock = new AxiosMockAdapter(axios);
+            axiosMock.onGet("/api/admin/users").reply(200, [{ id: 1 }, { id: 2 }],
+                { link: '<http://localhost:8080/api/admin/users?afterId=2&limit=2>; rel="next"' });
+            axiosMock.onGet("/api/admin/users?afterId=2&limit=2").reply(200, [{ id: 3 }]);
+
+            const { result, waitFor } = renderHook(() => useBackendAllPages(
+                ["/api/admin/users"],
+                { method: "GET", url: "/api/admin/users" },
+                []
+            ), { wrapper });
+
+            // initialData already counts as success, so wait for the pages
+            await waitFor(() => result.current.data.length === 3);
+
+            expect(result.current.data).toEqual([{ id: 1 }, { id: 2 }, { id: 3 }]);
+            expect(axiosMock.history.get.map((request) => request.url))
+                .toEqual(["/api/admin/users", "/api/admin/users?afterId=2&limit=2"]);
+        });
+
+        test("reports a failed page like useBackend", async () => {
+            const client = queryClient();
+            const wrapper = ({ children }) => (
+                <QueryClientProvider client={client}>
+                    {children}
+                </QueryClientProvider>
+            );
+
+            const axiosMock = new AxiosMockAdapter(axios);
+            axiosMock.onGet("/api/admin/users").reply(200, [{ id: 1 }],
+                { link: '</api/admin/users?afterId=1&limit=1>; rel="next"' });
+            axiosMock.onGet("/api/admin/users?afterId=1&limit=1").reply(500);
+
+            const { result, waitFor } = renderHook(() => useBackendAllPages(
+                ["/api/admin/users"],
+                { method: "GET", url: "/api/admin/users" },
+                ["initialData"]
+            ), { wrapper });
+
+            await waitFor(() => result.current.isError);
+
+            expect(result.current.data).toEqual(["initialData"]);
+            expect(mockToast).toHaveBeenCalledWith("Error communicating with backend via GET on /api/admin/users");
+            const errorMessage = console.error.mock.calls[0][0];
+            expect(errorMessage).toMatch("Error communicating with backend via GET on /api/admin/users");
+        });
+
+        test("nextPageUrl keeps the path and query of the rel=next link", () => {
+            expect(nextPageUrl('<https://example.org/api/admin/users?afterId=7&limit=5>; rel="next"'))
+                .toBe("/api/admin/users?afterId=7&limit=5");
+            expect(nextPageUrl('</api/admin/users?afterId=7>;rel="next"')).toBe("/api/admin/users?afterId=7");
+            expect(nextPageUrl('</api/admin/users?afterId=7>; rel="prev"')).toBeNull();
+            expect(nextPageUrl(undefined)).toBeNull();
+        });
+    });
+});
@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example;
+
+import edu.ucsb.cs156.example.services.SchemaChecksum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+
+// Applies the Liquibase changelog, records its checksum in SCHEMA_CHECKSUM
+// and exits.  Starts only a DataSource and Liquibase, not the web app.
+// Run it once per deploy, before instances with app.migrations.mode=verify:
+//
+//   java @classpath.args edu.ucsb.cs156.example.MigrationRunner   (Docker image)
+//   mvn spring-boot:run -Dspring-boot.run.main-class=edu.ucsb.cs156.example.MigrationRunner
+//
+// The "migrate" profile keeps ExampleApplication's component scan from
+// picking this class up.
+
+@Slf4j
+@Configuration
+@Profile("migrate")
+@ImportAutoConfiguration({ PropertyPlaceholderAutoConfiguration.class, DataSourceAutoConfiguration.class,
+    LiquibaseAutoConfiguration.class })
+@Import(SchemaChecksum.class)
+public class MigrationRunner {
+
+  public static void main(String[] args) {
+    long started = System.nanoTime();
+    try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MigrationRunner.class)
+        .profiles("migrate")
+        .web(WebApplicationType.NONE)
+        .run(args)) {
+      SchemaChecksum schemaChecksum = context.getBean(SchemaChecksum.class);
+      String checksum = schemaChecksum.expected();
+      schemaChecksum.record(checksum);
+      log.info("migrations applied, schema checksum {} recorded in {} ms", checksum,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.services.HelpRequestArchiver;
+import edu.ucsb.cs156.example.services.RetentionService;
+import edu.ucsb.cs156.example.services.ReviewIngestionQueue;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// Beans that must not wait for first use under the fast-start profile's
+// lazy initialization: the review queue replays its journal and starts its
+// writer when it is created, and the scheduled jobs are only registered
+// once their beans exist.
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+  @Bean
+  static LazyInitializationExcludeFilter eagerBackgroundServices() {
+    return LazyInitializationExcludeFilter.forBeanTypes(
+        ReviewIngestionQueue.class, HelpRequestArchiver.class, RetentionService.class);
+  }
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.services.IdempotencyStore;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Registers IdempotencyFilter for the API.  It runs after the Spring
+// Security filter chain, so the user is known and CSRF has been checked
+// before a stored response is replayed.
+
+@Configuration
+public class IdempotencyConfig {
+
+  @Bean
+  public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore idempotencyStore,
+      ObjectMapper objectMapper) {
+    FilterRegistrationBean<IdempotencyFilter> registration =
+        new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyStore, objectMapper));
+    registration.addUrlPatterns("/api/*");
+    return registration;
+  }
+}
@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.models.IdempotentResponse;
+import edu.ucsb.cs156.example.services.IdempotencyStore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Makes the /post endpoints safe to retry.
+//
+// A POST to .../post that carries an Idempotency-Key header is run at most
+// once per (user, path, key): the first successful (2xx) response is kept in
+// the IdempotencyStore and replayed verbatim, with Idempotent-Replayed: true,
+// for later requests with the same key, without reaching the controller.
+// The request's query string (where the /post handlers take their fields)
+// is fingerprinted, so reusing a key with different parameters is a 422.
+// A retry that arrives while the first request is still running gets a 409.
+// Failed requests are not remembered and may be retried with the same key.
+
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "Idempotency-Key";
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  static final int MAX_KEY_LENGTH = 255;
+
+  private final IdempotencyStore store;
+  private final ObjectMapper mapper;
+
+  public IdempotencyFilter(IdempotencyStore store, ObjectMapper mapper) {
+    this.store = store;
+    this.mapper = mapper;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !"POST".equals(request.getMethod())
+        || !request.getRequestURI().endsWith("/post")
+        || request.getHeader(HEADER) == null;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String header = request.getHeader(HEADER);
+    if (header.isBlank() || header.length() > MAX_KEY_LENGTH) {
+      error(response, HttpStatus.BAD_REQUEST,
+          "%s must be 1 to %d characters".formatted(HEADER, MAX_KEY_LENGTH));
+      return;
+    }
+
+    String key = md5(userOf(request) + "\n" + request.getRequestURI() + "\n" + header);
+    String fingerprint = md5(request.getQueryString() == null ? "" : request.getQueryString());
+
+    IdempotentResponse existing = store.claim(key, fingerprint);
+    if (existing != null) {
+      if (!existing.fingerprint().equals(fingerprint)) {
+        error(response, HttpStatus.UNPROCESSABLE_ENTITY,
+            "%s was already used with different parameters".formatted(HEADER));
+      } else if (existing.isInFlight()) {
+        error(response, HttpStatus.CONFLICT,
+            "a request with this %s is still in progress".formatted(HEADER));
+      } else {
+        response.setStatus(existing.status());
+        response.setContentType(existing.contentType());
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.getOutputStream().write(existing.body());
+      }
+      return;
+    }
+
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    boolean remembered = false;
+    try {
+      chain.doFilter(request, wrapper);
+      if (HttpStatus.valueOf(wrapper.getStatus()).is2xxSuccessful()) {
+        store.complete(key, new IdempotentResponse(fingerprint, wrapper.getStatus(),
+            wrapper.getContentType(), wrapper.getContentAsByteArray()));
+        remembered = true;
+      }
+    } finally {
+      if (!remembered) {
+        store.release(key);
+      }
+      wrapper.copyBodyToResponse();
+    }
+  }
+
+  private void error(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+    response.setStatus(status.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    mapper.writeValue(response.getOutputStream(), Map.of(
+        "type", "IdempotencyKeyException",
+        "message", message));
+  }
+
+  private static String userOf(HttpServletRequest request) {
+    Principal principal = request.getUserPrincipal();
+    return principal == null ? "" : principal.getName();
+  }
+
+  private static String md5(String value) {
+    return DigestUtils.md5DigestAsHex(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.services.SchemaChecksum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+import liquibase.integration.spring.SpringLiquibase;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// app.migrations.mode=verify: replaces Spring Boot's SpringLiquibase bean
+// with one that only checks SCHEMA_CHECKSUM, so instances no longer parse
+// the changelog or queue on the Liquibase lock during a rolling restart.
+// Spring Boot still makes JPA and JdbcTemplate wait for this bean, so a
+// stale schema fails startup before anything touches the database.
+// Migrations are applied by MigrationRunner.
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.migrations.mode", havingValue = "verify")
+public class MigrationConfig {
+
+  @Bean
+  public SpringLiquibase liquibase(SchemaChecksum schemaChecksum) {
+    return new SpringLiquibase() {
+      @Override
+      public void afterPropertiesSet() {
+        long started = System.nanoTime();
+        schemaChecksum.verify();
+        log.info("schema checksum verified in {} ms",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+      }
+    };
+  }
+}
@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.config.RateLimitFilter.Budget;
+import edu.ucsb.cs156.example.services.TokenBucketLimiter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Registers RateLimitFilter for the API, after the Spring Security filter
+// chain (so the user is known) and before IdempotencyFilter.
+//
+// Anonymous clients are keyed by request.getRemoteAddr(); behind a proxy
+// set server.forward-headers-strategy so that is the client's address.
+
+@Configuration
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+  @Value("${app.rate-limit.read.capacity:120}")
+  int readCapacity;
+
+  @Value("${app.rate-limit.read.per-second:20}")
+  double readPerSecond;
+
+  @Value("${app.rate-limit.write.capacity:30}")
+  int writeCapacity;
+
+  @Value("${app.rate-limit.write.per-second:2}")
+  double writePerSecond;
+
+  @Value("${app.rate-limit.max-clients:10000}")
+  int maxClients;
+
+  @Bean
+  public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(MeterRegistry meterRegistry,
+      ObjectMapper objectMapper) {
+    Map<Budget, TokenBucketLimiter> limiters = Map.of(
+        Budget.READ, new TokenBucketLimiter(readCapacity, readPerSecond, maxClients, System::nanoTime),
+        Budget.WRITE, new TokenBucketLimiter(writeCapacity, writePerSecond, maxClients, System::nanoTime));
+    FilterRegistrationBean<RateLimitFilter> registration =
+        new FilterRegistrationBean<>(new RateLimitFilter(limiters, meterRegistry, objectMapper));
+    registration.addUrlPatterns("/api/*");
+    registration.setOrder(Ordered.LOWEST_PRECEDENCE - 10);
+    return registration;
+  }
+}
@@ -0,0 +1,105 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.services.TokenBucketLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Per-client throttling for /api/**.
+//
+// Clients are identified by their email when logged in and by IP address
+// otherwise (behind a proxy that needs server.forward-headers-strategy, see
+// application-production.properties).  Reads (GET/HEAD) and writes (everything else, which in this
+// app means the admin-only endpoints) draw from separate buckets, so a
+// client that exhausts its read budget can still save its work and vice
+// versa.  Rejected requests get 429 with a Retry-After header (seconds).
+//
+// Counters: ratelimit.requests{budget=read|write, outcome=allowed|rejected}
+// Gauges:   ratelimit.clients{budget=read|write}
+
+public class RateLimitFilter extends OncePerRequestFilter {
+
+  public enum Budget {
+    READ,
+    WRITE
+  }
+
+  private final Map<Budget, TokenBucketLimiter> limiters;
+  private final Map<Budget, Counter> allowed = new EnumMap<>(Budget.class);
+  private final Map<Budget, Counter> rejected = new EnumMap<>(Budget.class);
+  private final ObjectMapper mapper;
+
+  public RateLimitFilter(Map<Budget, TokenBucketLimiter> limiters, MeterRegistry registry, ObjectMapper mapper) {
+    this.limiters = limiters;
+    this.mapper = mapper;
+    for (Budget budget : Budget.values()) {
+      String tag = budget.name().toLowerCase();
+      allowed.put(budget, Counter.builder("ratelimit.requests")
+          .tag("budget", tag).tag("outcome", "allowed").register(registry));
+      rejected.put(budget, Counter.builder("ratelimit.requests")
+          .tag("budget", tag).tag("outcome", "rejected").register(registry));
+      Gauge.builder("ratelimit.clients", limiters.get(budget), TokenBucketLimiter::size)
+          .tag("budget", tag).register(registry);
+    }
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    Budget budget = budgetOf(request);
+    long waitNanos = limiters.get(budget).tryAcquire(clientOf(request));
+    if (waitNanos == 0) {
+      allowed.get(budget).increment();
+      chain.doFilter(request, response);
+      return;
+    }
+
+    rejected.get(budget).increment();
+    long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    mapper.writeValue(response.getOutputStream(), Map.of(
+        "type", "RateLimitExceeded",
+        "message", "too many %s requests, retry in %d seconds".formatted(budget.name().toLowerCase(), retryAfter)));
+  }
+
+  static Budget budgetOf(HttpServletRequest request) {
+    String method = request.getMethod();
+    return "GET".equals(method) || "HEAD".equals(method) ? Budget.READ : Budget.WRITE;
+  }
+
+  static String clientOf(HttpServletRequest request) {
+    Principal principal = request.getUserPrincipal();
+    if (principal instanceof OAuth2AuthenticationToken token) {
+      Object email = token.getPrincipal().getAttribute("email");
+      if (email != null) {
+        return "user:" + email;
+      }
+    }
+    if (principal != null) {
+      return "user:" + principal.getName();
+    }
+    return "ip:" + request.getRemoteAddr();
+  }
+}
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a GET handler that only reads, and may therefore be served from the
+// read replica (see ReadReplicaRoutingInterceptor).  Leave it off handlers
+// that write, even occasionally (GET /api/currentUser creates the user on
+// first login), and off handlers that fill an in-memory cache, which would
+// keep whatever a lagging replica returned.
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadFromReplica {
+}
@@ -0,0 +1,87 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Only active when app.datasource.replica.url is set.
+//
+// Replaces the auto-configured DataSource with one that routes each
+// connection to the primary (spring.datasource.*) or to the replica
+// (app.datasource.replica.*) according to ReadReplicaRoutingInterceptor.
+// The routing DataSource is wrapped in a LazyConnectionDataSourceProxy so
+// that the physical connection is only chosen when the first statement runs,
+// after the interceptor has picked a route for the request.
+//
+// Liquibase keeps using spring.liquibase.url, i.e. the primary.
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReadReplicaDataSourceConfig implements WebMvcConfigurer {
+
+  @Value("${app.datasource.replica.url}")
+  private String replicaUrl;
+
+  @Value("${app.datasource.replica.username:${spring.datasource.username:}}")
+  private String replicaUsername;
+
+  @Value("${app.datasource.replica.password:${spring.datasource.password:}}")
+  private String replicaPassword;
+
+  @Value("${app.datasource.replica.sticky-seconds:5}")
+  private long stickySeconds;
+
+  @Bean
+  public ReadReplicaRoutingInterceptor readReplicaRoutingInterceptor() {
+    return new ReadReplicaRoutingInterceptor(stickySeconds * 1000);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(DataSourceProperties properties) {
+    DataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    DataSource replica = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .url(replicaUrl)
+        .username(replicaUsername)
+        .password(replicaPassword)
+        .build();
+
+    AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+      @Override
+      protected Object determineCurrentLookupKey() {
+        return ReadReplicaRoutingInterceptor.currentRoute();
+      }
+    };
+    routing.setTargetDataSources(Map.<Object, Object>of(
+        ReadReplicaRoutingInterceptor.Route.PRIMARY, primary,
+        ReadReplicaRoutingInterceptor.Route.REPLICA, replica));
+    routing.setDefaultTargetDataSource(primary);
+    routing.afterPropertiesSet();
+
+    log.info("routing @ReadFromReplica handlers to read replica {}", replicaUrl);
+    return new LazyConnectionDataSourceProxy(routing);
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(readReplicaRoutingInterceptor()).addPathPatterns("/api/**");
+  }
+}
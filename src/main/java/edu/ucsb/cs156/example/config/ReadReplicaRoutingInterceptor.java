@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.config;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// Decides, per request, whether JDBC work should go to the primary or to the
+// read replica (see ReadReplicaDataSourceConfig).
+//
+// GET handlers annotated with @ReadFromReplica are routed to the replica;
+// everything else uses the primary.  After a user's own write succeeds,
+// that user's reads stay on the primary for `stickyMillis` so they always
+// see what they just wrote, even if the replica is lagging.
+
+public class ReadReplicaRoutingInterceptor implements HandlerInterceptor {
+
+  public enum Route {
+    PRIMARY,
+    REPLICA
+  }
+
+  private static final int SWEEP_THRESHOLD = 10_000;
+
+  private static final ThreadLocal<Route> currentRoute = new ThreadLocal<>();
+
+  private final long stickyMillis;
+  private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+  public ReadReplicaRoutingInterceptor(long stickyMillis) {
+    this.stickyMillis = stickyMillis;
+  }
+
+  public static Route currentRoute() {
+    Route route = currentRoute.get();
+    return route == null ? Route.PRIMARY : route;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    currentRoute.set(routeFor(request, handler));
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+      Exception ex) {
+    currentRoute.remove();
+    String user = userOf(request);
+    if (user != null && !isRead(request) && ex == null && response.getStatus() < 400) {
+      long now = System.currentTimeMillis();
+      lastWriteByUser.put(user, now);
+      if (lastWriteByUser.size() > SWEEP_THRESHOLD) {
+        lastWriteByUser.values().removeIf(t -> now - t > stickyMillis);
+      }
+    }
+  }
+
+  Route routeFor(HttpServletRequest request, Object handler) {
+    if (!isRead(request) || !(handler instanceof HandlerMethod method)
+        || !method.hasMethodAnnotation(ReadFromReplica.class)) {
+      return Route.PRIMARY;
+    }
+    String user = userOf(request);
+    Long lastWrite = user == null ? null : lastWriteByUser.get(user);
+    if (lastWrite != null && System.currentTimeMillis() - lastWrite <= stickyMillis) {
+      return Route.PRIMARY;
+    }
+    return Route.REPLICA;
+  }
+
+  private static boolean isRead(HttpServletRequest request) {
+    return "GET".equals(request.getMethod());
+  }
+
+  private static String userOf(HttpServletRequest request) {
+    Principal principal = request.getUserPrincipal();
+    return principal == null ? null : principal.getName();
+  }
+}
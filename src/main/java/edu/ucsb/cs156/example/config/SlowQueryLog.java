@@ -0,0 +1,183 @@
+package edu.ucsb.cs156.example.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+import javax.sql.DataSource;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Logs each JDBC statement that took at least `thresholdMillis`, with
+//   - its elapsed time and the SQL
+//   - where it came from: the controller method handling the current
+//     request, or the thread name for scheduled jobs and other background
+//     work
+//   - its bind values, for a `bindSampleRate` fraction of slow statements
+//     (they can hold personal data, so production keeps this low)
+//   - optionally, for a single SELECT, the plan from EXPLAIN run with the
+//     same binds on a separate connection from `explainDataSource`
+//
+// EXPLAIN runs on a thread of its own, after the statement's connection
+// has gone back to the pool: borrowing a second connection while holding
+// the first could wait forever on a pool that slow statements have
+// drained.  A slow statement that finds EXPLAIN_QUEUE entries already
+// waiting is logged straight away without a plan.
+//
+// Registered on the DataSource by SlowQueryLogConfig.
+
+@Slf4j
+public class SlowQueryLog implements QueryExecutionListener {
+
+  static final int MAX_VALUE_LENGTH = 64;
+  static final int EXPLAIN_QUEUE = 16;
+
+  private final long thresholdMillis;
+  private final double bindSampleRate;
+  private final DataSource explainDataSource;
+  private final DoubleSupplier random;
+  private final Consumer<String> sink;
+  private final Executor explainer;
+
+  public SlowQueryLog(long thresholdMillis, double bindSampleRate, DataSource explainDataSource) {
+    this(thresholdMillis, bindSampleRate, explainDataSource, Math::random, log::warn,
+        explainDataSource == null ? null : explainer(EXPLAIN_QUEUE));
+  }
+
+  SlowQueryLog(long thresholdMillis, double bindSampleRate, DataSource explainDataSource, DoubleSupplier random,
+      Consumer<String> sink, Executor explainer) {
+    this.thresholdMillis = thresholdMillis;
+    this.bindSampleRate = bindSampleRate;
+    this.explainDataSource = explainDataSource;
+    this.random = random;
+    this.sink = sink;
+    this.explainer = explainer;
+  }
+
+  static Executor explainer(int queueSize) {
+    return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), task -> {
+      Thread thread = new Thread(task, "slow-query-explain");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Override
+  public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+  }
+
+  @Override
+  public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    if (execInfo.getElapsedTime() < thresholdMillis) {
+      return;
+    }
+
+    StringBuilder entry = new StringBuilder("slow query: %d ms in %s%s".formatted(execInfo.getElapsedTime(),
+        origin(), execInfo.isBatch() ? " (batch of %d)".formatted(execInfo.getBatchSize()) : ""));
+    boolean sampled = random.getAsDouble() < bindSampleRate;
+    for (QueryInfo query : queryInfoList) {
+      entry.append("\n  ").append(query.getQuery());
+      if (sampled && !query.getParametersList().isEmpty()) {
+        entry.append("\n  binds ").append(binds(query.getParametersList().get(0)));
+      }
+    }
+    if (explainDataSource != null && !execInfo.isBatch() && queryInfoList.size() == 1) {
+      // copied now: the driver may reuse the statement's bind list
+      QueryInfo query = queryInfoList.get(0);
+      String sql = query.getQuery();
+      List<ParameterSetOperation> binds = query.getParametersList().isEmpty() ? List.of()
+          : List.copyOf(query.getParametersList().get(0));
+      try {
+        explainer.execute(() -> sink.accept(withPlan(entry, explain(sql, binds))));
+        return;
+      } catch (RejectedExecutionException e) {
+        entry.append("\n  plan: skipped, ").append(EXPLAIN_QUEUE).append(" already waiting");
+      }
+    }
+    sink.accept(entry.toString());
+  }
+
+  private static String withPlan(StringBuilder entry, String plan) {
+    if (plan != null) {
+      entry.append("\n  plan:\n    ").append(plan.replace("\n", "\n    "));
+    }
+    return entry.toString();
+  }
+
+  static String origin() {
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    Object handler = request == null ? null
+        : request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    if (handler instanceof HandlerMethod method) {
+      return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+    }
+    return "thread " + Thread.currentThread().getName();
+  }
+
+  static String binds(List<ParameterSetOperation> operations) {
+    List<String> values = new ArrayList<>();
+    for (ParameterSetOperation operation : operations) {
+      Object[] args = operation.getArgs();
+      String value = isSetNull(operation) ? "null" : String.valueOf(args[1]);
+      if (value.length() > MAX_VALUE_LENGTH) {
+        value = value.substring(0, MAX_VALUE_LENGTH) + "...";
+      }
+      values.add(args[0] + "=" + value);
+    }
+    return String.join(", ", values);
+  }
+
+  // null when the statement is not a SELECT or EXPLAIN fails; a failed
+  // EXPLAIN must not break the request that ran the statement
+  String explain(String sql, List<ParameterSetOperation> binds) {
+    if (!sql.strip().toLowerCase(Locale.ROOT).startsWith("select")) {
+      return null;
+    }
+    try (Connection connection = explainDataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql.strip())) {
+      for (ParameterSetOperation operation : binds) {
+        Object[] args = operation.getArgs();
+        if (isSetNull(operation)) {
+          statement.setNull((Integer) args[0], (Integer) args[1]);
+        } else {
+          statement.setObject((Integer) args[0], args[1]);
+        }
+      }
+      List<String> plan = new ArrayList<>();
+      try (ResultSet rows = statement.executeQuery()) {
+        while (rows.next()) {
+          plan.add(rows.getString(1));
+        }
+      }
+      return String.join("\n", plan);
+    } catch (SQLException | RuntimeException e) {
+      log.debug("EXPLAIN failed for {}", sql, e);
+      return null;
+    }
+  }
+
+  private static boolean isSetNull(ParameterSetOperation operation) {
+    return operation.getMethod().getName().equals("setNull");
+  }
+}
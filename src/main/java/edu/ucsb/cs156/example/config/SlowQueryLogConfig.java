@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.config;
+
+import javax.sql.DataSource;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Wraps every DataSource bean in a datasource-proxy that reports slow
+// statements to SlowQueryLog.  Statements under the threshold only cost a
+// timestamp, unlike logging.level.sql=DEBUG, which formats and writes every
+// statement (and, with BasicBinder at TRACE, every bind value).
+
+@Configuration
+@ConditionalOnProperty(name = "app.slow-query.enabled", havingValue = "true")
+public class SlowQueryLogConfig {
+
+  @Bean
+  public static BeanPostProcessor slowQueryLogPostProcessor(
+      @Value("${app.slow-query.threshold-ms:500}") long thresholdMillis,
+      @Value("${app.slow-query.bind-sample-rate:0}") double bindSampleRate,
+      @Value("${app.slow-query.explain:false}") boolean explain) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource)) {
+          return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+            .name(beanName)
+            .listener(new SlowQueryLog(thresholdMillis, bindSampleRate, explain ? dataSource : null))
+            .build();
+      }
+    };
+  }
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Used by the Dockerfile to build the class-data-sharing archive: with
+// app.training-run=true the application starts up completely and then
+// exits, so -XX:ArchiveClassesAtExit captures every class needed to start.
+@Configuration
+@ConditionalOnProperty(name = "app.training-run", havingValue = "true")
+public class TrainingRunConfig {
+
+  @Bean
+  public ApplicationListener<ApplicationReadyEvent> exitWhenReady() {
+    return event -> System.exit(SpringApplication.exit(event.getApplicationContext()));
+  }
+}
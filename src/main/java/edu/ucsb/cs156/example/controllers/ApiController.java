@@ -1,22 +1,42 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidParameterException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+import edu.ucsb.cs156.example.errors.QueueFullException;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 
 @Slf4j
 public abstract class ApiController {
   @Autowired
   private CurrentUserService currentUserService;
 
+  @Autowired
+  private ObjectMapper objectMapper;
+
   protected CurrentUser getCurrentUser() {
     return currentUserService.getCurrentUser();
   }
@@ -25,6 +45,78 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  // Every handler can also answer in CBOR or Smile: Spring MVC picks the
+  // Jackson converter for the format named in the Accept header.  Handlers
+  // that build their own JSON bytes check prefersBinary() first.
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+  private static final List<MediaType> BINARY = List.of(
+      MediaType.APPLICATION_CBOR, MediaType.parseMediaType(APPLICATION_SMILE_VALUE));
+
+  private final Map<Class<?>, ObjectWriter> listWriters = new ConcurrentHashMap<>();
+
+  // Serializes with the same ObjectMapper Spring MVC uses, for handlers that
+  // hand out one pre-serialized buffer to many requests.  The writer for
+  // each element type is built once, so later calls skip the serializer
+  // lookup for the list and its elements.
+  @SneakyThrows
+  protected <T> byte[] toJson(Class<T> type, List<T> values) {
+    return listWriters.computeIfAbsent(type,
+        t -> objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, t)))
+        .writeValueAsBytes(values);
+  }
+
+  // True when the highest ranked type in the Accept header that we can
+  // produce is CBOR or Smile rather than JSON (or a wildcard).
+  protected static boolean prefersBinary(String accept) {
+    if (accept == null) {
+      return false;
+    }
+    List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+    MediaType.sortBySpecificityAndQuality(accepted);
+    for (MediaType type : accepted) {
+      if (type.includes(MediaType.APPLICATION_JSON)) {
+        return false;
+      }
+      if (BINARY.stream().anyMatch(type::includes)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Checks an If-Match header against the entity's current @Version.
+  protected void checkIfMatch(String ifMatch, Class<?> entityType, Object id, long currentVersion) {
+    Set<Long> versions = ifMatchVersions(ifMatch);
+    if (versions != null && !versions.contains(currentVersion)) {
+      throw new PreconditionFailedException(entityType, id, currentVersion);
+    }
+  }
+
+  // The versions an If-Match header accepts: a bare or quoted version, weak
+  // tags, or a comma separated list.  Null when any version will do, i.e.
+  // for "*" or when the client sent no header.
+  protected static Set<Long> ifMatchVersions(String ifMatch) {
+    if (ifMatch == null) {
+      return null;
+    }
+    Set<Long> versions = new HashSet<>();
+    for (String tag : ifMatch.split(",")) {
+      String value = tag.trim().replaceFirst("^W/", "").replace("\"", "");
+      if (value.equals("*")) {
+        return null;
+      }
+      if (value.matches("\\d{1,18}")) {
+        versions.add(Long.parseLong(value));
+      }
+    }
+    return versions;
+  }
+
+  protected static String etag(long version) {
+    return "\"" + version + "\"";
+  }
+
   @ExceptionHandler({ EntityNotFoundException.class })
   @ResponseStatus(HttpStatus.NOT_FOUND)
   public Object handleGenericException(Throwable e) {
@@ -33,4 +125,63 @@ public abstract class ApiController {
       "message", e.getMessage()
     );
   }
+
+  // a PATCH body field that doesn't convert to the entity's type
+  @ExceptionHandler({ MismatchedInputException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleMismatchedInput(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", ((MismatchedInputException) e).getOriginalMessage()
+    );
+  }
+
+  @ExceptionHandler({ InvalidParameterException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleInvalidParameter(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+
+  @ExceptionHandler({ PreconditionFailedException.class })
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public Object handlePreconditionFailed(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+
+  @ExceptionHandler({ OptimisticLockingFailureException.class })
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Object handleOptimisticLockingFailure(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", "concurrent update, please retry"
+    );
+  }
+
+  // e.g. a review for a menu item that doesn't exist; the constraint
+  // details stay in the server log
+  @ExceptionHandler({ DataIntegrityViolationException.class })
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Object handleDataIntegrityViolation(Throwable e) {
+    log.info("rejected by a database constraint", e);
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", "refers to a row that does not exist, is still referred to by another row, or conflicts with an existing one"
+    );
+  }
+
+  @ExceptionHandler({ QueueFullException.class })
+  public ResponseEntity<Object> handleQueueFull(Throwable e) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+      .header(HttpHeaders.RETRY_AFTER, "1")
+      .body(Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage()
+      ));
+  }
 }
@@ -1,8 +1,13 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.config.ReadFromReplica;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ArticlesSummary;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.OptimisticLockRetry;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,15 +15,19 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -36,11 +45,21 @@ public class ArticlesController extends ApiController {
     @Autowired
     ArticlesRepository articlesRepository;
 
+    @Autowired
+    ListingService listingService;
+
+    @Autowired
+    OptimisticLockRetry optimisticLockRetry;
+
+    @Autowired
+    PartialUpdateService partialUpdateService;
+
     @Operation(summary= "List all articles")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("/all")
-    public Iterable<Articles> allArticles() {
-        Iterable<Articles> articles = articlesRepository.findAll();
+    public Iterable<ArticlesSummary> allArticles() {
+        Iterable<ArticlesSummary> articles = listingService.allArticles();
         return articles;
     }
 
@@ -74,13 +93,14 @@ public class ArticlesController extends ApiController {
 
     @Operation(summary= "Get a single article")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("")
-    public Articles getById(
+    public ResponseEntity<Articles> getById(
             @Parameter(name="id") @RequestParam Long id) {
         Articles articles = articlesRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
 
-        return articles;
+        return ResponseEntity.ok().eTag(etag(articles.getVersion())).body(articles);
     }
 
     @Operation(summary= "Delete an article")
@@ -88,32 +108,49 @@ public class ArticlesController extends ApiController {
     @DeleteMapping("")
     public Object deleteArticles(
             @Parameter(name="id") @RequestParam Long id) {
-        Articles articles = articlesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
-
-        articlesRepository.delete(articles);
+        if (articlesRepository.deleteByIdReturningCount(id) == 0) {
+            throw new EntityNotFoundException(Articles.class, id);
+        }
         return genericMessage("Articles with id %s deleted".formatted(id));
     }
 
     @Operation(summary= "Update a single article")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public Articles updateArticles(
+    public ResponseEntity<Articles> updateArticles(
             @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match") @RequestHeader(name="If-Match", required=false) String ifMatch,
             @RequestBody @Valid Articles incoming) {
 
-        Articles articles = articlesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
+        // on a version conflict the whole read-modify-write is retried; when
+        // the client sent If-Match the re-read fails the precondition instead
+        Articles articles = optimisticLockRetry.run(() -> {
+            Articles current = articlesRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
+            checkIfMatch(ifMatch, Articles.class, id, current.getVersion());
 
-        articles.setTitle(incoming.getTitle());
-        articles.setUrl(incoming.getUrl());
-        articles.setExplanation(incoming.getExplanation());
-        articles.setEmail(incoming.getEmail());
-        articles.setDateAdded(incoming.getDateAdded());
+            current.setTitle(incoming.getTitle());
+            current.setUrl(incoming.getUrl());
+            current.setExplanation(incoming.getExplanation());
+            current.setEmail(incoming.getEmail());
+            current.setDateAdded(incoming.getDateAdded());
 
-        articlesRepository.save(articles);
+            articlesRepository.save(current);
+            return current;
+        });
 
-        return articles;
+        return ResponseEntity.ok().eTag(etag(articles.getVersion())).body(articles);
     }
 
+    @Operation(summary= "Update some fields of an article with one UPDATE statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping("")
+    public ResponseEntity<Articles> patchArticles(
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match") @RequestHeader(name="If-Match", required=false) String ifMatch,
+            @RequestBody JsonNode patch) throws JsonProcessingException {
+
+        Articles articles = partialUpdateService.patch(Articles.class, id, ifMatchVersions(ifMatch), patch);
+        return ResponseEntity.ok().eTag(etag(articles.getVersion())).body(articles);
+    }
 }
@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.Completion;
+import edu.ucsb.cs156.example.services.AutocompleteService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Tag(name = "Autocomplete")
+@RequestMapping("/api/autocomplete")
+@RestController
+public class AutocompleteController extends ApiController {
+
+    @Autowired
+    AutocompleteService autocompleteService;
+
+    @Operation(summary= "Complete a prefix against organization names (ORGANIZATION) or menu item names (MENUITEM)")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("")
+    public List<Completion> complete(
+            @Parameter(name="type") @RequestParam AutocompleteService.Type type,
+            @Parameter(name="prefix") @RequestParam String prefix,
+            @Parameter(name="limit") @RequestParam(defaultValue = "10") int limit) {
+        return autocompleteService.complete(type, prefix, limit);
+    }
+}
@@ -1,8 +1,15 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.config.ReadFromReplica;
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.OptimisticLockRetry;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,16 +17,20 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -27,6 +38,10 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 
 @Tag(name = "HelpRequests")
@@ -38,11 +53,29 @@ public class HelpRequestController extends ApiController {
     @Autowired
     HelpRequestRepository helpRequestRepository;
 
+    @Autowired
+    ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+    @Autowired
+    ListingService listingService;
+
+    @Autowired
+    OptimisticLockRetry optimisticLockRetry;
+
+    @Autowired
+    PartialUpdateService partialUpdateService;
+
     @Operation(summary= "List all help requests")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("/all")
-    public Iterable<HelpRequest> allHelpRequests() {
-        Iterable<HelpRequest> helpRequests = helpRequestRepository.findAll();
+    public Iterable<HelpRequestSummary> allHelpRequests(
+            @Parameter(name="includeArchived", description="also list requests from archived quarters") @RequestParam(defaultValue = "false") boolean includeArchived) {
+        if (!includeArchived) {
+            return listingService.allHelpRequests();
+        }
+        List<HelpRequestSummary> helpRequests = new ArrayList<>(listingService.allArchivedHelpRequests());
+        helpRequests.addAll(listingService.allHelpRequests());
         return helpRequests;
     }
 
@@ -75,15 +108,39 @@ public class HelpRequestController extends ApiController {
         return savedHelpRequest;
     }
 
+    @Operation(summary= "Mark every matching help request solved (or unsolved) with one UPDATE")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/solved")
+    public Object markHelpRequestsSolved(
+            @Parameter(name="solved") @RequestParam(defaultValue = "true") boolean solved,
+            @Parameter(name="before", description="only requests made before this time (default: now)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @Parameter(name="tableOrBreakoutRoom") @RequestParam(required = false) String tableOrBreakoutRoom,
+            @Parameter(name="teamId") @RequestParam(required = false) String teamId) {
+
+        LocalDateTime cutoff = before != null ? before : LocalDateTime.now();
+        int count = helpRequestRepository.updateSolvedWhere(solved, cutoff, tableOrBreakoutRoom, teamId);
+        log.info("marked {} help requests solved={} (before={}, room={}, team={})",
+                count, solved, cutoff, tableOrBreakoutRoom, teamId);
+
+        return Map.of(
+            "message", "%d help requests marked %s".formatted(count, solved ? "solved" : "unsolved"),
+            "count", count);
+    }
+
     @Operation(summary= "Get a single help request")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("")
-    public HelpRequest getById(
-            @Parameter(name="id") @RequestParam Long id) {
+    public ResponseEntity<HelpRequest> getById(
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="includeArchived", description="also look in archived quarters") @RequestParam(defaultValue = "false") boolean includeArchived) {
         HelpRequest helpRequest = helpRequestRepository.findById(id)
+                .or(() -> includeArchived
+                        ? archivedHelpRequestRepository.findById(id).map(ArchivedHelpRequest::toHelpRequest)
+                        : Optional.empty())
                 .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
-        return helpRequest;
+        return ResponseEntity.ok().eTag(etag(helpRequest.getVersion())).body(helpRequest);
     }
 
     @Operation(summary= "Delete a helpRequest")
@@ -91,33 +148,50 @@ public class HelpRequestController extends ApiController {
     @DeleteMapping("")
     public Object deleteHelpRequest(
             @Parameter(name="id") @RequestParam Long id) {
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-        helpRequestRepository.delete(helpRequest);
+        if (helpRequestRepository.deleteByIdReturningCount(id) == 0) {
+            throw new EntityNotFoundException(HelpRequest.class, id);
+        }
         return genericMessage("HelpRequest with id %s deleted".formatted(id));
     }
 
     @Operation(summary= "Update a single help request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public HelpRequest updateHelpRequest(
+    public ResponseEntity<HelpRequest> updateHelpRequest(
             @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match") @RequestHeader(name="If-Match", required=false) String ifMatch,
             @RequestBody @Valid HelpRequest incoming) {
 
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-
-        helpRequest.setRequesterEmail(incoming.getRequesterEmail());  
-        helpRequest.setTeamId(incoming.getTeamId());
-        helpRequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
-        helpRequest.setRequestTime(incoming.getRequestTime());
-        helpRequest.setExplanation(incoming.getExplanation());
-        helpRequest.setSolved(incoming.getSolved());
+        // on a version conflict the whole read-modify-write is retried; when
+        // the client sent If-Match the re-read fails the precondition instead
+        HelpRequest helpRequest = optimisticLockRetry.run(() -> {
+            HelpRequest current = helpRequestRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+            checkIfMatch(ifMatch, HelpRequest.class, id, current.getVersion());
+
+            current.setRequesterEmail(incoming.getRequesterEmail());
+            current.setTeamId(incoming.getTeamId());
+            current.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
+            current.setRequestTime(incoming.getRequestTime());
+            current.setExplanation(incoming.getExplanation());
+            current.setSolved(incoming.getSolved());
+
+            helpRequestRepository.save(current);
+            return current;
+        });
+
+        return ResponseEntity.ok().eTag(etag(helpRequest.getVersion())).body(helpRequest);
+    }
 
-        helpRequestRepository.save(helpRequest);
+    @Operation(summary= "Update some fields of a single help request with one UPDATE statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping("")
+    public ResponseEntity<HelpRequest> patchHelpRequest(
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match") @RequestHeader(name="If-Match", required=false) String ifMatch,
+            @RequestBody JsonNode patch) throws JsonProcessingException {
 
-        return helpRequest;
+        HelpRequest helpRequest = partialUpdateService.patch(HelpRequest.class, id, ifMatchVersions(ifMatch), patch);
+        return ResponseEntity.ok().eTag(etag(helpRequest.getVersion())).body(helpRequest);
     }
 }
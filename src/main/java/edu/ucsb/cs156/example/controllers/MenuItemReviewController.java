@@ -1,8 +1,16 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.config.ReadFromReplica;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.MenuItemReviewDetail;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
+import edu.ucsb.cs156.example.services.ReviewIngestionQueue;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,12 +18,15 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -26,6 +37,7 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Tag(name = "MenuItemReview")
 @RequestMapping("/api/MenuItemReview")
@@ -36,18 +48,44 @@ public class MenuItemReviewController extends ApiController {
     @Autowired
     MenuItemReviewRepository menuitemReviewRepository;
 
+    @Autowired
+    UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+    @Autowired
+    ListingService listingService;
+
+    @Autowired
+    ReviewIngestionQueue reviewIngestionQueue;
+
+    @Autowired
+    PartialUpdateService partialUpdateService;
+
     @Operation(summary= "List all menu item reviews")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("/all")
-    public Iterable<MenuItemReview> allMenuItemReviews() {
-        Iterable<MenuItemReview> menuitemReviews = menuitemReviewRepository.findAll();
+    public Iterable<MenuItemReviewSummary> allMenuItemReviews() {
+        Iterable<MenuItemReviewSummary> menuitemReviews = listingService.allMenuItemReviews();
         return menuitemReviews;
     }
 
-    @Operation(summary= "Create a menu item review")
+    @Operation(summary= "List the reviews of a dining commons' menu items, newest first, with each item's name and station")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
+    @GetMapping("/commons")
+    public List<MenuItemReviewDetail> reviewsAtCommons(
+            @Parameter(name="code") @RequestParam String code) {
+        return menuitemReviewRepository.findByDiningCommonsCode(code).stream()
+                .map(r -> new MenuItemReviewDetail(r.getId(), r.getItemId(), r.getItem().getName(),
+                        r.getItem().getStation(), r.getReviewerEmail(), r.getStars(), r.getDateReviewed(),
+                        r.getComments()))
+                .toList();
+    }
+
+    @Operation(summary= "Create a menu item review (202 Accepted when review ingestion is async)")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
-    public MenuItemReview postMenuItemReview(
+    public ResponseEntity<MenuItemReview> postMenuItemReview(
             @Parameter(name="itemId") @RequestParam Long itemId,
             @Parameter(name="reviewerEmail") @RequestParam String reviewerEmail,
             @Parameter(name="stars") @RequestParam int stars,
@@ -68,14 +106,28 @@ public class MenuItemReviewController extends ApiController {
         menuitemReview.setDateReviewed(dateReviewed);
         menuitemReview.setComments(comments);
 
+        // in async mode the review is journaled and queued; its id is
+        // assigned later by the background writer, which can't report a
+        // missing item back to this client, so the item is checked up front.
+        // The writer gets its own copy, so the response isn't serialized
+        // while the writer thread is setting the id.
+        if (reviewIngestionQueue.isAsync()) {
+            if (!ucsbDiningCommonsMenuItemRepository.existsById(itemId)) {
+                throw new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, itemId);
+            }
+            reviewIngestionQueue.submit(menuitemReview.toBuilder().build());
+            return ResponseEntity.accepted().body(menuitemReview);
+        }
+
         MenuItemReview savedMenuItemReview = menuitemReviewRepository.save(menuitemReview);
 
-        return savedMenuItemReview;
+        return ResponseEntity.ok(savedMenuItemReview);
 
          }
 
         @Operation(summary= "Get a single menu item review")
         @PreAuthorize("hasRole('ROLE_USER')")
+        @ReadFromReplica
         @GetMapping("")
         public MenuItemReview getById(
                 @Parameter(name="id") @RequestParam Long id) {
@@ -90,9 +142,9 @@ public class MenuItemReviewController extends ApiController {
         @DeleteMapping("")
         public Object deleteMenuItemReview(
                 @Parameter(name="id") @RequestParam Long id) {
-                    MenuItemReview menuitemReview = menuitemReviewRepository.findById(id)
-                    .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-                    menuitemReviewRepository.delete(menuitemReview);
+            if (menuitemReviewRepository.deleteByIdReturningCount(id) == 0) {
+                throw new EntityNotFoundException(MenuItemReview.class, id);
+            }
             return genericMessage("MenuItemReview with id %s deleted".formatted(id));
         }
     
@@ -117,4 +169,13 @@ public class MenuItemReviewController extends ApiController {
             return menuitemReview;
         }
 
+        @Operation(summary= "Update some fields of a single menu item review with one UPDATE statement")
+        @PreAuthorize("hasRole('ROLE_ADMIN')")
+        @PatchMapping("")
+        public MenuItemReview patchMenuItemReview(
+                @Parameter(name="id") @RequestParam Long id,
+                @RequestBody JsonNode patch) throws JsonProcessingException {
+
+            return partialUpdateService.patch(MenuItemReview.class, id, null, patch);
+        }
 }
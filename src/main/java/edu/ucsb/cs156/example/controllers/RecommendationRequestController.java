@@ -1,8 +1,12 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.config.ReadFromReplica;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.RecommendationRequestSummary;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,12 +14,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -26,6 +32,7 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Tag(name = "RecommendationRequests")
 @RequestMapping("/api/RecommendationRequest")
@@ -36,11 +43,18 @@ public class RecommendationRequestController extends ApiController {
     @Autowired
     RecommendationRequestRepository recommendationRequestRepository;
 
+    @Autowired
+    ListingService listingService;
+
+    @Autowired
+    PartialUpdateService partialUpdateService;
+
     @Operation(summary= "List all recommendation requests")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("/all")
-    public Iterable<RecommendationRequest> allRecommendationRequests() {
-        Iterable<RecommendationRequest> recommendationRequests = recommendationRequestRepository.findAll();
+    public Iterable<RecommendationRequestSummary> allRecommendationRequests() {
+        Iterable<RecommendationRequestSummary> recommendationRequests = listingService.allRecommendationRequests();
         return recommendationRequests;
     }
 
@@ -75,8 +89,28 @@ public class RecommendationRequestController extends ApiController {
         return savedRecommendationRequest;
     }
 
+    @Operation(summary= "Mark every matching recommendation request done (or not done) with one UPDATE")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/done")
+    public Object markRecommendationRequestsDone(
+            @Parameter(name="done") @RequestParam(defaultValue = "true") boolean done,
+            @Parameter(name="neededBefore", description="only requests needed before this time (default: now)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime neededBefore,
+            @Parameter(name="professorEmail") @RequestParam(required = false) String professorEmail,
+            @Parameter(name="requesterEmail") @RequestParam(required = false) String requesterEmail) {
+
+        LocalDateTime cutoff = neededBefore != null ? neededBefore : LocalDateTime.now();
+        int count = recommendationRequestRepository.updateDoneWhere(done, cutoff, professorEmail, requesterEmail);
+        log.info("marked {} recommendation requests done={} (neededBefore={}, professor={}, requester={})",
+                count, done, cutoff, professorEmail, requesterEmail);
+
+        return Map.of(
+            "message", "%d recommendation requests marked %s".formatted(count, done ? "done" : "not done"),
+            "count", count);
+    }
+
     @Operation(summary= "Get a single recommendation request")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("")
     public RecommendationRequest getById(
             @Parameter(name="id") @RequestParam Long id) {
@@ -91,10 +125,9 @@ public class RecommendationRequestController extends ApiController {
     @DeleteMapping("")
     public Object deleteRecommendationRequest(
             @Parameter(name="id") @RequestParam Long id) {
-        RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
-
-        recommendationRequestRepository.delete(recommendationRequest);
+        if (recommendationRequestRepository.deleteByIdReturningCount(id) == 0) {
+            throw new EntityNotFoundException(RecommendationRequest.class, id);
+        }
         return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
     }
 
@@ -119,5 +152,14 @@ public class RecommendationRequestController extends ApiController {
 
         return recommendationRequest;
     }
-    
+
+    @Operation(summary= "Update some fields of a single recommendation request with one UPDATE statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping("")
+    public RecommendationRequest patchRecommendationRequest(
+            @Parameter(name="id") @RequestParam Long id,
+            @RequestBody JsonNode patch) throws JsonProcessingException {
+
+        return partialUpdateService.patch(RecommendationRequest.class, id, null, patch);
+    }
 }
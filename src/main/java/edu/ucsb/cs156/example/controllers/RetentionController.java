@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.entities.RetentionProgress;
+import edu.ucsb.cs156.example.services.RetentionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Retention (admin only)")
+@RequestMapping("/api/admin/retention")
+@RestController
+public class RetentionController extends ApiController {
+
+    @Autowired
+    RetentionService retentionService;
+
+    @Operation(summary= "Progress of each retention purge policy in its current or last run",
+        description = "Read from RETENTION_PROGRESS, so every node returns the same view: the last run of each policy, "
+            + "on whichever node held the maintenance lock (node).  Nodes that found the lock held only log the skip.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("")
+    public List<RetentionProgress> progress() {
+        return retentionService.progress();
+    }
+}
@@ -1,27 +1,50 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.config.ReadFromReplica;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidParameterException;
+import edu.ucsb.cs156.example.models.DiningMenu;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsSummary;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.CacheInvalidationBus;
+import edu.ucsb.cs156.example.services.DiningCommonsLocator;
+import edu.ucsb.cs156.example.services.DiningMenuService;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
+import edu.ucsb.cs156.example.services.SingleFlight;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 
+import java.util.List;
+
 @Tag(name = "UCSBDiningCommons")
 @RequestMapping("/api/ucsbdiningcommons")
 @RestController
@@ -31,12 +54,71 @@ public class UCSBDiningCommonsController extends ApiController {
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+    @Autowired
+    ListingService listingService;
+
+    @Autowired
+    SingleFlight singleFlight;
+
+    static final String ALL = "ucsbdiningcommons/all";
+
+    @Autowired
+    DiningCommonsLocator diningCommonsLocator;
+
+    @Autowired
+    DiningMenuService diningMenuService;
+
+    @Autowired
+    CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    PartialUpdateService partialUpdateService;
+
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
-    @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = UCSBDiningCommonsSummary.class))))
+    @ReadFromReplica
+    @GetMapping(value = "/all", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            APPLICATION_SMILE_VALUE })
+    public Object allCommonss(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (prefersBinary(accept)) {
+            return listingService.allDiningCommons();
+        }
+        // a burst of identical requests shares one query and one JSON buffer
+        return singleFlight.run(ALL, () -> toJson(UCSBDiningCommonsSummary.class, listingService.allDiningCommons()));
+    }
+
+    @Operation(summary= "List the k dining commons closest to a location")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/nearest")
+    public List<UCSBDiningCommons> nearestCommons(
+        @Parameter(name="lat") @RequestParam double lat,
+        @Parameter(name="lon") @RequestParam double lon,
+        @Parameter(name="k") @RequestParam(defaultValue = "3") int k,
+        @Parameter(name="hasSackMeal") @RequestParam(required = false) Boolean hasSackMeal,
+        @Parameter(name="hasTakeOutMeal") @RequestParam(required = false) Boolean hasTakeOutMeal
+        )
+        {
+        if (!(lat >= -90 && lat <= 90)) {
+            throw new InvalidParameterException("lat", lat, "between -90 and 90");
+        }
+        if (!(lon >= -180 && lon <= 180)) {
+            throw new InvalidParameterException("lon", lon, "between -180 and 180");
+        }
+        return diningCommonsLocator.nearest(lat, lon, k, commons ->
+            (hasSackMeal == null || commons.getHasSackMeal() == hasSackMeal)
+            && (hasTakeOutMeal == null || commons.getHasTakeOutMeal() == hasTakeOutMeal));
+    }
+
+    @Operation(summary= "A commons with its menu items grouped by station, and each item's review count and average stars")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
+    @GetMapping("/menu")
+    public DiningMenu menu(
+            @Parameter(name="code") @RequestParam String code) {
+        return diningMenuService.menu(code)
+                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
     }
 
     @Operation(summary= "Create a new commons")
@@ -63,12 +145,15 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(longitude);
 
         UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+        cacheInvalidationBus.publish(UCSBDiningCommons.class, code);
+        singleFlight.forget(ALL);
 
         return savedCommons;
     }
 
     @Operation(summary= "Get a single commons")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("")
     public UCSBDiningCommons getById(
             @Parameter(name="code") @RequestParam String code) {
@@ -83,10 +168,11 @@ public class UCSBDiningCommonsController extends ApiController {
     @DeleteMapping("")
     public Object deleteCommons(
             @Parameter(name="code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-        ucsbDiningCommonsRepository.delete(commons);
+        if (ucsbDiningCommonsRepository.deleteByIdReturningCount(code) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommons.class, code);
+        }
+        cacheInvalidationBus.publish(UCSBDiningCommons.class, code);
+        singleFlight.forget(ALL);
         return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
     }
 
@@ -109,7 +195,22 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(incoming.getLongitude());
 
         ucsbDiningCommonsRepository.save(commons);
+        cacheInvalidationBus.publish(UCSBDiningCommons.class, code);
+        singleFlight.forget(ALL);
+
+        return commons;
+    }
+
+    @Operation(summary= "Update some fields of a single commons with one UPDATE statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping("")
+    public UCSBDiningCommons patchUCSBDiningCommons(
+            @Parameter(name="code") @RequestParam String code,
+            @RequestBody JsonNode patch) throws JsonProcessingException {
 
+        UCSBDiningCommons commons = partialUpdateService.patch(UCSBDiningCommons.class, code, null, patch);
+        cacheInvalidationBus.publish(UCSBDiningCommons.class, code);
+        singleFlight.forget(ALL);
         return commons;
     }
 }
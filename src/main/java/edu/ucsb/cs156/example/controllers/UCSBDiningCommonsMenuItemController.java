@@ -1,8 +1,13 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.config.ReadFromReplica;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsMenuItemSummary;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.CacheInvalidationBus;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,12 +15,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -35,11 +42,21 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     @Autowired
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+    @Autowired
+    ListingService listingService;
+
+    @Autowired
+    CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    PartialUpdateService partialUpdateService;
+
     @Operation(summary= "List all ucsb dining commons menu items")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItem() {
-        Iterable<UCSBDiningCommonsMenuItem> commonsMenuItems = ucsbDiningCommonsMenuItemRepository.findAll();
+    public Iterable<UCSBDiningCommonsMenuItemSummary> allUCSBDiningCommonsMenuItem() {
+        Iterable<UCSBDiningCommonsMenuItemSummary> commonsMenuItems = listingService.allDiningCommonsMenuItems();
         return commonsMenuItems;
     }
 
@@ -59,12 +76,14 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
         commonsMenuItem.setStation(station);
 
         UCSBDiningCommonsMenuItem savedMenuItems = ucsbDiningCommonsMenuItemRepository.save(commonsMenuItem);
+        cacheInvalidationBus.publish(UCSBDiningCommonsMenuItem.class, savedMenuItems.getId());
 
         return savedMenuItems;
     }
 
     @Operation(summary= "Get a single dining commons menu items")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("")
     public UCSBDiningCommonsMenuItem getById(
             @Parameter(name="id") @RequestParam Long id) {
@@ -89,6 +108,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
         commonsMenuItem.setStation(updatedMenuItem.getStation());
 
         ucsbDiningCommonsMenuItemRepository.save(commonsMenuItem);
+        cacheInvalidationBus.publish(UCSBDiningCommonsMenuItem.class, id);
 
         return commonsMenuItem;
     }
@@ -98,10 +118,22 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     @DeleteMapping("")
     public Object deleteUCSBDiningCommonsMenuItem(
             @Parameter(name="id") @RequestParam Long id) {
-        UCSBDiningCommonsMenuItem commonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-
-        ucsbDiningCommonsMenuItemRepository.delete(commonsMenuItem);
+        if (ucsbDiningCommonsMenuItemRepository.deleteByIdReturningCount(id) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id);
+        }
+        cacheInvalidationBus.publish(UCSBDiningCommonsMenuItem.class, id);
         return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
     }
-}
\ No newline at end of file
+
+    @Operation(summary= "Update some fields of a single dining commons menu item with one UPDATE statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping("")
+    public UCSBDiningCommonsMenuItem patchUCSBDiningCommonsMenuItem(
+            @Parameter(name="id") @RequestParam Long id,
+            @RequestBody JsonNode patch) throws JsonProcessingException {
+
+        UCSBDiningCommonsMenuItem menuItem = partialUpdateService.patch(UCSBDiningCommonsMenuItem.class, id, null, patch);
+        cacheInvalidationBus.publish(UCSBDiningCommonsMenuItem.class, id);
+        return menuItem;
+    }
+}
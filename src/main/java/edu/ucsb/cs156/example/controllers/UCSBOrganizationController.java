@@ -1,18 +1,27 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.config.ReadFromReplica;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.UCSBOrganizationSummary;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.CacheInvalidationBus;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -31,11 +40,21 @@ public class UCSBOrganizationController extends ApiController {
     @Autowired
     UCSBOrganizationRepository ucsbOrganizationRepository;
 
+    @Autowired
+    ListingService listingService;
+
+    @Autowired
+    CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    PartialUpdateService partialUpdateService;
+
     @Operation(summary= "List all ucsb organization")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("/all")
-    public Iterable<UCSBOrganization> allOrganizations() {
-        Iterable<UCSBOrganization> organizations = ucsbOrganizationRepository.findAll();
+    public Iterable<UCSBOrganizationSummary> allOrganizations() {
+        Iterable<UCSBOrganizationSummary> organizations = listingService.allOrganizations();
         return organizations;
     }
 
@@ -56,12 +75,14 @@ public class UCSBOrganizationController extends ApiController {
         organizations.setInactive(inactive);
 
         UCSBOrganization savedOrganization = ucsbOrganizationRepository.save(organizations);
+        cacheInvalidationBus.publish(UCSBOrganization.class, orgCode);
 
         return savedOrganization;
     }
 
     @Operation(summary= "Get a single organization")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadFromReplica
     @GetMapping("")
     public UCSBOrganization getById(
             @Parameter(name="orgCode") @RequestParam String orgCode) {
@@ -84,6 +105,7 @@ public class UCSBOrganizationController extends ApiController {
         organization.setInactive(incoming.getInactive());
 
         ucsbOrganizationRepository.save(organization);
+        cacheInvalidationBus.publish(UCSBOrganization.class, orgCode);
 
         return organization;
     }
@@ -92,12 +114,22 @@ public class UCSBOrganizationController extends ApiController {
     @DeleteMapping("")
     public Object deleteOrganization(
             @Parameter(name="orgCode") @RequestParam String orgCode) {
-        UCSBOrganization organization = ucsbOrganizationRepository.findById(orgCode)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
-
-        ucsbOrganizationRepository.delete(organization);
+        if (ucsbOrganizationRepository.deleteByIdReturningCount(orgCode) == 0) {
+            throw new EntityNotFoundException(UCSBOrganization.class, orgCode);
+        }
+        cacheInvalidationBus.publish(UCSBOrganization.class, orgCode);
         return genericMessage("UCSBOrganization with id %s deleted".formatted(orgCode));
     }
-   
-    
+
+    @Operation(summary= "Update some fields of a single organization with one UPDATE statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping("")
+    public UCSBOrganization patchUCSBOrganization(
+            @Parameter(name="orgCode") @RequestParam String orgCode,
+            @RequestBody JsonNode patch) throws JsonProcessingException {
+
+        UCSBOrganization organization = partialUpdateService.patch(UCSBOrganization.class, orgCode, null, patch);
+        cacheInvalidationBus.publish(UCSBOrganization.class, orgCode);
+        return organization;
+    }
 }
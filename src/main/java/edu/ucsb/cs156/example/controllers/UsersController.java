@@ -1,18 +1,22 @@
 package edu.ucsb.cs156.example.controllers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import edu.ucsb.cs156.example.entities.User;
-import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.config.ReadFromReplica;
+import edu.ucsb.cs156.example.models.UserSummary;
+import edu.ucsb.cs156.example.services.UserListingService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 
@@ -20,19 +24,35 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @RequestMapping("/api/admin/users")
 @RestController
 public class UsersController extends ApiController {
-    @Autowired
-    UserRepository userRepository;
+    static final int MAX_LIMIT = 1000;
 
     @Autowired
-    ObjectMapper mapper;
+    UserListingService userListingService;
 
-    @Operation(summary= "Get a list of all users")
+    @Operation(summary= "Get a page of users, ordered by id; a Link header with rel=\"next\" points to the next page")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @ReadFromReplica
     @GetMapping("")
-    public ResponseEntity<String> users()
-            throws JsonProcessingException {
-        Iterable<User> users = userRepository.findAll();
-        String body = mapper.writeValueAsString(users);
-        return ResponseEntity.ok().body(body);
+    public ResponseEntity<List<UserSummary>> users(
+            @Parameter(name="afterId", description="return users with a larger id") @RequestParam(defaultValue = "0") long afterId,
+            @Parameter(name="limit", description="page size, at most 1000") @RequestParam(defaultValue = "1000") int limit,
+            @Parameter(name="admin") @RequestParam(required = false) Boolean admin,
+            @Parameter(name="hostedDomain", description="e.g. ucsb.edu") @RequestParam(required = false) String hostedDomain,
+            @Parameter(name="emailPrefix") @RequestParam(required = false) String emailPrefix) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<UserSummary> users = userListingService.page(afterId, pageSize,
+                new UserListingService.Filter(admin, hostedDomain, emailPrefix));
+
+        // the list is written by Spring MVC's Jackson converter straight to
+        // the response stream; a full page means there may be more
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == pageSize) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("afterId", users.get(users.size() - 1).id())
+                    .replaceQueryParam("limit", pageSize)
+                    .build().toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(users);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+// A help request from an earlier quarter, moved out of HELPREQUESTS by
+// HelpRequestArchiver.  Rows keep their original id and are read-only.
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "archivedhelprequests")
+@Table(name = "HELPREQUESTS_ARCHIVE")
+public class ArchivedHelpRequest {
+    @Id
+    private long id;
+
+    private String requesterEmail;
+    private String teamId;
+    private String tableOrBreakoutRoom;
+    private LocalDateTime requestTime;
+    private String explanation;
+    private boolean solved;
+    private long version;
+
+    public HelpRequest toHelpRequest() {
+        return new HelpRequest(id, requesterEmail, teamId, tableOrBreakoutRoom, requestTime, explanation, solved, version);
+    }
+}
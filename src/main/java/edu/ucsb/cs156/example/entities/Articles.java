@@ -6,6 +6,7 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Version;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -27,4 +28,7 @@ public class Articles {
     private String explanation;
     private String email;
     private LocalDateTime dateAdded;
+
+    @Version
+    private long version;
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Where one RetentionService policy is in its current (or last) run, and
+// which node ran it.  state is one of disabled, idle, running, done, failed.
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+@Entity(name = "retentionprogress")
+@Table(name = "RETENTION_PROGRESS")
+public class RetentionProgress {
+  @Id
+  private String policy;
+
+  private String node;
+  private String action;
+  private int retentionDays;
+  private String state;
+  private LocalDateTime cutoff;
+  private LocalDateTime startedAt;
+  private LocalDateTime finishedAt;
+  private long batches;
+  // ROWS is a keyword in H2
+  @Column(name = "ROWS_PURGED")
+  private long rows;
+  private long lastId;
+  private String error;
+}
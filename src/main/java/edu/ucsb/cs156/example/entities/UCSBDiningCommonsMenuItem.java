@@ -1,16 +1,21 @@
 package edu.ucsb.cs156.example.entities;
 
-import java.time.LocalDateTime;
-
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.ToString;
 
 @Data
 @AllArgsConstructor
@@ -25,4 +30,13 @@ public class UCSBDiningCommonsMenuItem {
     private String diningCommonsCode;
     private String name;
     private String station;
-}
\ No newline at end of file
+
+    // DINING_COMMONS_CODE as an association; diningCommonsCode is what gets
+    // written and what the API exposes
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "dining_commons_code", insertable = false, updatable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private UCSBDiningCommons diningCommons;
+}
@@ -0,0 +1,7 @@
+package edu.ucsb.cs156.example.errors;
+
+public class InvalidParameterException extends RuntimeException {
+  public InvalidParameterException(String name, Object value, String expected) {
+    super("%s must be %s, got %s".formatted(name, expected, value));
+  }
+}
@@ -0,0 +1,8 @@
+package edu.ucsb.cs156.example.errors;
+
+public class PreconditionFailedException extends RuntimeException {
+  public PreconditionFailedException(Class<?> entityType, Object id, long currentVersion) {
+    super("%s with id %s has been modified (current version %d)"
+      .formatted(entityType.getSimpleName(), id.toString(), currentVersion));
+  }
+}
@@ -0,0 +1,7 @@
+package edu.ucsb.cs156.example.errors;
+
+public class QueueFullException extends RuntimeException {
+  public QueueFullException(String queue, int capacity) {
+    super("%s is full (%d pending), please retry".formatted(queue, capacity));
+  }
+}
@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+public record ArticlesSummary(
+    long id,
+    String title,
+    String url,
+    String explanation,
+    String email,
+    LocalDateTime dateAdded,
+    long version) {
+}
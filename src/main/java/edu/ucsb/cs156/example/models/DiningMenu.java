@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+
+public record DiningMenu(
+    UCSBDiningCommonsSummary commons,
+    List<Station> stations) {
+
+  public record Station(
+      String station,
+      List<Item> items) {
+  }
+
+  // averageStars is null for an item nobody has reviewed
+  public record Item(
+      long id,
+      String name,
+      long reviewCount,
+      Double averageStars) {
+  }
+}
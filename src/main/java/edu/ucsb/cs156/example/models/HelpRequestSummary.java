@@ -0,0 +1,14 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+public record HelpRequestSummary(
+    long id,
+    String requesterEmail,
+    String teamId,
+    String tableOrBreakoutRoom,
+    LocalDateTime requestTime,
+    String explanation,
+    boolean solved,
+    long version) {
+}
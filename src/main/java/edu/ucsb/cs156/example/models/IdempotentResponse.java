@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.models;
+
+// What an IdempotencyStore remembers about one Idempotency-Key.  A status
+// of 0 means the first request with the key has not finished yet.
+
+public record IdempotentResponse(
+    String fingerprint,
+    int status,
+    String contentType,
+    byte[] body) {
+
+  public static IdempotentResponse inFlight(String fingerprint) {
+    return new IdempotentResponse(fingerprint, 0, null, null);
+  }
+
+  public boolean isInFlight() {
+    return status == 0;
+  }
+}
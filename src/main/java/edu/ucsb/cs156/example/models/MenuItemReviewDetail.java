@@ -0,0 +1,14 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+public record MenuItemReviewDetail(
+    long id,
+    Long itemId,
+    String itemName,
+    String station,
+    String reviewerEmail,
+    int stars,
+    LocalDateTime dateReviewed,
+    String comments) {
+}
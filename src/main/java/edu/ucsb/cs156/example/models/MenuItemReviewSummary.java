@@ -0,0 +1,12 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+public record MenuItemReviewSummary(
+    long id,
+    Long itemId,
+    String reviewerEmail,
+    int stars,
+    LocalDateTime dateReviewed,
+    String comments) {
+}
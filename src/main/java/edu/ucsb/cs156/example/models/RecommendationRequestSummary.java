@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+public record RecommendationRequestSummary(
+    long id,
+    String requesterEmail,
+    String professorEmail,
+    String explanation,
+    LocalDateTime dateRequested,
+    LocalDateTime dateNeeded,
+    boolean done) {
+}
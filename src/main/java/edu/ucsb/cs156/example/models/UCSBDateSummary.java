@@ -0,0 +1,10 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+public record UCSBDateSummary(
+    long id,
+    String quarterYYYYQ,
+    String name,
+    LocalDateTime localDateTime) {
+}
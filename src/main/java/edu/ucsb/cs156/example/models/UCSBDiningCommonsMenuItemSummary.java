@@ -0,0 +1,8 @@
+package edu.ucsb.cs156.example.models;
+
+public record UCSBDiningCommonsMenuItemSummary(
+    long id,
+    String diningCommonsCode,
+    String name,
+    String station) {
+}
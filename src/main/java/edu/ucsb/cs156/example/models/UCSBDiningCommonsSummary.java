@@ -0,0 +1,11 @@
+package edu.ucsb.cs156.example.models;
+
+public record UCSBDiningCommonsSummary(
+    String code,
+    String name,
+    boolean hasSackMeal,
+    boolean hasTakeOutMeal,
+    boolean hasDiningCam,
+    Double latitude,
+    Double longitude) {
+}
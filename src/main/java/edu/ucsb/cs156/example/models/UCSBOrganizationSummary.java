@@ -0,0 +1,8 @@
+package edu.ucsb.cs156.example.models;
+
+public record UCSBOrganizationSummary(
+    String orgCode,
+    String orgTranslationShort,
+    String orgTranslation,
+    boolean inactive) {
+}
@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+public record UserSummary(
+    long id,
+    String email,
+    String googleSub,
+    String pictureUrl,
+    String fullName,
+    String givenName,
+    String familyName,
+    boolean emailVerified,
+    String locale,
+    String hostedDomain,
+    boolean admin) {
+}
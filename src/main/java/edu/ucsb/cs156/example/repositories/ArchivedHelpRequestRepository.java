@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+@Repository
+public interface ArchivedHelpRequestRepository extends CrudRepository<ArchivedHelpRequest, Long> {
+  @Query("select new edu.ucsb.cs156.example.models.HelpRequestSummary(h.id, h.requesterEmail, h.teamId, h.tableOrBreakoutRoom, h.requestTime, h.explanation, h.solved, h.version) from archivedhelprequests h")
+  List<HelpRequestSummary> findAllSummaries();
+
+  // copies rows server-side; the caller deletes them from HELPREQUESTS in the same transaction
+  @Transactional
+  @Modifying
+  @Query(value = "insert into HELPREQUESTS_ARCHIVE (ID, REQUESTER_EMAIL, TEAM_ID, TABLE_OR_BREAKOUT_ROOM, REQUEST_TIME, EXPLANATION, SOLVED, VERSION) select ID, REQUESTER_EMAIL, TEAM_ID, TABLE_OR_BREAKOUT_ROOM, REQUEST_TIME, EXPLANATION, SOLVED, VERSION from HELPREQUESTS where ID in (:ids)", nativeQuery = true)
+  int copyFromHelpRequests(@Param("ids") List<Long> ids);
+
+  // keyset page of retention candidates (see RetentionService)
+  @Query(value = "select ID from HELPREQUESTS_ARCHIVE where SOLVED = true and REQUEST_TIME < :before and ID > :afterId order by ID limit :limit", nativeQuery = true)
+  List<Long> findSolvedIdsRequestedBefore(@Param("before") LocalDateTime before, @Param("afterId") long afterId, @Param("limit") int limit);
+
+  @Transactional
+  @Modifying
+  @Query("delete from archivedhelprequests h where h.id in :ids")
+  int deleteByIds(@Param("ids") List<Long> ids);
+}
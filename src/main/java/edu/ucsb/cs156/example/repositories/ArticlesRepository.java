@@ -1,12 +1,25 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.ArticlesSummary;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 
 @Repository
 public interface ArticlesRepository extends CrudRepository<Articles, Long> {
+  @Query("select new edu.ucsb.cs156.example.models.ArticlesSummary(a.id, a.title, a.url, a.explanation, a.email, a.dateAdded, a.version) from articles a")
+  List<ArticlesSummary> findAllSummaries();
 
+  @Transactional
+  @Modifying
+  @Query("delete from articles a where a.id = :id")
+  int deleteByIdReturningCount(@Param("id") Long id);
 }
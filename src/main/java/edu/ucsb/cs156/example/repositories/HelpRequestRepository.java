@@ -1,12 +1,55 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 
 @Repository
 public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
-    
+  @Query("select new edu.ucsb.cs156.example.models.HelpRequestSummary(h.id, h.requesterEmail, h.teamId, h.tableOrBreakoutRoom, h.requestTime, h.explanation, h.solved, h.version) from helprequests h")
+  List<HelpRequestSummary> findAllSummaries();
+
+  @Transactional
+  @Modifying
+  @Query("delete from helprequests h where h.id = :id")
+  int deleteByIdReturningCount(@Param("id") Long id);
+
+  // one set-based UPDATE for end-of-section cleanup; null room/team match any
+  @Transactional
+  @Modifying
+  @Query("update helprequests h set h.solved = :solved, h.version = h.version + 1 where h.solved <> :solved and h.requestTime < :before and (:tableOrBreakoutRoom is null or h.tableOrBreakoutRoom = :tableOrBreakoutRoom) and (:teamId is null or h.teamId = :teamId)")
+  int updateSolvedWhere(@Param("solved") boolean solved, @Param("before") LocalDateTime before,
+      @Param("tableOrBreakoutRoom") String tableOrBreakoutRoom, @Param("teamId") String teamId);
+
+  // oldest first, so each archival batch is a contiguous run of ids
+  @Query(value = "select ID from HELPREQUESTS where REQUEST_TIME < :before order by ID limit :limit", nativeQuery = true)
+  List<Long> findIdsRequestedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+  @Transactional
+  @Modifying
+  @Query("delete from helprequests h where h.id in :ids")
+  int deleteByIds(@Param("ids") List<Long> ids);
+
+  // PostgreSQL only: functions created by the HelpRequests-5 changeset
+  @Transactional
+  @Query(value = "select helprequests_ensure_partition(:at)", nativeQuery = true)
+  int ensurePartition(@Param("at") LocalDateTime at);
+
+  @Transactional
+  @Query(value = "select helprequests_drop_partitions_before(:cutoff)", nativeQuery = true)
+  int dropPartitionsBefore(@Param("cutoff") LocalDateTime cutoff);
+
+  // keyset page of retention candidates (see RetentionService)
+  @Query(value = "select ID from HELPREQUESTS where SOLVED = true and REQUEST_TIME < :before and ID > :afterId order by ID limit :limit", nativeQuery = true)
+  List<Long> findSolvedIdsRequestedBefore(@Param("before") LocalDateTime before, @Param("afterId") long afterId, @Param("limit") int limit);
 }
@@ -1,12 +1,41 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
 
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 
 @Repository
 public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {
-    
+  @Query("select new edu.ucsb.cs156.example.models.MenuItemReviewSummary(r.id, r.itemId, r.reviewerEmail, r.stars, r.dateReviewed, r.comments) from menuitemreview r")
+  List<MenuItemReviewSummary> findAllSummaries();
+
+  // the reviews of a commons' menu items, each with its item in the same select
+  @EntityGraph("MenuItemReview.item")
+  @Query("select r from menuitemreview r join r.item i where i.diningCommonsCode = :code order by r.dateReviewed desc, r.id desc")
+  List<MenuItemReview> findByDiningCommonsCode(@Param("code") String code);
+
+  @Transactional
+  @Modifying
+  @Query("delete from menuitemreview r where r.id = :id")
+  int deleteByIdReturningCount(@Param("id") Long id);
+
+  // keyset page of retention candidates (see RetentionService)
+  @Query(value = "select ID from MENUITEMREVIEW where DATE_REVIEWED < :before and ID > :afterId order by ID limit :limit", nativeQuery = true)
+  List<Long> findIdsReviewedBefore(@Param("before") LocalDateTime before, @Param("afterId") long afterId, @Param("limit") int limit);
+
+  @Transactional
+  @Modifying
+  @Query("delete from menuitemreview r where r.id in :ids")
+  int deleteByIds(@Param("ids") List<Long> ids);
 }
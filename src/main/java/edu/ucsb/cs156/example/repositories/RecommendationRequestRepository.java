@@ -1,12 +1,42 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.RecommendationRequestSummary;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 
 @Repository
 public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long> {
-    
+  @Query("select new edu.ucsb.cs156.example.models.RecommendationRequestSummary(r.id, r.requesterEmail, r.professorEmail, r.explanation, r.dateRequested, r.dateNeeded, r.done) from recommendationrequests r")
+  List<RecommendationRequestSummary> findAllSummaries();
+
+  @Transactional
+  @Modifying
+  @Query("delete from recommendationrequests r where r.id = :id")
+  int deleteByIdReturningCount(@Param("id") Long id);
+
+  // one set-based UPDATE for batch cleanup; null emails match any
+  @Transactional
+  @Modifying
+  @Query("update recommendationrequests r set r.done = :done where r.done <> :done and r.dateNeeded < :neededBefore and (:professorEmail is null or r.professorEmail = :professorEmail) and (:requesterEmail is null or r.requesterEmail = :requesterEmail)")
+  int updateDoneWhere(@Param("done") boolean done, @Param("neededBefore") LocalDateTime neededBefore,
+      @Param("professorEmail") String professorEmail, @Param("requesterEmail") String requesterEmail);
+
+  // keyset page of retention candidates (see RetentionService)
+  @Query(value = "select ID from RECOMMENDATIONREQUESTS where DONE = true and DATE_NEEDED < :before and ID > :afterId order by ID limit :limit", nativeQuery = true)
+  List<Long> findDoneIdsNeededBefore(@Param("before") LocalDateTime before, @Param("afterId") long afterId, @Param("limit") int limit);
+
+  @Transactional
+  @Modifying
+  @Query("delete from recommendationrequests r where r.id in :ids")
+  int deleteByIds(@Param("ids") List<Long> ids);
 }
@@ -1,12 +1,27 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.UCSBDateSummary;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 
 @Repository
 public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
-}
\ No newline at end of file
+
+  @Query("select new edu.ucsb.cs156.example.models.UCSBDateSummary(d.id, d.quarterYYYYQ, d.name, d.localDateTime) from ucsbdates d")
+  List<UCSBDateSummary> findAllSummaries();
+
+  @Transactional
+  @Modifying
+  @Query("delete from ucsbdates d where d.id = :id")
+  int deleteByIdReturningCount(@Param("id") Long id);
+}
@@ -1,11 +1,24 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsMenuItemSummary;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Repository
 public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long>{
-    
+  @Query("select new edu.ucsb.cs156.example.models.UCSBDiningCommonsMenuItemSummary(m.id, m.diningCommonsCode, m.name, m.station) from ucsbdiningcommonsmenuitem m")
+  List<UCSBDiningCommonsMenuItemSummary> findAllSummaries();
+
+  @Transactional
+  @Modifying
+  @Query("delete from ucsbdiningcommonsmenuitem m where m.id = :id")
+  int deleteByIdReturningCount(@Param("id") Long id);
 }
@@ -1,13 +1,26 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsSummary;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 
 @Repository
 public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
- 
-}
\ No newline at end of file
+  @Query("select new edu.ucsb.cs156.example.models.UCSBDiningCommonsSummary(c.code, c.name, c.hasSackMeal, c.hasTakeOutMeal, c.hasDiningCam, c.latitude, c.longitude) from ucsbdiningcommons c")
+  List<UCSBDiningCommonsSummary> findAllSummaries();
+
+  @Transactional
+  @Modifying
+  @Query("delete from ucsbdiningcommons c where c.code = :code")
+  int deleteByIdReturningCount(@Param("code") String code);
+}
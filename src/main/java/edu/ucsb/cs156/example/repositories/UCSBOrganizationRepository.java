@@ -1,9 +1,22 @@
 package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.UCSBOrganizationSummary;
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 @Repository
 public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String> {
- 
-}
\ No newline at end of file
+  @Query("select new edu.ucsb.cs156.example.models.UCSBOrganizationSummary(o.orgCode, o.orgTranslationShort, o.orgTranslation, o.inactive) from ucsborganizations o")
+  List<UCSBOrganizationSummary> findAllSummaries();
+
+  @Transactional
+  @Modifying
+  @Query("delete from ucsborganizations o where o.orgCode = :orgCode")
+  int deleteByIdReturningCount(@Param("orgCode") String orgCode);
+}
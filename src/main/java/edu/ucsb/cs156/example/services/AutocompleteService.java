@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.Completion;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// Keeps one PrefixIndex per searchable table.  Each index is loaded from the
+// database on first use and then kept current from the CacheInvalidationBus:
+// a change to one row reloads that row's entry, and a change to unknown
+// rows (a null id) drops the index so the next search loads it again.
+
+@Slf4j
+@Service("autocompleteService")
+public class AutocompleteService {
+
+  public enum Type {
+    ORGANIZATION,
+    MENUITEM
+  }
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  CacheInvalidationBus cacheInvalidationBus;
+
+  private final Map<Type, PrefixIndex> indexes = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  void subscribe() {
+    cacheInvalidationBus.subscribe(UCSBOrganization.class, orgCode -> refresh(Type.ORGANIZATION, orgCode));
+    cacheInvalidationBus.subscribe(UCSBDiningCommonsMenuItem.class, id -> refresh(Type.MENUITEM, id));
+  }
+
+  public List<Completion> complete(Type type, String prefix, int limit) {
+    return index(type).complete(prefix, limit);
+  }
+
+  // An index that hasn't been loaded yet will read the change when it is,
+  // so there is nothing to do for it.  computeIfPresent also makes a change
+  // that arrives while the index is loading wait for the load to finish.
+  private void refresh(Type type, String id) {
+    if (id == null) {
+      indexes.remove(type);
+      return;
+    }
+    indexes.computeIfPresent(type, (t, index) -> {
+      if (type == Type.ORGANIZATION) {
+        ucsbOrganizationRepository.findById(id)
+            .ifPresentOrElse(organization -> put(index, organization), () -> index.remove(id));
+      } else {
+        ucsbDiningCommonsMenuItemRepository.findById(Long.parseLong(id))
+            .ifPresentOrElse(menuItem -> put(index, menuItem), () -> index.remove(id));
+      }
+      return index;
+    });
+  }
+
+  private PrefixIndex index(Type type) {
+    return indexes.computeIfAbsent(type, this::load);
+  }
+
+  private PrefixIndex load(Type type) {
+    PrefixIndex index = new PrefixIndex();
+    if (type == Type.ORGANIZATION) {
+      ucsbOrganizationRepository.findAll().forEach(organization -> put(index, organization));
+    } else {
+      ucsbDiningCommonsMenuItemRepository.findAll().forEach(menuItem -> put(index, menuItem));
+    }
+    log.info("loaded {} autocomplete index with {} entries", type, index.size());
+    return index;
+  }
+
+  private static void put(PrefixIndex index, UCSBOrganization organization) {
+    index.put(organization.getOrgCode(), organization.getOrgTranslationShort(),
+        organization.getOrgTranslationShort(), organization.getOrgTranslation());
+  }
+
+  private static void put(PrefixIndex index, UCSBDiningCommonsMenuItem menuItem) {
+    index.put(Long.toString(menuItem.getId()), menuItem.getName(), menuItem.getName());
+  }
+}
@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Tells every node that a row has changed, so each can drop or reload what
+// it keeps in memory from it.  Write paths call publish(Entity.class, id)
+// once the write is done; the entity's subscribers then run on every node,
+// the publishing one included.  A subscriber is called with the changed
+// row's id, or with null when changes may have been missed and it has to
+// assume every row changed.
+//
+// Timer: cache.invalidation.propagation{entity, origin=local|remote}, from
+// publish() to delivery.  Remote figures compare two nodes' clocks, so
+// they include any skew between them.
+
+@Slf4j
+public abstract class CacheInvalidationBus implements MeterBinder {
+
+  LongSupplier clock = System::currentTimeMillis;
+
+  private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+  private volatile MeterRegistry registry;
+
+  public void subscribe(Class<?> entity, Consumer<String> subscriber) {
+    subscribers.computeIfAbsent(entity.getSimpleName(), e -> new CopyOnWriteArrayList<>()).add(subscriber);
+  }
+
+  public abstract void publish(Class<?> entity, Object id);
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  void deliver(String entity, String id, long publishedAtMillis, boolean remote) {
+    MeterRegistry current = registry;
+    if (current != null) {
+      Timer.builder("cache.invalidation.propagation")
+          .tag("entity", entity).tag("origin", remote ? "remote" : "local")
+          .register(current)
+          .record(Math.max(0, clock.getAsLong() - publishedAtMillis), TimeUnit.MILLISECONDS);
+    }
+    notify(entity, id);
+  }
+
+  void deliverAll() {
+    subscribers.keySet().forEach(entity -> notify(entity, null));
+  }
+
+  // A failing subscriber is logged and skipped: the write it is hearing
+  // about has already happened, and the others still need to hear it.
+  private void notify(String entity, String id) {
+    for (Consumer<String> subscriber : subscribers.getOrDefault(entity, List.of())) {
+      try {
+        subscriber.accept(id);
+      } catch (RuntimeException e) {
+        log.error("cache invalidation of {} {} failed", entity, id, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// Answers "k closest dining commons" queries from an in-memory k-d tree.
+//
+// Each commons is projected onto the unit sphere as an (x,y,z) point, so
+// straight-line (chord) distance orders points exactly like great-circle
+// distance and the usual per-axis pruning of a k-d tree stays correct.
+// The tree is rebuilt lazily on the first query after invalidate(), which
+// runs whenever a UCSBDiningCommons change arrives on the
+// CacheInvalidationBus, from this node or another.  Each invalidate() bumps
+// a generation and a tree remembers the generation it was built for, so an
+// invalidation that arrives during a rebuild triggers another one, and a
+// rebuild that fails leaves the index stale for the next query to retry.
+
+@Slf4j
+@Service("diningCommonsLocator")
+public class DiningCommonsLocator {
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  CacheInvalidationBus cacheInvalidationBus;
+
+  private final AtomicLong generation = new AtomicLong();
+  private volatile Node root;
+  private volatile long builtGeneration = -1;
+
+  @PostConstruct
+  void subscribe() {
+    cacheInvalidationBus.subscribe(UCSBDiningCommons.class, code -> invalidate());
+  }
+
+  public void invalidate() {
+    generation.incrementAndGet();
+  }
+
+  public List<UCSBDiningCommons> nearest(double latitude, double longitude, int k,
+      Predicate<UCSBDiningCommons> filter) {
+    Node tree = currentTree();
+    if (k <= 0 || tree == null) {
+      return List.of();
+    }
+
+    double[] target = toPoint(latitude, longitude);
+    PriorityQueue<Candidate> best = new PriorityQueue<>(
+        Comparator.comparingDouble(Candidate::distanceSquared).reversed());
+    search(tree, target, k, filter, best);
+
+    List<Candidate> sorted = new ArrayList<>(best);
+    sorted.sort(Comparator.comparingDouble(Candidate::distanceSquared));
+    List<UCSBDiningCommons> result = new ArrayList<>(sorted.size());
+    for (Candidate c : sorted) {
+      result.add(c.node().commons);
+    }
+    return result;
+  }
+
+  private Node currentTree() {
+    long wanted = generation.get();
+    if (builtGeneration != wanted) {
+      rebuild(wanted);
+    }
+    return root;
+  }
+
+  private synchronized void rebuild(long wanted) {
+    root = build();
+    builtGeneration = wanted;
+  }
+
+  private Node build() {
+    List<Node> nodes = new ArrayList<>();
+    for (UCSBDiningCommons commons : ucsbDiningCommonsRepository.findAll()) {
+      if (commons.getLatitude() != null && commons.getLongitude() != null) {
+        nodes.add(new Node(commons, toPoint(commons.getLatitude(), commons.getLongitude())));
+      }
+    }
+    log.info("rebuilt dining commons spatial index with {} entries", nodes.size());
+    return build(nodes, 0, nodes.size(), 0);
+  }
+
+  private static Node build(List<Node> nodes, int from, int to, int depth) {
+    if (from >= to) {
+      return null;
+    }
+    int axis = depth % 3;
+    List<Node> slice = nodes.subList(from, to);
+    slice.sort(Comparator.comparingDouble(n -> n.point[axis]));
+    int mid = from + (to - from) / 2;
+    Node node = nodes.get(mid);
+    node.axis = axis;
+    node.left = build(nodes, from, mid, depth + 1);
+    node.right = build(nodes, mid + 1, to, depth + 1);
+    return node;
+  }
+
+  private static void search(Node node, double[] target, int k,
+      Predicate<UCSBDiningCommons> filter, PriorityQueue<Candidate> best) {
+    if (node == null) {
+      return;
+    }
+
+    if (filter.test(node.commons)) {
+      double d = distanceSquared(node.point, target);
+      if (best.size() < k) {
+        best.add(new Candidate(node, d));
+      } else if (d < best.peek().distanceSquared()) {
+        best.poll();
+        best.add(new Candidate(node, d));
+      }
+    }
+
+    double diff = target[node.axis] - node.point[node.axis];
+    Node near = diff < 0 ? node.left : node.right;
+    Node far = diff < 0 ? node.right : node.left;
+    search(near, target, k, filter, best);
+    if (best.size() < k || diff * diff < best.peek().distanceSquared()) {
+      search(far, target, k, filter, best);
+    }
+  }
+
+  static double[] toPoint(double latitude, double longitude) {
+    double lat = Math.toRadians(latitude);
+    double lon = Math.toRadians(longitude);
+    return new double[] {
+        Math.cos(lat) * Math.cos(lon),
+        Math.cos(lat) * Math.sin(lon),
+        Math.sin(lat)
+    };
+  }
+
+  private static double distanceSquared(double[] a, double[] b) {
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  private static final class Node {
+    final UCSBDiningCommons commons;
+    final double[] point;
+    int axis;
+    Node left;
+    Node right;
+
+    Node(UCSBDiningCommons commons, double[] point) {
+      this.commons = commons;
+      this.point = point;
+    }
+  }
+
+  private record Candidate(Node node, double distanceSquared) {
+  }
+}
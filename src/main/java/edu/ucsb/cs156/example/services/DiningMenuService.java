@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.DiningMenu;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsSummary;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Backs GET /api/ucsbdiningcommons/menu: one commons, its menu items grouped
+// by station, and each item's review count and average stars.
+//
+// A single statement joins the three tables and aggregates the reviews per
+// item, using the indexes from UCSBDiningMenu-1, instead of the client
+// downloading every commons, menu item and review and joining them itself.
+// Rows come back ordered by station, so grouping is one pass.
+
+@Service("diningMenuService")
+@Transactional(readOnly = true)
+public class DiningMenuService {
+
+  static final String MENU = """
+      select c.CODE, c.NAME as COMMONS_NAME, c.HAS_SACK_MEAL, c.HAS_TAKE_OUT_MEAL, c.HAS_DINING_CAM,
+             c.LATITUDE, c.LONGITUDE, i.ID, i.NAME as ITEM_NAME, i.STATION,
+             count(r.ID) as REVIEW_COUNT, avg(cast(r.STARS as double precision)) as AVERAGE_STARS
+      from UCSBDININGCOMMONS c
+      left join UCSBDININGCOMMONSMENUITEM i on i.DINING_COMMONS_CODE = c.CODE
+      left join MENUITEMREVIEW r on r.ITEM_ID = i.ID
+      where c.CODE = ?
+      group by c.CODE, c.NAME, c.HAS_SACK_MEAL, c.HAS_TAKE_OUT_MEAL, c.HAS_DINING_CAM,
+               c.LATITUDE, c.LONGITUDE, i.ID, i.NAME, i.STATION
+      order by i.STATION, i.NAME, i.ID""";
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  public Optional<DiningMenu> menu(String code) {
+    return Optional.ofNullable(jdbcTemplate.query(MENU, rs -> {
+      if (!rs.next()) {
+        return null;
+      }
+      UCSBDiningCommonsSummary commons = new UCSBDiningCommonsSummary(
+          rs.getString("CODE"),
+          rs.getString("COMMONS_NAME"),
+          rs.getBoolean("HAS_SACK_MEAL"),
+          rs.getBoolean("HAS_TAKE_OUT_MEAL"),
+          rs.getBoolean("HAS_DINING_CAM"),
+          rs.getObject("LATITUDE", Double.class),
+          rs.getObject("LONGITUDE", Double.class));
+
+      // a commons without menu items is one row of nulls from the join
+      Map<String, List<DiningMenu.Item>> stations = new LinkedHashMap<>();
+      do {
+        if (rs.getObject("ID") != null) {
+          stations.computeIfAbsent(rs.getString("STATION"), s -> new ArrayList<>()).add(new DiningMenu.Item(
+              rs.getLong("ID"),
+              rs.getString("ITEM_NAME"),
+              rs.getLong("REVIEW_COUNT"),
+              rs.getObject("AVERAGE_STARS", Double.class)));
+        }
+      } while (rs.next());
+
+      return new DiningMenu(commons, stations.entrySet().stream()
+          .map(e -> new DiningMenu.Station(e.getKey(), e.getValue()))
+          .toList());
+    }, code));
+  }
+}
@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Moves help requests from earlier quarters into HELPREQUESTS_ARCHIVE.
+//
+// Quarters are calendar quarters (W = Jan-Mar, S = Apr-Jun, M = Jul-Sep,
+// F = Oct-Dec); the current quarter and the keep-quarters - 1 before it
+// stay in HELPREQUESTS.  Rows are moved oldest first, batch-size at a time,
+// each batch copy + delete in its own transaction so the job never holds
+// locks on more than one batch.  Archived rows are no longer listed by
+// /api/HelpRequest/all, so keep-quarters <= 0 (the default) turns archiving
+// off.
+//
+// With app.help-request-archive.partitioned=true (PostgreSQL, see the
+// HelpRequests-5 changeset) the job also makes sure the current and next
+// quarter's partitions exist, archiving or not, and drops old partitions
+// once they are empty.  Runs of the job are serialized through JobLock.
+
+@Slf4j
+@Service("helpRequestArchiver")
+public class HelpRequestArchiver {
+
+  @Value("${app.help-request-archive.keep-quarters:0}")
+  int keepQuarters;
+
+  @Value("${app.help-request-archive.batch-size:1000}")
+  int batchSize;
+
+  @Value("${app.help-request-archive.partitioned:false}")
+  boolean partitioned;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  JobLock jobLock;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  @Scheduled(cron = "${app.help-request-archive.cron:0 30 3 * * *}")
+  public void archiveOldQuarters() {
+    jobLock.runExclusively(JobLock.MAINTENANCE, this::maintain);
+  }
+
+  private void maintain() {
+    LocalDateTime now = LocalDateTime.now(clock);
+    if (partitioned) {
+      helpRequestRepository.ensurePartition(now);
+      helpRequestRepository.ensurePartition(now.plusMonths(3));
+    }
+    if (keepQuarters <= 0) {
+      return;
+    }
+    LocalDateTime cutoff = cutoff(now, keepQuarters);
+    int moved = archiveBefore(cutoff);
+    int dropped = partitioned ? helpRequestRepository.dropPartitionsBefore(cutoff) : 0;
+    log.info("archived {} help requests from before {}, dropped {} partitions", moved, cutoff, dropped);
+  }
+
+  public int archiveBefore(LocalDateTime cutoff) {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    int total = 0;
+    int moved;
+    do {
+      moved = transaction.execute(status -> moveBatch(cutoff));
+      total += moved;
+    } while (moved == batchSize);
+    return total;
+  }
+
+  private int moveBatch(LocalDateTime cutoff) {
+    List<Long> ids = helpRequestRepository.findIdsRequestedBefore(cutoff, batchSize);
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    archivedHelpRequestRepository.copyFromHelpRequests(ids);
+    helpRequestRepository.deleteByIds(ids);
+    return ids.size();
+  }
+
+  // start of the oldest quarter that is kept
+  static LocalDateTime cutoff(LocalDateTime now, int keepQuarters) {
+    LocalDate quarterStart = LocalDate.of(now.getYear(), (now.getMonthValue() - 1) / 3 * 3 + 1, 1);
+    return quarterStart.minusMonths(3L * (keepQuarters - 1)).atStartOfDay();
+  }
+}
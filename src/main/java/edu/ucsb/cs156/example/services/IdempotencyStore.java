@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.IdempotentResponse;
+
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+
+// Remembers the responses of POST requests that carried an Idempotency-Key
+// so that retries can be answered without running the handler again.
+// Entries expire app.idempotency.ttl-seconds after they were claimed.
+
+public abstract class IdempotencyStore {
+
+  @Value("${app.idempotency.ttl-seconds:86400}")
+  long ttlSeconds;
+
+  LongSupplier clock = System::currentTimeMillis;
+
+  // Atomically reserves `key` for a new request.  Returns null when the
+  // caller now owns the key, otherwise what is already stored for it
+  // (possibly still in flight).
+  public abstract IdempotentResponse claim(String key, String fingerprint);
+
+  // Records the response for a key claimed by this caller.
+  public abstract void complete(String key, IdempotentResponse response);
+
+  // Forgets a claimed key, e.g. because the request failed and may be retried.
+  public abstract void release(String key);
+
+  long expiredBefore() {
+    return clock.getAsLong() - ttlSeconds * 1000;
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.IdempotentResponse;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+// Single-node IdempotencyStore.  Keys are kept in claim order, and since
+// every entry has the same TTL the oldest key is always the next to expire;
+// each claim evicts from the head until nothing is expired and the map is
+// within app.idempotency.max-entries.
+
+@Service("idempotencyStore")
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore extends IdempotencyStore {
+
+  @Value("${app.idempotency.max-entries:10000}")
+  int maxEntries;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+
+  @Override
+  public IdempotentResponse claim(String key, String fingerprint) {
+    evict();
+    Entry claimed = new Entry(key, clock.getAsLong(), IdempotentResponse.inFlight(fingerprint));
+    Entry existing = entries.putIfAbsent(key, claimed);
+    if (existing != null) {
+      return existing.response;
+    }
+    order.add(claimed);
+    queued.incrementAndGet();
+    return null;
+  }
+
+  @Override
+  public void complete(String key, IdempotentResponse response) {
+    entries.computeIfPresent(key, (k, entry) -> {
+      entry.response = response;
+      return entry;
+    });
+  }
+
+  @Override
+  public void release(String key) {
+    entries.remove(key);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  // only evict() takes from the queue, so the head it peeks is the one it polls
+  private synchronized void evict() {
+    long cutoff = expiredBefore();
+    Entry head;
+    while ((head = order.peek()) != null && (head.createdAt < cutoff || queued.get() >= maxEntries)) {
+      order.poll();
+      queued.decrementAndGet();
+      // a released key may since have been claimed again; keep the newer claim
+      entries.remove(head.key, head);
+    }
+  }
+
+  private static final class Entry {
+    final String key;
+    final long createdAt;
+    volatile IdempotentResponse response;
+
+    Entry(String key, long createdAt, IdempotentResponse response) {
+      this.key = key;
+      this.createdAt = createdAt;
+      this.response = response;
+    }
+  }
+}
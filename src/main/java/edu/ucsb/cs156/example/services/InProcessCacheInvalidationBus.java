@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.services;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+// Single-node CacheInvalidationBus, and the one to use on H2, which has no
+// LISTEN/NOTIFY: publish() calls this node's subscribers directly.
+
+@Service("cacheInvalidationBus")
+@ConditionalOnProperty(name = "app.cache-invalidation.bus", havingValue = "in-process", matchIfMissing = true)
+public class InProcessCacheInvalidationBus extends CacheInvalidationBus {
+
+  @Override
+  public void publish(Class<?> entity, Object id) {
+    deliver(entity.getSimpleName(), String.valueOf(id), clock.getAsLong(), false);
+  }
+}
@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.IdempotentResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// IdempotencyStore shared by every node, backed by the IDEMPOTENCY_KEYS
+// table.  The primary key on IDEMPOTENCY_KEY makes claim() atomic across
+// nodes: whoever inserts the row first owns the key.
+//
+// A claim is a lease of lease-seconds from CLAIMED_AT.  A node that dies
+// mid-request leaves its row in flight; once the lease has run out, a retry
+// with the same fingerprint takes the row over (an UPDATE conditional on
+// the CLAIMED_AT it read, so only one retry wins) instead of getting 409
+// until the TTL.  The lease has to outlast the slowest request, or a retry
+// can run the handler a second time.
+//
+// claim() treats rows past the TTL as gone; sweep() deletes them in
+// batches (using the CREATED_AT index) on a schedule, one node at a time.
+//
+// Enable with app.idempotency.store=jdbc
+
+@Slf4j
+@Service("idempotencyStore")
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "jdbc")
+public class JdbcIdempotencyStore extends IdempotencyStore {
+
+  // a key whose row keeps changing between our INSERT and SELECT is
+  // reported as in flight after this many tries
+  static final int MAX_ATTEMPTS = 3;
+
+  @Value("${app.idempotency.lease-seconds:60}")
+  long leaseSeconds;
+
+  @Value("${app.idempotency.sweep-batch-size:1000}")
+  int sweepBatchSize;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  JobLock jobLock;
+
+  @Override
+  public IdempotentResponse claim(String key, String fingerprint) {
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+      long now = clock.getAsLong();
+      try {
+        jdbcTemplate.update("insert into IDEMPOTENCY_KEYS (IDEMPOTENCY_KEY, FINGERPRINT, STATUS, CREATED_AT, CLAIMED_AT)"
+            + " values (?, ?, 0, ?, ?)", key, fingerprint, now, now);
+        return null;
+      } catch (DuplicateKeyException e) {
+        List<Row> existing = jdbcTemplate.query("select FINGERPRINT, STATUS, CONTENT_TYPE, BODY, CREATED_AT, CLAIMED_AT"
+            + " from IDEMPOTENCY_KEYS where IDEMPOTENCY_KEY = ?",
+            (rs, i) -> new Row(new IdempotentResponse(rs.getString(1), rs.getInt(2), rs.getString(3), rs.getBytes(4)),
+                rs.getLong(5), rs.getLong(6)),
+            key);
+        if (existing.isEmpty()) {
+          // the other claim was released in between
+          continue;
+        }
+        Row row = existing.get(0);
+        if (row.createdAt() < expiredBefore()) {
+          jdbcTemplate.update("delete from IDEMPOTENCY_KEYS where IDEMPOTENCY_KEY = ? and CREATED_AT = ?",
+              key, row.createdAt());
+          continue;
+        }
+        if (!row.response().isInFlight() || !row.response().fingerprint().equals(fingerprint)
+            || row.claimedAt() > now - leaseSeconds * 1000) {
+          return row.response();
+        }
+        if (jdbcTemplate.update("update IDEMPOTENCY_KEYS set CLAIMED_AT = ? where IDEMPOTENCY_KEY = ?"
+            + " and STATUS = 0 and CLAIMED_AT = ?", now, key, row.claimedAt()) == 1) {
+          log.warn("took over idempotency key {}, in flight since {} with its lease expired", key, row.claimedAt());
+          return null;
+        }
+      }
+    }
+    return IdempotentResponse.inFlight(fingerprint);
+  }
+
+  @Override
+  public void complete(String key, IdempotentResponse response) {
+    jdbcTemplate.update(
+        "update IDEMPOTENCY_KEYS set STATUS = ?, CONTENT_TYPE = ?, BODY = ? where IDEMPOTENCY_KEY = ?",
+        response.status(), response.contentType(), response.body(), key);
+  }
+
+  @Override
+  public void release(String key) {
+    jdbcTemplate.update("delete from IDEMPOTENCY_KEYS where IDEMPOTENCY_KEY = ?", key);
+  }
+
+  @Scheduled(cron = "${app.idempotency.sweep-cron:0 */10 * * * *}")
+  public void sweep() {
+    jobLock.runExclusively("idempotency-keys", () -> {
+      long cutoff = expiredBefore();
+      int total = 0;
+      int deleted;
+      do {
+        deleted = jdbcTemplate.update("delete from IDEMPOTENCY_KEYS where IDEMPOTENCY_KEY in"
+            + " (select IDEMPOTENCY_KEY from IDEMPOTENCY_KEYS where CREATED_AT < ? limit ?)", cutoff, sweepBatchSize);
+        total += deleted;
+      } while (deleted == sweepBatchSize);
+      log.info("deleted {} expired idempotency keys", total);
+    });
+  }
+
+  private record Row(IdempotentResponse response, long createdAt, long claimedAt) {
+  }
+}
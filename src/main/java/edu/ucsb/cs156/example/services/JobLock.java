@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Keeps scheduled maintenance jobs to one run at a time across every node
+// that has app.scheduling.enabled.  runExclusively(lock, task) runs the
+// task only if nothing else holds the named lock, and says whether it did;
+// a job that finds the lock taken skips this run and waits for its next
+// trigger.  Jobs that touch the same rows share a lock: HelpRequestArchiver
+// and RetentionService both move help requests into HELPREQUESTS_ARCHIVE,
+// so both take MAINTENANCE.
+
+@Slf4j
+public abstract class JobLock {
+
+  public static final String MAINTENANCE = "maintenance";
+
+  public boolean runExclusively(String lock, Runnable task) {
+    boolean ran = tryRun(lock, task);
+    if (!ran) {
+      log.info("{} lock is held elsewhere, skipping this run", lock);
+    }
+    return ran;
+  }
+
+  abstract boolean tryRun(String lock, Runnable task);
+}
@@ -0,0 +1,102 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.ArticlesSummary;
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
+import edu.ucsb.cs156.example.models.RecommendationRequestSummary;
+import edu.ucsb.cs156.example.models.UCSBDateSummary;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsMenuItemSummary;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsSummary;
+import edu.ucsb.cs156.example.models.UCSBOrganizationSummary;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Backs the /all list endpoints.
+//
+// Each read runs in a read-only transaction: with Hibernate this sets the
+// session flush mode to MANUAL and calls Connection.setReadOnly(true) on the
+// JDBC connection.  The queries select straight into the *Summary records
+// in the models package, so no managed entities (and no dirty-checking
+// snapshots) are created.  The records declare their components in entity
+// field order, so the JSON is the same as serializing the entities.
+
+@Service("listingService")
+@Transactional(readOnly = true)
+public class ListingService {
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  public List<ArticlesSummary> allArticles() {
+    return articlesRepository.findAllSummaries();
+  }
+
+  public List<HelpRequestSummary> allHelpRequests() {
+    return helpRequestRepository.findAllSummaries();
+  }
+
+  public List<HelpRequestSummary> allArchivedHelpRequests() {
+    return archivedHelpRequestRepository.findAllSummaries();
+  }
+
+  public List<MenuItemReviewSummary> allMenuItemReviews() {
+    return menuItemReviewRepository.findAllSummaries();
+  }
+
+  public List<RecommendationRequestSummary> allRecommendationRequests() {
+    return recommendationRequestRepository.findAllSummaries();
+  }
+
+  public List<UCSBDateSummary> allUCSBDates() {
+    return ucsbDateRepository.findAllSummaries();
+  }
+
+  public List<UCSBDiningCommonsSummary> allDiningCommons() {
+    return ucsbDiningCommonsRepository.findAllSummaries();
+  }
+
+  public List<UCSBDiningCommonsMenuItemSummary> allDiningCommonsMenuItems() {
+    return ucsbDiningCommonsMenuItemRepository.findAllSummaries();
+  }
+
+  public List<UCSBOrganizationSummary> allOrganizations() {
+    return ucsbOrganizationRepository.findAllSummaries();
+  }
+}
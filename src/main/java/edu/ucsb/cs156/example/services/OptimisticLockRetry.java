@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Runs a read-modify-write against @Version'd entities.
+//
+// Each attempt is its own transaction, so the entity read at the start is
+// managed and its version is checked (and bumped) when the transaction
+// commits.  If another writer got there first the attempt is re-run from
+// the read, up to app.optimistic-lock.max-attempts times, after which the
+// OptimisticLockingFailureException reaches ApiController as a 409.
+
+@Slf4j
+@Service("optimisticLockRetry")
+public class OptimisticLockRetry {
+
+  @Value("${app.optimistic-lock.max-attempts:3}")
+  int maxAttempts;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  public <T> T run(Supplier<T> attempt) {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    for (int i = 1; ; i++) {
+      try {
+        return transaction.execute(status -> attempt.get());
+      } catch (OptimisticLockingFailureException e) {
+        if (i >= maxAttempts) {
+          log.warn("giving up after {} conflicting attempts: {}", i, e.getMessage());
+          throw e;
+        }
+        log.info("optimistic lock conflict on attempt {} of {}, retrying", i, maxAttempts);
+      }
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute.PersistentAttributeType;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+
+// Backs the PATCH endpoints: one UPDATE that sets only the fields present
+// in the request body, then a SELECT of the row as stored.
+//
+// Field values are read with the application's ObjectMapper, so they are
+// converted exactly as in a PUT body.  When the entity has a @Version the
+// UPDATE bumps it, and `expectedVersions` (from If-Match, null for no
+// check) is part of the WHERE clause.  An UPDATE that matches no row is
+// reported as 404 if the row is gone and as 412 otherwise.
+
+@Service
+public class PartialUpdateService {
+
+  @PersistenceContext
+  EntityManager entityManager;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Transactional
+  public <T> T patch(Class<T> type, Object id, Set<Long> expectedVersions, JsonNode body)
+      throws JsonProcessingException {
+    EntityType<T> entity = entityManager.getMetamodel().entity(type);
+    BeanWrapper values = new BeanWrapperImpl(mapper.treeToValue(body, type));
+
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+    Root<T> root = update.from(type);
+    Predicate where = null;
+    String version = null;
+    boolean changed = false;
+    int updated = 0;
+
+    for (SingularAttribute<? super T, ?> attribute : entity.getSingularAttributes()) {
+      String name = attribute.getName();
+      if (attribute.isId()) {
+        where = cb.equal(root.get(name), id);
+      } else if (attribute.isVersion()) {
+        version = name;
+      } else if (attribute.getPersistentAttributeType() == PersistentAttributeType.BASIC && body.has(name)) {
+        update.set(name, values.getPropertyValue(name));
+        changed = true;
+      }
+    }
+
+    boolean checkVersion = version != null && expectedVersions != null;
+    if (changed) {
+      if (version != null) {
+        Path<Long> versionPath = root.get(version);
+        update.set(versionPath, cb.sum(versionPath, 1L));
+        if (checkVersion) {
+          where = cb.and(where, expectedVersions.isEmpty() ? cb.disjunction() : versionPath.in(expectedVersions));
+        }
+      }
+      update.where(where);
+      updated = entityManager.createQuery(update).executeUpdate();
+    }
+
+    T stored = entityManager.find(type, id);
+    if (stored == null) {
+      throw new EntityNotFoundException(type, id);
+    }
+    if (checkVersion) {
+      long current = (Long) new BeanWrapperImpl(stored).getPropertyValue(version);
+      if (changed ? updated == 0 : !expectedVersions.contains(current)) {
+        throw new PreconditionFailedException(type, id, current);
+      }
+    }
+    return stored;
+  }
+}
@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+// CacheInvalidationBus shared by every node through PostgreSQL
+// LISTEN/NOTIFY.
+//
+// publish() calls this node's subscribers straight away and then sends
+//
+//   NOTIFY cache_invalidation, '<node> <publishedAtMillis> <entity> <id>'
+//
+// which PostgreSQL holds back until the publishing transaction commits.
+// Each node LISTENs on a connection of its own (outside the pool) from a
+// background thread, ignores its own notifications and delivers the rest.
+// Notifications sent while that connection is down are lost, so after
+// every (re)connect all subscribers are told that everything changed.
+//
+// Enable with app.cache-invalidation.bus=postgres
+
+@Slf4j
+@Service("cacheInvalidationBus")
+@ConditionalOnProperty(name = "app.cache-invalidation.bus", havingValue = "postgres")
+public class PostgresCacheInvalidationBus extends CacheInvalidationBus {
+
+  static final String CHANNEL = "cache_invalidation";
+
+  @Value("${spring.datasource.url}")
+  String url;
+
+  @Value("${spring.datasource.username:}")
+  String username;
+
+  @Value("${spring.datasource.password:}")
+  String password;
+
+  @Value("${app.cache-invalidation.poll-ms:500}")
+  int pollMillis;
+
+  @Value("${app.cache-invalidation.retry-backoff-ms:1000}")
+  long retryBackoffMs;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  final String node = UUID.randomUUID().toString();
+  Callable<Connection> connector = () -> DriverManager.getConnection(url, username, password);
+  volatile boolean running;
+  private Thread listener;
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    listener = new Thread(this::listenLoop, "cache-invalidation-listener");
+    listener.setDaemon(true);
+    listener.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    listener.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  // A failed NOTIFY is logged rather than failing a write that has already
+  // been made; it usually means the database is unreachable, in which case
+  // the other nodes' listeners reconnect and start over anyway.
+  @Override
+  public void publish(Class<?> entity, Object id) {
+    long now = clock.getAsLong();
+    deliver(entity.getSimpleName(), String.valueOf(id), now, false);
+    try {
+      jdbcTemplate.queryForList("select pg_notify(?, ?)", CHANNEL,
+          "%s %d %s %s".formatted(node, now, entity.getSimpleName(), id));
+    } catch (DataAccessException e) {
+      log.error("could not tell other nodes that {} {} changed", entity.getSimpleName(), id, e);
+    }
+  }
+
+  void listenLoop() {
+    while (running) {
+      try (Connection connection = connector.call()) {
+        listen(connection);
+      } catch (Exception e) {
+        if (running) {
+          log.warn("cache invalidation listener lost its connection, reconnecting in {} ms", retryBackoffMs, e);
+          LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(retryBackoffMs));
+        }
+      }
+    }
+  }
+
+  // Returns once stopped; throws when the connection fails.
+  void listen(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("LISTEN " + CHANNEL);
+    }
+    deliverAll();
+    PGConnection notifications = connection.unwrap(PGConnection.class);
+    while (running) {
+      PGNotification[] received = notifications.getNotifications(pollMillis);
+      if (received != null) {
+        for (PGNotification notification : received) {
+          receive(notification.getParameter());
+        }
+      }
+    }
+  }
+
+  void receive(String payload) {
+    String[] fields = payload.split(" ", 4);
+    if (!fields[0].equals(node)) {
+      deliver(fields[2], fields[3], Long.parseLong(fields[1]), true);
+    }
+  }
+}
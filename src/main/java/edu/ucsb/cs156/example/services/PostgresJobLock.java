@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+// JobLock shared by every node through a PostgreSQL session-level advisory
+// lock, pg_try_advisory_lock(CLASS_ID, hash of the lock name), taken and
+// released on one pooled connection that is held while the job runs (the
+// job's own transactions use other connections).  If a node dies mid-run
+// its session ends and PostgreSQL releases the lock.
+//
+// Enable with app.scheduling.lock=postgres
+
+@Service("jobLock")
+@ConditionalOnProperty(name = "app.scheduling.lock", havingValue = "postgres")
+public class PostgresJobLock extends JobLock {
+
+  // first half of every key taken here, so that these locks cannot collide
+  // with advisory locks anything else takes
+  static final int CLASS_ID = 0x4a4f4253;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Override
+  boolean tryRun(String lock, Runnable task) {
+    return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+      if (!advisory(connection, "select pg_try_advisory_lock(?, ?)", lock)) {
+        return false;
+      }
+      try {
+        task.run();
+      } finally {
+        advisory(connection, "select pg_advisory_unlock(?, ?)", lock);
+      }
+      return true;
+    });
+  }
+
+  private static boolean advisory(Connection connection, String sql, String lock) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setInt(1, CLASS_ID);
+      statement.setInt(2, lock.hashCode());
+      try (ResultSet result = statement.executeQuery()) {
+        result.next();
+        return result.getBoolean(1);
+      }
+    }
+  }
+}
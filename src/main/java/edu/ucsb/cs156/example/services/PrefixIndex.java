@@ -0,0 +1,159 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.Completion;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Case-insensitive trie used for typeahead completions.
+//
+// Every indexed text is inserted once as a whole and once for each word it
+// contains, so "Associated Students" completes for both "asso" and "stu".
+// complete() walks the subtree under the prefix breadth-first, so shorter
+// (closer) matches rank first and ties are broken alphabetically; it stops
+// as soon as it has `limit` distinct entries, keeping the cost per keystroke
+// independent of the size of the table.
+
+public class PrefixIndex {
+
+  private final Node root = new Node();
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  public void put(String id, String label, String... texts) {
+    Set<String> terms = new LinkedHashSet<>();
+    for (String text : texts) {
+      terms.addAll(termsOf(text));
+    }
+
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+      entries.put(id, new Entry(label, terms));
+      for (String term : terms) {
+        Node node = root;
+        for (int i = 0; i < term.length(); i++) {
+          node = node.children.computeIfAbsent(term.charAt(i), c -> new Node());
+        }
+        node.ids.add(id);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(String id) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public List<Completion> complete(String prefix, int limit) {
+    List<Completion> results = new ArrayList<>();
+    String key = normalize(prefix);
+    if (key.isEmpty() || limit <= 0) {
+      return results;
+    }
+
+    lock.readLock().lock();
+    try {
+      Node node = root;
+      for (int i = 0; i < key.length() && node != null; i++) {
+        node = node.children.get(key.charAt(i));
+      }
+      if (node == null) {
+        return results;
+      }
+
+      Set<String> seen = new LinkedHashSet<>();
+      Queue<Node> queue = new ArrayDeque<>();
+      queue.add(node);
+      while (!queue.isEmpty() && seen.size() < limit) {
+        Node current = queue.poll();
+        for (String id : current.ids) {
+          if (seen.size() < limit && seen.add(id)) {
+            results.add(new Completion(id, entries.get(id).label()));
+          }
+        }
+        queue.addAll(current.children.values());
+      }
+      return results;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void removeLocked(String id) {
+    Entry old = entries.remove(id);
+    if (old == null) {
+      return;
+    }
+    for (String term : old.terms()) {
+      removeTerm(root, term, 0, id);
+    }
+  }
+
+  // returns true when `node` no longer holds anything and can be pruned
+  private static boolean removeTerm(Node node, String term, int depth, String id) {
+    if (depth == term.length()) {
+      node.ids.remove(id);
+    } else {
+      char c = term.charAt(depth);
+      Node child = node.children.get(c);
+      if (removeTerm(child, term, depth + 1, id)) {
+        node.children.remove(c);
+      }
+    }
+    return node.ids.isEmpty() && node.children.isEmpty();
+  }
+
+  static Set<String> termsOf(String text) {
+    Set<String> terms = new LinkedHashSet<>();
+    String normalized = normalize(text);
+    if (normalized.isEmpty()) {
+      return terms;
+    }
+    terms.add(normalized);
+    for (int i = 1; i < normalized.length(); i++) {
+      if (normalized.charAt(i - 1) == ' ' && normalized.charAt(i) != ' ') {
+        terms.add(normalized.substring(i));
+      }
+    }
+    return terms;
+  }
+
+  static String normalize(String text) {
+    return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static final class Node {
+    final Map<Character, Node> children = new TreeMap<>();
+    final Set<String> ids = new TreeSet<>();
+  }
+
+  private record Entry(String label, Set<String> terms) {
+  }
+}
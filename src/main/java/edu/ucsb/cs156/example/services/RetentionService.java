@@ -0,0 +1,193 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.RetentionProgress;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RetentionProgressRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Removes rows that are past their retention period:
+//
+//   help-requests             solved, requested more than N days ago;
+//                             moved to HELPREQUESTS_ARCHIVE or deleted
+//   archived-help-requests    solved, in the archive more than N days
+//   recommendation-requests   done, needed more than N days ago
+//   menu-item-reviews         reviewed more than N days ago
+//
+// A policy with days <= 0 is off.  Each policy walks its candidates in id
+// order, batch-size ids at a time (keyset paging on ID > last id seen, so
+// every page is an index range scan), purges each batch in its own short
+// transaction and then pauses for pause-ms, which bounds lock hold times
+// and gives replicas time to catch up.  Runs are serialized through
+// JobLock, so with several nodes only one purges at a time; it records
+// its progress per policy, with its node name, in RETENTION_PROGRESS,
+// which RetentionController serves from any node.  A node that finds the
+// lock held only logs the skip.
+
+@Slf4j
+@Service("retentionService")
+public class RetentionService {
+
+  // RETENTION_PROGRESS.ERROR is VARCHAR(1024)
+  static final int MAX_ERROR_LENGTH = 1024;
+
+  @Value("${app.retention.batch-size:500}")
+  int batchSize;
+
+  @Value("${app.retention.pause-ms:250}")
+  long pauseMs;
+
+  @Value("${app.retention.help-requests.days:0}")
+  int helpRequestDays;
+
+  @Value("${app.retention.help-requests.action:archive}")
+  String helpRequestAction;
+
+  @Value("${app.retention.archived-help-requests.days:0}")
+  int archivedHelpRequestDays;
+
+  @Value("${app.retention.recommendation-requests.days:0}")
+  int recommendationRequestDays;
+
+  @Value("${app.retention.menu-item-reviews.days:0}")
+  int menuItemReviewDays;
+
+  @Value("${app.node-name:${HOSTNAME:unknown}}")
+  String node;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  RetentionProgressRepository retentionProgressRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  JobLock jobLock;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  @Scheduled(cron = "${app.retention.cron:0 0 4 * * *}")
+  public void purgeAll() {
+    jobLock.runExclusively(JobLock.MAINTENANCE, () -> policies().forEach(this::purge));
+  }
+
+  public List<RetentionProgress> progress() {
+    List<RetentionProgress> result = new ArrayList<>();
+    for (Policy policy : policies()) {
+      result.add(retentionProgressRepository.findById(policy.name()).orElse(RetentionProgress.builder()
+          .policy(policy.name())
+          .action(policy.action())
+          .retentionDays(policy.days())
+          .state(policy.days() > 0 ? "idle" : "disabled")
+          .build()));
+    }
+    return result;
+  }
+
+  List<Policy> policies() {
+    boolean archive = "archive".equals(helpRequestAction);
+    return List.of(
+        new Policy("help-requests", archive ? "archive" : "delete", helpRequestDays,
+            helpRequestRepository::findSolvedIdsRequestedBefore,
+            ids -> {
+              if (archive) {
+                archivedHelpRequestRepository.copyFromHelpRequests(ids);
+              }
+              helpRequestRepository.deleteByIds(ids);
+            }),
+        new Policy("archived-help-requests", "delete", archivedHelpRequestDays,
+            archivedHelpRequestRepository::findSolvedIdsRequestedBefore,
+            archivedHelpRequestRepository::deleteByIds),
+        new Policy("recommendation-requests", "delete", recommendationRequestDays,
+            recommendationRequestRepository::findDoneIdsNeededBefore,
+            recommendationRequestRepository::deleteByIds),
+        new Policy("menu-item-reviews", "delete", menuItemReviewDays,
+            menuItemReviewRepository::findIdsReviewedBefore,
+            menuItemReviewRepository::deleteByIds));
+  }
+
+  void purge(Policy policy) {
+    if (policy.days() <= 0) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now(clock);
+    RetentionProgress current = RetentionProgress.builder()
+        .policy(policy.name())
+        .node(node)
+        .action(policy.action())
+        .retentionDays(policy.days())
+        .state("running")
+        .cutoff(now.minusDays(policy.days()))
+        .startedAt(now)
+        .build();
+    current = retentionProgressRepository.save(current);
+
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    try {
+      List<Long> ids = policy.candidates().find(current.getCutoff(), 0, batchSize);
+      while (!ids.isEmpty()) {
+        List<Long> batch = ids;
+        transaction.executeWithoutResult(status -> policy.purge().accept(batch));
+        current = current.toBuilder()
+            .batches(current.getBatches() + 1)
+            .rows(current.getRows() + batch.size())
+            .lastId(batch.get(batch.size() - 1))
+            .build();
+        current = retentionProgressRepository.save(current);
+        if (batch.size() < batchSize) {
+          break;
+        }
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pauseMs));
+        ids = policy.candidates().find(current.getCutoff(), current.getLastId(), batchSize);
+      }
+      current = current.toBuilder().state("done").build();
+    } catch (RuntimeException e) {
+      log.error("retention policy {} failed after {} rows", policy.name(), current.getRows(), e);
+      String error = String.valueOf(e.getMessage());
+      current = current.toBuilder().state("failed")
+          .error(error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH))).build();
+    }
+    current.setFinishedAt(LocalDateTime.now(clock));
+    current = retentionProgressRepository.save(current);
+    log.info("retention policy {} ({} before {}) {}: {} rows in {} batches",
+        policy.name(), policy.action(), current.getCutoff(), current.getState(), current.getRows(),
+        current.getBatches());
+  }
+
+  @FunctionalInterface
+  interface Candidates {
+    List<Long> find(LocalDateTime before, long afterId, int limit);
+  }
+
+  record Policy(String name, String action, int days, Candidates candidates, Consumer<List<Long>> purge) {
+  }
+}
@@ -0,0 +1,241 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.QueueFullException;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Write-behind path for POST /api/MenuItemReview/post.
+//
+// With app.review-ingestion.mode=async a submitted review is appended to the
+// ReviewJournal and queued, and the request is answered straight away.  One
+// background thread takes up to batch-size queued reviews at a time and
+// inserts them in a single transaction, so a burst of reviews costs one
+// commit per batch instead of one per review.
+//
+// At most `capacity` reviews may be waiting; once that many are, submit()
+// waits up to offer-timeout-ms for room and then throws QueueFullException,
+// which ApiController answers with 503.  When a batch fails to commit its
+// reviews are retried one per transaction: one the database rejects
+// (DataIntegrityViolationException) is logged and dropped so it cannot hold
+// up the rest, while any other failure puts it and the reviews behind it
+// back at the head of the queue to be retried after retry-backoff-ms.
+// Reviews left over at shutdown (or after a crash) are still in the journal
+// and are queued again on the next start, so delivery is at-least-once: a
+// crash between a commit and its journal marker writes that batch twice.
+//
+// The journal is only as durable as the disk it is on.  The default
+// relative path lands in the working directory, which on a container is
+// discarded by every redeploy, so production requires an explicit path (see
+// application-production.properties) that should be on persistent storage.
+//
+// In the default "sync" mode none of this is started and the controller
+// saves each review itself.
+
+@Slf4j
+@Service("reviewIngestionQueue")
+public class ReviewIngestionQueue implements MeterBinder {
+
+  @Value("${app.review-ingestion.mode:sync}")
+  String mode;
+
+  @Value("${app.review-ingestion.capacity:10000}")
+  int capacity;
+
+  @Value("${app.review-ingestion.batch-size:500}")
+  int batchSize;
+
+  @Value("${app.review-ingestion.offer-timeout-ms:100}")
+  long offerTimeoutMs;
+
+  @Value("${app.review-ingestion.retry-backoff-ms:1000}")
+  long retryBackoffMs;
+
+  @Value("${app.review-ingestion.journal:review-ingestion.journal}")
+  String journalPath;
+
+  @Value("${app.review-ingestion.journal-fsync:true}")
+  boolean journalFsync;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  ObjectMapper objectMapper;
+
+  ReviewJournal journal;
+  Semaphore permits;
+  private final BlockingDeque<ReviewJournal.Entry> queue = new LinkedBlockingDeque<>();
+  private final LongAdder written = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+  private volatile boolean running;
+  private Thread writer;
+
+  public boolean isAsync() {
+    return "async".equals(mode);
+  }
+
+  @PostConstruct
+  public void start() throws Exception {
+    if (!isAsync()) {
+      return;
+    }
+    if (journalPath.isBlank()) {
+      throw new IllegalStateException("app.review-ingestion.journal must name a file on persistent storage");
+    }
+    journal = new ReviewJournal(Path.of(journalPath), objectMapper, journalFsync);
+    List<ReviewJournal.Entry> recovered = journal.pending();
+    queue.addAll(recovered);
+    permits = new Semaphore(capacity - recovered.size());
+
+    running = true;
+    writer = new Thread(this::drainLoop, "review-writer");
+    writer.setDaemon(true);
+    writer.start();
+    log.info("review ingestion is async: capacity {}, batches of {}, {} recovered from journal",
+        capacity, batchSize, recovered.size());
+  }
+
+  @PreDestroy
+  public void stop() throws Exception {
+    if (writer == null) {
+      return;
+    }
+    running = false;
+    writer.join(TimeUnit.SECONDS.toMillis(30));
+    journal.close();
+    log.info("review ingestion stopped with {} reviews left in the journal", queue.size());
+  }
+
+  @SneakyThrows(InterruptedException.class)
+  public void submit(MenuItemReview review) {
+    if (!permits.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+      rejected.increment();
+      throw new QueueFullException("review queue", capacity);
+    }
+    // appending and queueing together keeps the queue in sequence order,
+    // which is what lets the writer commit by high-water mark
+    synchronized (queue) {
+      try {
+        queue.add(new ReviewJournal.Entry(journal.append(review), review));
+      } catch (RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+    }
+  }
+
+  public int size() {
+    return queue.size();
+  }
+
+  void drainLoop() {
+    while (running || !queue.isEmpty()) {
+      drainOnce(100);
+    }
+  }
+
+  // Writes at most one batch; returns the number of reviews written.
+  int drainOnce(long waitMillis) {
+    List<ReviewJournal.Entry> batch = new ArrayList<>(batchSize);
+    try {
+      ReviewJournal.Entry first = queue.poll(waitMillis, TimeUnit.MILLISECONDS);
+      if (first == null) {
+        return 0;
+      }
+      batch.add(first);
+    } catch (InterruptedException e) {
+      running = false;
+      return 0;
+    }
+    queue.drainTo(batch, batchSize - 1);
+
+    try {
+      List<MenuItemReview> reviews = batch.stream().map(ReviewJournal.Entry::review).toList();
+      new TransactionTemplate(transactionManager)
+          .executeWithoutResult(status -> menuItemReviewRepository.saveAll(reviews));
+      journal.commit(batch.get(batch.size() - 1).seq());
+    } catch (RuntimeException e) {
+      log.warn("writing a batch of {} reviews failed, retrying them one at a time", batch.size(), e);
+      return writeOneByOne(batch);
+    }
+
+    written.add(batch.size());
+    batches.increment();
+    permits.release(batch.size());
+    return batch.size();
+  }
+
+  private int writeOneByOne(List<ReviewJournal.Entry> batch) {
+    int done = 0;
+    int saved = 0;
+    try {
+      for (ReviewJournal.Entry entry : batch) {
+        try {
+          new TransactionTemplate(transactionManager)
+              .executeWithoutResult(status -> menuItemReviewRepository.save(entry.review()));
+          saved++;
+        } catch (DataIntegrityViolationException e) {
+          log.error("dropping review #{} {}, the database rejected it: {}", entry.seq(), entry.review(),
+              e.getMostSpecificCause().getMessage());
+          dropped.increment();
+        }
+        journal.commit(entry.seq());
+        permits.release();
+        done++;
+      }
+    } catch (RuntimeException e) {
+      log.error("writing reviews failed, retrying {} in {} ms", batch.size() - done, retryBackoffMs, e);
+      for (int i = batch.size() - 1; i >= done; i--) {
+        queue.addFirst(batch.get(i));
+      }
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(retryBackoffMs));
+    }
+    written.add(saved);
+    return saved;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("review.ingestion.queue", queue, BlockingDeque::size).register(registry);
+    FunctionCounter.builder("review.ingestion.reviews", written, LongAdder::sum)
+        .tag("outcome", "written").register(registry);
+    FunctionCounter.builder("review.ingestion.reviews", rejected, LongAdder::sum)
+        .tag("outcome", "rejected").register(registry);
+    FunctionCounter.builder("review.ingestion.reviews", dropped, LongAdder::sum)
+        .tag("outcome", "dropped").register(registry);
+    FunctionCounter.builder("review.ingestion.batches", batches, LongAdder::sum).register(registry);
+  }
+}
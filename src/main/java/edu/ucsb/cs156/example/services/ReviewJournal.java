@@ -0,0 +1,124 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Append-only file of reviews that have been acknowledged to the client but
+// not yet written to the database.
+//
+// Every accepted review is appended as one JSON line with a sequence number;
+// after the background writer commits a batch it appends a commit marker
+// for the batch's last sequence number.  Once everything appended has been
+// committed the file is truncated, so it only ever holds the backlog.  On
+// startup, lines after the last marker are handed back by pending() to be
+// written again and the file is compacted down to just those lines; a torn
+// final line from a crash mid-append is dropped.
+
+@Slf4j
+public class ReviewJournal implements AutoCloseable {
+
+  private final ObjectMapper objectMapper;
+  private final boolean fsync;
+  private final FileChannel channel;
+  private final List<Entry> pending = new ArrayList<>();
+  private long lastAppended;
+
+  public ReviewJournal(Path path, ObjectMapper objectMapper, boolean fsync) throws IOException {
+    this.objectMapper = objectMapper;
+    this.fsync = fsync;
+    if (Files.exists(path)) {
+      recover(path);
+    }
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    // rewrite what is still pending so new appends never follow a torn line
+    channel.truncate(0);
+    for (Entry entry : pending) {
+      write(new Line(entry.seq(), entry.review(), null));
+    }
+  }
+
+  public List<Entry> pending() {
+    return List.copyOf(pending);
+  }
+
+  public synchronized long append(MenuItemReview review) {
+    write(new Line(++lastAppended, review, null));
+    return lastAppended;
+  }
+
+  public synchronized void commit(long seq) {
+    if (seq >= lastAppended) {
+      try {
+        channel.truncate(0);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    } else {
+      write(new Line(null, null, seq));
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  private void recover(Path path) throws IOException {
+    long committed = 0;
+    try (BufferedReader reader = Files.newBufferedReader(path)) {
+      for (String text = reader.readLine(); text != null; text = reader.readLine()) {
+        Line line;
+        try {
+          line = objectMapper.readValue(text, Line.class);
+        } catch (IOException e) {
+          log.warn("ignoring unreadable review journal line: {}", e.getMessage());
+          break;
+        }
+        if (line.committed() != null) {
+          committed = line.committed();
+        } else {
+          pending.add(new Entry(line.seq(), line.review()));
+          lastAppended = line.seq();
+        }
+      }
+    }
+    long watermark = committed;
+    pending.removeIf(entry -> entry.seq() <= watermark);
+    log.info("review journal {} has {} reviews still to write", path, pending.size());
+  }
+
+  private void write(Line line) {
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(line);
+      ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+      channel.write(buffer);
+      if (fsync) {
+        channel.force(false);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public record Entry(long seq, MenuItemReview review) {
+  }
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  record Line(Long seq, MenuItemReview review, Long committed) {
+  }
+}
@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+// MD5 of the Liquibase changelog this build ships with, and the copy
+// MigrationRunner stores in SCHEMA_CHECKSUM after applying it.  With
+// app.migrations.mode=verify instances compare the two at startup instead
+// of running Liquibase (see MigrationConfig): two small reads rather than
+// parsing every changeset and taking the changelog lock.
+//
+// Uses its own JdbcTemplate because Spring Boot makes the JdbcTemplate
+// bean wait for Liquibase, which this class stands in for.
+
+@Service("schemaChecksum")
+public class SchemaChecksum {
+
+  static final String[] CHANGELOG = {
+      "classpath:db/migration/changelog-master.json",
+      "classpath:db/migration/changes/*.json" };
+
+  final JdbcTemplate jdbcTemplate;
+
+  final ResourcePatternResolver resources;
+
+  @Autowired
+  public SchemaChecksum(DataSource dataSource, ResourcePatternResolver resources) {
+    this(new JdbcTemplate(dataSource), resources);
+  }
+
+  SchemaChecksum(JdbcTemplate jdbcTemplate, ResourcePatternResolver resources) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.resources = resources;
+  }
+
+  // checksum of the changelog files, by file name and content
+  public String expected() {
+    try {
+      List<Resource> files = new ArrayList<>();
+      for (String pattern : CHANGELOG) {
+        files.addAll(List.of(resources.getResources(pattern)));
+      }
+      files.sort(Comparator.comparing(Resource::getFilename));
+
+      ByteArrayOutputStream changelog = new ByteArrayOutputStream();
+      for (Resource file : files) {
+        changelog.write(file.getFilename().getBytes(StandardCharsets.UTF_8));
+        changelog.write(0);
+        changelog.write(file.getInputStream().readAllBytes());
+      }
+      return DigestUtils.md5DigestAsHex(changelog.toByteArray());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // null until MigrationRunner has run against this database
+  public String recorded() {
+    List<String> rows = jdbcTemplate.queryForList(
+        "select CHECKSUM from SCHEMA_CHECKSUM where ID = 1", String.class);
+    return rows.isEmpty() ? null : rows.get(0);
+  }
+
+  public void record(String checksum) {
+    if (jdbcTemplate.update("update SCHEMA_CHECKSUM set CHECKSUM = ?, APPLIED_AT = current_timestamp where ID = 1",
+        checksum) == 0) {
+      jdbcTemplate.update("insert into SCHEMA_CHECKSUM (ID, CHECKSUM, APPLIED_AT) values (1, ?, current_timestamp)",
+          checksum);
+    }
+  }
+
+  public void verify() {
+    String expected = expected();
+    String recorded = recorded();
+    if (!expected.equals(recorded)) {
+      throw new IllegalStateException(
+          "database schema checksum is %s but this build expects %s; run MigrationRunner first"
+              .formatted(recorded, expected));
+    }
+  }
+}
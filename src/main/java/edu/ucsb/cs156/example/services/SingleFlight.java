@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+// Collapses concurrent identical work into one execution.
+//
+// The first caller for a key runs the supplier; callers that arrive while
+// it is still running wait for and share its result (or its exception)
+// instead of running their own.  Nothing is cached: once the leader is
+// done, the next caller starts a fresh execution.  Writers call forget()
+// so that requests arriving after a write do not join a read that started
+// before it.
+//
+// Counters: singleflight.requests{key, outcome=executed|collapsed}
+
+@Service("singleFlight")
+public class SingleFlight implements MeterBinder {
+
+  private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+  private volatile MeterRegistry registry;
+
+  @SuppressWarnings("unchecked")
+  public <T> T run(String key, Supplier<T> work) {
+    CompletableFuture<Object> mine = new CompletableFuture<>();
+    CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+    if (leader != null) {
+      stats(key).collapsed.increment();
+      return (T) await(leader);
+    }
+
+    stats(key).executed.increment();
+    try {
+      T result = work.get();
+      mine.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  public void forget(String key) {
+    inFlight.remove(key);
+  }
+
+  public long collapsed(String key) {
+    return stats(key).collapsed.sum();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    this.registry = registry;
+    stats.forEach((key, s) -> register(registry, key, s));
+  }
+
+  private static Object await(CompletableFuture<Object> leader) {
+    try {
+      return leader.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw (Error) e.getCause();
+    }
+  }
+
+  private Stats stats(String key) {
+    return stats.computeIfAbsent(key, k -> {
+      Stats s = new Stats();
+      MeterRegistry current = registry;
+      if (current != null) {
+        register(current, k, s);
+      }
+      return s;
+    });
+  }
+
+  private static void register(MeterRegistry registry, String key, Stats s) {
+    FunctionCounter.builder("singleflight.requests", s.executed, LongAdder::sum)
+        .tag("key", key).tag("outcome", "executed").register(registry);
+    FunctionCounter.builder("singleflight.requests", s.collapsed, LongAdder::sum)
+        .tag("key", key).tag("outcome", "collapsed").register(registry);
+  }
+
+  private static final class Stats {
+    final LongAdder executed = new LongAdder();
+    final LongAdder collapsed = new LongAdder();
+  }
+}
@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Lock-free token buckets, one per key.
+//
+// Each bucket is a single AtomicLong holding the time at which it will be
+// full again (the "theoretical arrival time" of the generic cell rate
+// algorithm, which is equivalent to a token bucket).  Taking a token pushes
+// that time one refill interval into the future; a request is rejected when
+// doing so would put it more than `capacity` intervals ahead of now.  The
+// update is a single CAS loop, so concurrent requests for the same key never
+// block each other and requests for different keys never touch shared state
+// beyond the ConcurrentHashMap.
+//
+// Full buckets carry no information, so once there are more than `maxKeys`
+// keys the ones that have refilled completely are dropped.  That sweep runs
+// at most once per burst interval (the time an empty bucket takes to
+// refill): a key not touched since the previous sweep is full by the next
+// one, and a flood of new keys costs one scan per interval rather than one
+// per request.
+
+public class TokenBucketLimiter {
+
+  private final long intervalNanos;
+  private final long burstNanos;
+  private final int maxKeys;
+  private final LongSupplier nanoClock;
+  private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+  private final AtomicLong nextSweep;
+
+  public TokenBucketLimiter(int capacity, double tokensPerSecond, int maxKeys, LongSupplier nanoClock) {
+    this.intervalNanos = (long) (1_000_000_000L / tokensPerSecond);
+    this.burstNanos = intervalNanos * capacity;
+    this.maxKeys = maxKeys;
+    this.nanoClock = nanoClock;
+    this.nextSweep = new AtomicLong(nanoClock.getAsLong());
+  }
+
+  // Takes one token from `key`'s bucket.  Returns 0 if a token was taken,
+  // otherwise how many nanoseconds until one will be available.
+  public long tryAcquire(String key) {
+    long now = nanoClock.getAsLong();
+    long due = nextSweep.get();
+    if (buckets.size() > maxKeys && now - due >= 0 && nextSweep.compareAndSet(due, now + burstNanos)) {
+      buckets.values().removeIf(fullAt -> fullAt.get() <= now);
+    }
+    AtomicLong fullAt = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    long[] wait = new long[1];
+    fullAt.updateAndGet(current -> {
+      long next = Math.max(current, now) + intervalNanos;
+      if (next - now > burstNanos) {
+        wait[0] = next - burstNanos - now;
+        return current;
+      }
+      wait[0] = 0;
+      return next;
+    });
+    return wait[0];
+  }
+
+  public int size() {
+    return buckets.size();
+  }
+}
@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.UserSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Backs GET /api/admin/users: one keyset page (ID > afterId, ordered by
+// ID) of users matching the optional filters.
+//
+// Only the filters that are set go into the SQL, so each combination gets
+// a plain plan that can use its index (Users-2..4): (ADMIN, ID),
+// (HOSTED_DOMAIN, ID) and EMAIL for the prefix, whose LIKE wildcards are
+// escaped.  Rows are read into UserSummary records in User's field order,
+// so the JSON matches serializing the entities.
+
+@Service("userListingService")
+@Transactional(readOnly = true)
+public class UserListingService {
+
+  public record Filter(Boolean admin, String hostedDomain, String emailPrefix) {
+  }
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  public List<UserSummary> page(long afterId, int limit, Filter filter) {
+    StringBuilder sql = new StringBuilder("""
+        select ID, EMAIL, GOOGLE_SUB, PICTURE_URL, FULL_NAME, GIVEN_NAME, FAMILY_NAME,
+               EMAIL_VERIFIED, LOCALE, HOSTED_DOMAIN, ADMIN
+        from USERS where ID > ?""");
+    List<Object> args = new ArrayList<>(List.of(afterId));
+    if (filter.admin() != null) {
+      sql.append(" and ADMIN = ?");
+      args.add(filter.admin());
+    }
+    if (filter.hostedDomain() != null) {
+      sql.append(" and HOSTED_DOMAIN = ?");
+      args.add(filter.hostedDomain());
+    }
+    if (filter.emailPrefix() != null) {
+      sql.append(" and EMAIL like ? escape '\\'");
+      args.add(filter.emailPrefix().replaceAll("[\\\\%_]", "\\\\$0") + "%");
+    }
+    sql.append(" order by ID limit ?");
+    args.add(limit);
+
+    return jdbcTemplate.query(sql.toString(), (rs, i) -> new UserSummary(
+        rs.getLong("ID"),
+        rs.getString("EMAIL"),
+        rs.getString("GOOGLE_SUB"),
+        rs.getString("PICTURE_URL"),
+        rs.getString("FULL_NAME"),
+        rs.getString("GIVEN_NAME"),
+        rs.getString("FAMILY_NAME"),
+        rs.getBoolean("EMAIL_VERIFIED"),
+        rs.getString("LOCALE"),
+        rs.getString("HOSTED_DOMAIN"),
+        rs.getBoolean("ADMIN")), args.toArray());
+  }
+}
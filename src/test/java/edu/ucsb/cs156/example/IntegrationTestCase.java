@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.filter.TypeExcludeFilters;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import edu.ucsb.cs156.example.testconfig.FullApplication;
+import edu.ucsb.cs156.example.testconfig.SqlStatementCounting;
+
+// The whole application on an in-memory H2 database migrated by Liquibase,
+// with real repositories behind MockMvc and SQL statement counting (see
+// SqlStatementCounting).  Requests are not rolled back, so tests create the
+// rows they need rather than assuming an empty table.
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:integration;DB_CLOSE_DELAY=-1",
+    "spring.liquibase.url=jdbc:h2:mem:integration;DB_CLOSE_DELAY=-1",
+    "app.scheduling.enabled=false",
+    "app.rate-limit.enabled=false",
+    "app.slow-query.enabled=false"
+})
+@AutoConfigureMockMvc
+@TypeExcludeFilters(FullApplication.TestBeansExcludeFilter.class)
+@Import(SqlStatementCounting.class)
+public abstract class IntegrationTestCase {
+  @Autowired
+  public MockMvc mockMvc;
+
+  @Autowired
+  public ObjectMapper mapper;
+}
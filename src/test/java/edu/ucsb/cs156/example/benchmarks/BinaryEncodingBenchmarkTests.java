@@ -0,0 +1,92 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
+import lombok.extern.slf4j.Slf4j;
+
+// Payload size, encode and decode time of the two large /all responses the
+// dashboards read (help requests and menu item reviews) as JSON, CBOR and
+// Smile, using mappers configured like the application's converters.
+//
+// Excluded from the default build; run with:
+//   mvn -Pbenchmark test -Dtest=BinaryEncodingBenchmarkTests
+
+@Slf4j
+@Tag("benchmark")
+class BinaryEncodingBenchmarkTests {
+
+  static final int ROWS = 10_000;
+  static final int WARMUP = 50;
+  static final int ITERATIONS = 100;
+
+  static final LocalDateTime NOW = LocalDateTime.of(2024, 4, 1, 13, 0);
+
+  interface Work {
+    void run() throws Exception;
+  }
+
+  @Test
+  void benchmark_json_vs_cbor_vs_smile() throws Exception {
+    Map<String, ObjectMapper> mappers = Map.of(
+        "json", Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build(),
+        "cbor", Jackson2ObjectMapperBuilder.cbor().modulesToInstall(new BlackbirdModule()).build(),
+        "smile", Jackson2ObjectMapperBuilder.smile().modulesToInstall(new BlackbirdModule()).build());
+
+    List<HelpRequestSummary> helpRequests = new ArrayList<>();
+    List<MenuItemReviewSummary> reviews = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      helpRequests.add(new HelpRequestSummary(i, "student" + i + "@ucsb.edu", "s24-6pm-" + i % 8,
+          "table " + i % 10, NOW.plusMinutes(i), "help with lab " + i % 7, i % 3 == 0, 0));
+      reviews.add(new MenuItemReviewSummary(i, (long) i % 200, "reviewer" + i + "@ucsb.edu", 1 + i % 5,
+          NOW.plusMinutes(i), "review " + i));
+    }
+
+    for (String format : List.of("json", "cbor", "smile")) {
+      ObjectMapper mapper = mappers.get(format);
+      report(format, "help requests", mapper, HelpRequestSummary.class, helpRequests);
+      report(format, "menu item reviews", mapper, MenuItemReviewSummary.class, reviews);
+    }
+  }
+
+  private static <T> void report(String format, String name, ObjectMapper mapper, Class<T> type, List<T> values)
+      throws Exception {
+    JavaType listType = mapper.getTypeFactory().constructCollectionType(List.class, type);
+    ObjectWriter writer = mapper.writerFor(listType);
+    ObjectReader reader = mapper.readerFor(listType);
+    byte[] encoded = writer.writeValueAsBytes(values);
+    assertEquals(values, reader.readValue(encoded));
+
+    log.info("{} {}: {} bytes, encode {} ms, decode {} ms", format, name, encoded.length,
+        time(() -> writer.writeValueAsBytes(values)),
+        time(() -> reader.readValue(encoded)));
+  }
+
+  private static String time(Work work) throws Exception {
+    for (int i = 0; i < WARMUP; i++) {
+      work.run();
+    }
+    long nanos = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      work.run();
+    }
+    nanos = System.nanoTime() - nanos;
+    return "%.2f".formatted(nanos / 1e6 / ITERATIONS);
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.services.PostgresCacheInvalidationBus;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+// Measures how long a change published on one node takes to reach another
+// through PostgresCacheInvalidationBus: two buses stand in for two nodes
+// LISTENing on the same database, one publishes CHANGES changes a
+// millisecond apart, and the other's cache.invalidation.propagation timer
+// is reported.  Needs PostgreSQL, so it is skipped unless a database is
+// given:
+//
+//   mvn -Pbenchmark test -Dtest=CacheInvalidationBenchmarkTests \
+//     -Dcacheinvalidation.db-url=jdbc:postgresql://localhost:5432/postgres -Dcacheinvalidation.db-user=postgres
+
+@Slf4j
+@Tag("benchmark")
+class CacheInvalidationBenchmarkTests {
+
+  static final int CHANGES = 1_000;
+  static final String DB_URL = System.getProperty("cacheinvalidation.db-url");
+  static final String DB_USER = System.getProperty("cacheinvalidation.db-user", "postgres");
+  static final String DB_PASSWORD = System.getProperty("cacheinvalidation.db-password", "");
+
+  @Test
+  void benchmark_propagation_between_two_nodes() throws Exception {
+    assumeTrue(DB_URL != null, "set -Dcacheinvalidation.db-url to a PostgreSQL database");
+    DataSource dataSource = new DriverManagerDataSource(DB_URL, DB_USER, DB_PASSWORD);
+    PostgresCacheInvalidationBus publisher = bus(dataSource);
+    PostgresCacheInvalidationBus subscriber = bus(dataSource);
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    subscriber.bindTo(registry);
+    CountDownLatch listening = new CountDownLatch(1);
+    CountDownLatch received = new CountDownLatch(CHANGES);
+    subscriber.subscribe(UCSBDiningCommons.class, code -> (code == null ? listening : received).countDown());
+
+    subscriber.start();
+    publisher.start();
+    try {
+      assertTrue(listening.await(10, TimeUnit.SECONDS), "subscriber never connected");
+      for (int i = 0; i < CHANGES; i++) {
+        publisher.publish(UCSBDiningCommons.class, "dc" + i);
+        Thread.sleep(1);
+      }
+      assertTrue(received.await(30, TimeUnit.SECONDS), received.getCount() + " changes never arrived");
+    } finally {
+      publisher.stop();
+      subscriber.stop();
+    }
+
+    Timer remote = registry.get("cache.invalidation.propagation").tag("origin", "remote").timer();
+    log.info("{} changes propagated in {} ms on average, {} ms at most", remote.count(),
+        "%.2f".formatted(remote.mean(TimeUnit.MILLISECONDS)), "%.0f".formatted(remote.max(TimeUnit.MILLISECONDS)));
+  }
+
+  private static PostgresCacheInvalidationBus bus(DataSource dataSource) {
+    PostgresCacheInvalidationBus bus = new PostgresCacheInvalidationBus();
+    ReflectionTestUtils.setField(bus, "url", DB_URL);
+    ReflectionTestUtils.setField(bus, "username", DB_USER);
+    ReflectionTestUtils.setField(bus, "password", DB_PASSWORD);
+    ReflectionTestUtils.setField(bus, "pollMillis", 500);
+    ReflectionTestUtils.setField(bus, "retryBackoffMs", 1000L);
+    ReflectionTestUtils.setField(bus, "jdbcTemplate", new JdbcTemplate(dataSource));
+    return bus;
+  }
+}
@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.ListingService;
+import lombok.extern.slf4j.Slf4j;
+
+// Compares GET /api/HelpRequest/all's old path (managed entities in a
+// read-write transaction) with ListingService (read-only transaction,
+// record projection) on an embedded H2 database.
+//
+// Excluded from the default build; run with:
+//   mvn -Pbenchmark test -Dtest=ListingBenchmarkTests
+
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ListingService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ListingBenchmarkTests {
+
+  static final int ROWS = 5_000;
+  static final int WARMUP = 20;
+  static final int ITERATIONS = 50;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  ListingService listingService;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Test
+  void benchmark_help_request_listing() {
+    List<HelpRequest> rows = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      rows.add(HelpRequest.builder()
+          .requesterEmail("student" + i + "@ucsb.edu")
+          .teamId("s24-4pm-" + (i % 8))
+          .tableOrBreakoutRoom("table " + (i % 12))
+          .requestTime(LocalDateTime.of(2024, 4, 1, 16, 0).plusMinutes(i))
+          .explanation("need help with team02, request " + i)
+          .solved(i % 3 == 0)
+          .build());
+    }
+    helpRequestRepository.saveAll(rows);
+
+    TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+    Supplier<Integer> entities = () -> readWrite.execute(status -> {
+      List<HelpRequest> result = new ArrayList<>();
+      helpRequestRepository.findAll().forEach(result::add);
+      return result.size();
+    });
+    Supplier<Integer> projections = () -> listingService.allHelpRequests().size();
+
+    Result before = measure(entities);
+    Result after = measure(projections);
+
+    log.info("HelpRequest /all, {} rows: entities {} | projections {}", ROWS, before, after);
+    assertEquals(ROWS, entities.get());
+    assertEquals(ROWS, projections.get());
+  }
+
+  private static Result measure(Supplier<Integer> listing) {
+    for (int i = 0; i < WARMUP; i++) {
+      listing.get();
+    }
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long bytes = threads.getCurrentThreadAllocatedBytes();
+    long nanos = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      listing.get();
+    }
+    nanos = System.nanoTime() - nanos;
+    bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+    return new Result(nanos / ITERATIONS / 1_000_000.0, bytes / ITERATIONS / 1024.0 / 1024.0);
+  }
+
+  record Result(double millisPerCall, double mebibytesPerCall) {
+    @Override
+    public String toString() {
+      return "%.2f ms/call, %.2f MiB allocated/call".formatted(millisPerCall, mebibytesPerCall);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import javax.sql.DataSource;
+
+import liquibase.integration.spring.SpringLiquibase;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucsb.cs156.example.services.SchemaChecksum;
+import lombok.extern.slf4j.Slf4j;
+
+// What each instance pays at startup for its schema check on an
+// up-to-date database: app.migrations.mode=boot (Liquibase parses the
+// changelog, takes the lock and compares every changeset) versus
+// app.migrations.mode=verify (SchemaChecksum.verify()).
+//
+// Excluded from the default build; run with:
+//   mvn -Pbenchmark test -Dtest=MigrationBenchmarkTests
+
+@Slf4j
+@Tag("benchmark")
+@JdbcTest
+@ActiveProfiles("test")
+@Import(SchemaChecksum.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MigrationBenchmarkTests {
+
+  static final int WARMUP = 5;
+  static final int ITERATIONS = 20;
+
+  @Autowired
+  DataSource dataSource;
+
+  @Autowired
+  ResourceLoader resourceLoader;
+
+  @Autowired
+  SchemaChecksum schemaChecksum;
+
+  @Test
+  void benchmark_liquibase_update_vs_checksum_verify() throws Exception {
+    schemaChecksum.record(schemaChecksum.expected());
+
+    SpringLiquibase liquibase = new SpringLiquibase();
+    liquibase.setDataSource(dataSource);
+    liquibase.setChangeLog("classpath:db/migration/changelog-master.json");
+    liquibase.setResourceLoader(resourceLoader);
+
+    for (int i = 0; i < WARMUP; i++) {
+      liquibase.afterPropertiesSet();
+      schemaChecksum.verify();
+    }
+
+    long boot = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      liquibase.afterPropertiesSet();
+    }
+    boot = System.nanoTime() - boot;
+
+    long verify = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      schemaChecksum.verify();
+    }
+    verify = System.nanoTime() - verify;
+
+    log.info("schema check per startup: boot (Liquibase update) {} ms, verify (checksum) {} ms",
+        millis(boot), millis(verify));
+  }
+
+  private static String millis(long nanos) {
+    return "%.2f".formatted(nanos / 1e6 / ITERATIONS);
+  }
+}
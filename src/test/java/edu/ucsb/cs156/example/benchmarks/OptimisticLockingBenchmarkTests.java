@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.OptimisticLockRetry;
+import lombok.extern.slf4j.Slf4j;
+
+// Hammers one HelpRequest row with concurrent read-modify-write edits (the
+// PUT /api/HelpRequest path) and checks that every edit reported as
+// successful is reflected in the row's version, i.e. no update was lost.
+// Edits that still conflict after the bounded retries are counted; those
+// are the ones clients would see as 409.
+//
+// Excluded from the default build; run with:
+//   mvn -Pbenchmark test -Dtest=OptimisticLockingBenchmarkTests
+
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OptimisticLockRetry.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OptimisticLockingBenchmarkTests {
+
+  static final int THREADS = 8;
+  static final int EDITS_PER_THREAD = 250;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  OptimisticLockRetry optimisticLockRetry;
+
+  @Test
+  void benchmark_contended_help_request_edits() throws Exception {
+    HelpRequest row = helpRequestRepository.save(HelpRequest.builder()
+        .requesterEmail("cgaucho@ucsb.edu")
+        .teamId("s24-4pm-5")
+        .tableOrBreakoutRoom("5")
+        .requestTime(LocalDateTime.of(2024, 4, 1, 16, 0))
+        .explanation("contended")
+        .solved(false)
+        .build());
+    long id = row.getId();
+
+    AtomicInteger succeeded = new AtomicInteger();
+    AtomicInteger gaveUp = new AtomicInteger();
+    AtomicInteger attempts = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> workers = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      String ta = "ta" + t;
+      workers.add(pool.submit(() -> {
+        start.await();
+        for (int i = 0; i < EDITS_PER_THREAD; i++) {
+          String explanation = ta + " edit " + i;
+          try {
+            optimisticLockRetry.run(() -> {
+              attempts.incrementAndGet();
+              HelpRequest current = helpRequestRepository.findById(id).orElseThrow();
+              current.setExplanation(explanation);
+              current.setSolved(!current.getSolved());
+              return helpRequestRepository.save(current);
+            });
+            succeeded.incrementAndGet();
+          } catch (OptimisticLockingFailureException e) {
+            gaveUp.incrementAndGet();
+          }
+        }
+        return null;
+      }));
+    }
+
+    long nanos = System.nanoTime();
+    start.countDown();
+    for (Future<?> worker : workers) {
+      worker.get();
+    }
+    nanos = System.nanoTime() - nanos;
+    pool.shutdown();
+
+    long finalVersion = helpRequestRepository.findById(id).orElseThrow().getVersion();
+    long lostUpdates = succeeded.get() - finalVersion;
+
+    log.info("{} threads x {} edits: {} succeeded, {} gave up (409), {} attempts, {} lost updates, {} edits/s",
+        THREADS, EDITS_PER_THREAD, succeeded.get(), gaveUp.get(), attempts.get(), lostUpdates,
+        "%.0f".formatted(succeeded.get() / (nanos / 1e9)));
+    assertEquals(THREADS * EDITS_PER_THREAD, succeeded.get() + gaveUp.get());
+    assertEquals(0, lostUpdates);
+  }
+}
@@ -0,0 +1,151 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.ReviewIngestionQueue;
+import lombok.extern.slf4j.Slf4j;
+
+// Simulates the post-meal burst on POST /api/MenuItemReview/post: THREADS
+// request threads each submit REVIEWS_PER_THREAD reviews, once with the
+// synchronous path (one INSERT + commit per request) and once through
+// ReviewIngestionQueue (journal append per request, one commit per batch).
+// Reports how fast requests were acknowledged and how long it took until
+// every review was in the database.
+//
+// Excluded from the default build; run with:
+//   mvn -Pbenchmark test -Dtest=ReviewIngestionBenchmarkTests
+
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReviewIngestionBenchmarkTests {
+
+  static final int THREADS = 16;
+  static final int REVIEWS_PER_THREAD = 500;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void benchmark_sync_vs_async_review_ingestion() throws Exception {
+    menuItemReviewRepository.deleteAll();
+    // reviews must point at real items now that ITEM_ID is a foreign key
+    List<Long> items = new ArrayList<>();
+    for (int i = 0; i < REVIEWS_PER_THREAD; i++) {
+      items.add(menuItemRepository.save(UCSBDiningCommonsMenuItem.builder()
+          .name("item " + i).station("station " + i % 6).build()).getId());
+    }
+
+    long syncNanos = burst(items, menuItemReviewRepository::save);
+    long syncRows = menuItemReviewRepository.count();
+
+    for (boolean fsync : new boolean[] { true, false }) {
+      menuItemReviewRepository.deleteAll();
+      ReviewIngestionQueue queue = asyncQueue(fsync);
+      queue.start();
+      long started = System.nanoTime();
+      long ackNanos = burst(items, queue::submit);
+      while (queue.size() > 0) {
+        Thread.sleep(1);
+      }
+      queue.stop();
+      long doneNanos = System.nanoTime() - started;
+      long asyncRows = menuItemReviewRepository.count();
+
+      log.info("async (journal fsync={}): acknowledged at {} reviews/s, {} written at {} reviews/s",
+          fsync, rate(ackNanos), asyncRows, rate(doneNanos));
+      assertEquals(THREADS * REVIEWS_PER_THREAD, asyncRows);
+    }
+
+    log.info("sync: {} reviews at {} reviews/s", syncRows, rate(syncNanos));
+    assertEquals(THREADS * REVIEWS_PER_THREAD, syncRows);
+  }
+
+  private ReviewIngestionQueue asyncQueue(boolean fsync) {
+    ReviewIngestionQueue queue = new ReviewIngestionQueue();
+    ReflectionTestUtils.setField(queue, "mode", "async");
+    ReflectionTestUtils.setField(queue, "capacity", THREADS * REVIEWS_PER_THREAD);
+    ReflectionTestUtils.setField(queue, "batchSize", 500);
+    ReflectionTestUtils.setField(queue, "offerTimeoutMs", 100L);
+    ReflectionTestUtils.setField(queue, "retryBackoffMs", 100L);
+    ReflectionTestUtils.setField(queue, "journalPath", dir.resolve("reviews-" + fsync + ".journal").toString());
+    ReflectionTestUtils.setField(queue, "journalFsync", fsync);
+    ReflectionTestUtils.setField(queue, "menuItemReviewRepository", menuItemReviewRepository);
+    ReflectionTestUtils.setField(queue, "transactionManager", transactionManager);
+    ReflectionTestUtils.setField(queue, "objectMapper", new ObjectMapper().findAndRegisterModules());
+    return queue;
+  }
+
+  private static long burst(List<Long> items, Consumer<MenuItemReview> submit) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> workers = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      String reviewer = "reviewer" + t + "@ucsb.edu";
+      workers.add(pool.submit(() -> {
+        start.await();
+        for (int i = 0; i < REVIEWS_PER_THREAD; i++) {
+          submit.accept(MenuItemReview.builder()
+              .itemId(items.get(i))
+              .reviewerEmail(reviewer)
+              .stars(1 + i % 5)
+              .dateReviewed(LocalDateTime.of(2024, 4, 1, 13, 0))
+              .comments("review " + i)
+              .build());
+        }
+        return null;
+      }));
+    }
+
+    long nanos = System.nanoTime();
+    start.countDown();
+    for (Future<?> worker : workers) {
+      worker.get();
+    }
+    nanos = System.nanoTime() - nanos;
+    pool.shutdown();
+    return nanos;
+  }
+
+  private static String rate(long nanos) {
+    return "%.0f".formatted(THREADS * REVIEWS_PER_THREAD / (nanos / 1e9));
+  }
+}
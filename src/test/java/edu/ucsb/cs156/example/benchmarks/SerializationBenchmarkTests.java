@@ -0,0 +1,110 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+import lombok.extern.slf4j.Slf4j;
+
+// Serializes a ROWS-element list of every entity type three ways:
+//   string:  default ObjectMapper, writeValueAsString (the old /api/admin/users)
+//   stream:  default ObjectMapper, writeValue to the output stream
+//   tuned:   with BlackbirdModule and a cached ObjectWriter for List<type>
+// Each is timed over ITERATIONS after WARMUP runs in the same JVM.
+//
+// Excluded from the default build; run with:
+//   mvn -Pbenchmark test -Dtest=SerializationBenchmarkTests
+
+@Slf4j
+@Tag("benchmark")
+class SerializationBenchmarkTests {
+
+  static final int ROWS = 2_000;
+  static final int WARMUP = 200;
+  static final int ITERATIONS = 500;
+
+  static final LocalDateTime NOW = LocalDateTime.of(2024, 4, 1, 13, 0);
+
+  static final Map<Class<?>, IntFunction<Object>> SAMPLES = Map.of(
+      Articles.class, i -> Articles.builder().id(i).title("title " + i).url("https://example.org/" + i)
+          .explanation("explanation " + i).email("author" + i + "@ucsb.edu").dateAdded(NOW).build(),
+      HelpRequest.class, i -> HelpRequest.builder().id(i).requesterEmail("student" + i + "@ucsb.edu")
+          .teamId("s24-6pm-" + i % 8).tableOrBreakoutRoom("table " + i % 10).requestTime(NOW)
+          .explanation("help " + i).solved(i % 2 == 0).build(),
+      MenuItemReview.class, i -> MenuItemReview.builder().id(i).itemId((long) i)
+          .reviewerEmail("reviewer" + i + "@ucsb.edu").stars(1 + i % 5).dateReviewed(NOW)
+          .comments("review " + i).build(),
+      RecommendationRequest.class, i -> RecommendationRequest.builder().id(i)
+          .requesterEmail("student" + i + "@ucsb.edu").professorEmail("prof" + i % 20 + "@ucsb.edu")
+          .explanation("grad school " + i).dateRequested(NOW).dateNeeded(NOW.plusDays(30)).done(false).build(),
+      UCSBDate.class, i -> UCSBDate.builder().id(i).quarterYYYYQ("20241").name("date " + i)
+          .localDateTime(NOW).build(),
+      UCSBDiningCommons.class, i -> UCSBDiningCommons.builder().code("dc" + i).name("Dining Commons " + i)
+          .hasSackMeal(true).hasTakeOutMeal(false).hasDiningCam(true).latitude(34.4).longitude(-119.8).build(),
+      UCSBDiningCommonsMenuItem.class, i -> UCSBDiningCommonsMenuItem.builder().id(i).diningCommonsCode("ortega")
+          .name("item " + i).station("station " + i % 6).build(),
+      UCSBOrganization.class, i -> UCSBOrganization.builder().orgCode("ORG" + i).orgTranslationShort("org " + i)
+          .orgTranslation("Organization " + i).inactive(false).build(),
+      User.class, i -> User.builder().id(i).email("user" + i + "@ucsb.edu").googleSub("sub" + i)
+          .pictureUrl("https://example.org/" + i + ".png").fullName("User " + i).givenName("User")
+          .familyName(Integer.toString(i)).emailVerified(true).locale("en").hostedDomain("ucsb.edu").build());
+
+  interface Serializer {
+    void write(List<Object> values) throws Exception;
+  }
+
+  @Test
+  void benchmark_entity_list_serialization() throws Exception {
+    ObjectMapper plain = Jackson2ObjectMapperBuilder.json().build();
+    ObjectMapper blackbird = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+
+    for (Map.Entry<Class<?>, IntFunction<Object>> sample : SAMPLES.entrySet()) {
+      List<Object> values = new ArrayList<>();
+      for (int i = 0; i < ROWS; i++) {
+        values.add(sample.getValue().apply(i));
+      }
+      ObjectWriter cached = blackbird.writerFor(
+          blackbird.getTypeFactory().constructCollectionType(List.class, sample.getKey()));
+      assertEquals(plain.writeValueAsString(values), cached.writeValueAsString(values));
+
+      log.info("{}: string {} us, stream {} us, tuned {} us", sample.getKey().getSimpleName(),
+          time(values, plain::writeValueAsString),
+          time(values, v -> plain.writeValue(OutputStream.nullOutputStream(), v)),
+          time(values, v -> cached.writeValue(OutputStream.nullOutputStream(), v)));
+    }
+  }
+
+  private static String time(List<Object> values, Serializer serializer) throws Exception {
+    for (int i = 0; i < WARMUP; i++) {
+      serializer.write(values);
+    }
+    long nanos = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      serializer.write(values);
+    }
+    nanos = System.nanoTime() - nanos;
+    return "%.1f".formatted(nanos / 1e3 / ITERATIONS);
+  }
+}
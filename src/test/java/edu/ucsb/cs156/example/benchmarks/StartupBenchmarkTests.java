@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.testconfig.FullApplication;
+import lombok.extern.slf4j.Slf4j;
+
+// Starts the whole application ROUNDS times with the default profiles and
+// with fast-start added, alternating, and reports for each:
+//   ready:         SpringApplication.run() returned
+//   first request: GET /api/systemInfo answered (no database)
+//   first query:   a repository call returned (Liquibase and JPA are up)
+// All runs share one JVM, so the first round is warm-up and not reported;
+// for cold starts use the Dockerfile's startup-benchmark stage.
+//
+// Excluded from the default build; run with:
+//   mvn -Pbenchmark test -Dtest=StartupBenchmarkTests
+
+@Slf4j
+@Tag("benchmark")
+class StartupBenchmarkTests {
+
+  static final int ROUNDS = 6;
+
+  record Timing(long readyNanos, long firstRequestNanos, long firstQueryNanos) {
+  }
+
+  @Test
+  void benchmark_startup_with_and_without_fast_start() throws Exception {
+    List<Timing> eager = new ArrayList<>();
+    List<Timing> lazy = new ArrayList<>();
+    for (int round = 0; round < ROUNDS; round++) {
+      Timing e = start(round, "test");
+      Timing l = start(round, "test", "fast-start");
+      if (round > 0) {
+        eager.add(e);
+        lazy.add(l);
+      }
+    }
+
+    report("default", eager);
+    report("fast-start", lazy);
+  }
+
+  private static Timing start(int round, String... profiles) throws Exception {
+    String db = "jdbc:h2:mem:startup-" + round + "-" + profiles.length + ";DB_CLOSE_DELAY=-1";
+    long started = System.nanoTime();
+    try (ConfigurableApplicationContext context = FullApplication.builder()
+        .profiles(profiles)
+        .run(
+            "--server.port=0",
+            "--app.scheduling.enabled=false",
+            "--spring.datasource.url=" + db,
+            "--spring.liquibase.url=" + db)) {
+      long ready = System.nanoTime() - started;
+
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      HttpResponse<String> response = HttpClient.newHttpClient().send(
+          HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/systemInfo")).build(),
+          HttpResponse.BodyHandlers.ofString());
+      long firstRequest = System.nanoTime() - started;
+      assertEquals(200, response.statusCode());
+
+      context.getBean(UCSBDateRepository.class).count();
+      long firstQuery = System.nanoTime() - started;
+
+      return new Timing(ready, firstRequest, firstQuery);
+    }
+  }
+
+  private static void report(String profile, List<Timing> timings) {
+    log.info("{}: ready {} ms, first request {} ms, first query {} ms (mean of {})", profile,
+        mean(timings.stream().mapToLong(Timing::readyNanos).toArray()),
+        mean(timings.stream().mapToLong(Timing::firstRequestNanos).toArray()),
+        mean(timings.stream().mapToLong(Timing::firstQueryNanos).toArray()),
+        timings.size());
+  }
+
+  private static String mean(long[] nanos) {
+    double total = 0;
+    for (long n : nanos) {
+      total += n;
+    }
+    return "%.0f".formatted(total / nanos.length / 1e6);
+  }
+}
@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import edu.ucsb.cs156.example.IntegrationTestCase;
+
+class ActuatorSecurityTests extends IntegrationTestCase {
+
+  @Test
+  void test_actuator_is_forbidden_when_logged_out() throws Exception {
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  void test_actuator_is_forbidden_for_regular_users() throws Exception {
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  void test_admins_can_read_the_actuator() throws Exception {
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().isOk());
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().isOk());
+  }
+}
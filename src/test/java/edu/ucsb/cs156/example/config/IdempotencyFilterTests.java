@@ -0,0 +1,214 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.models.IdempotentResponse;
+import edu.ucsb.cs156.example.services.IdempotencyStore;
+
+class IdempotencyFilterTests {
+
+  IdempotencyStore store = mock(IdempotencyStore.class);
+
+  IdempotencyFilter filter = new IdempotencyFilter(store, new ObjectMapper());
+
+  // stands in for DispatcherServlet; counts how often a handler actually ran
+  static class Handler extends HttpServlet {
+    int calls = 0;
+    int status = 200;
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+      calls++;
+      response.setStatus(status);
+      response.setContentType("application/json");
+      response.getWriter().write("{\"id\":" + calls + "}");
+    }
+  }
+
+  Handler handler = new Handler();
+
+  static final String FINGERPRINT = md5("requesterEmail=a%40ucsb.edu&solved=false");
+
+  @Test
+  void test_requests_without_a_key_or_to_other_endpoints_pass_through() throws Exception {
+    run(post("/api/HelpRequest/post", null, "alice"));
+    run(request("GET", "/api/HelpRequest/all", "k1", "alice"));
+    run(request("PUT", "/api/HelpRequest/post", "k1", "alice"));
+    run(post("/api/HelpRequest", "k1", "alice"));
+
+    assertEquals(4, handler.calls);
+    verifyNoInteractions(store);
+  }
+
+  @Test
+  void test_blank_or_oversized_keys_are_rejected() throws Exception {
+    MockHttpServletResponse blank = run(post("/api/HelpRequest/post", " ", "alice"));
+    MockHttpServletResponse huge = run(post("/api/HelpRequest/post", "k".repeat(256), "alice"));
+
+    assertEquals(400, blank.getStatus());
+    assertEquals(400, huge.getStatus());
+    assertTrue(huge.getContentAsString().contains("Idempotency-Key must be 1 to 255 characters"));
+    assertEquals(0, handler.calls);
+    verifyNoInteractions(store);
+  }
+
+  @Test
+  void test_first_request_runs_and_its_response_is_remembered() throws Exception {
+    MockHttpServletResponse response = run(post("/api/HelpRequest/post", "k1", "alice"));
+
+    assertEquals(200, response.getStatus());
+    assertEquals("{\"id\":1}", response.getContentAsString());
+    ArgumentCaptor<IdempotentResponse> stored = ArgumentCaptor.forClass(IdempotentResponse.class);
+    verify(store, times(1)).claim(anyString(), eq(FINGERPRINT));
+    verify(store, times(1)).complete(anyString(), stored.capture());
+    verify(store, never()).release(any());
+    assertEquals(FINGERPRINT, stored.getValue().fingerprint());
+    assertEquals(200, stored.getValue().status());
+    assertEquals("application/json", stored.getValue().contentType());
+    assertEquals("{\"id\":1}", new String(stored.getValue().body(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void test_failed_requests_release_the_key() throws Exception {
+    handler.status = 403;
+
+    MockHttpServletResponse response = run(post("/api/HelpRequest/post", "k1", "alice"));
+
+    assertEquals(403, response.getStatus());
+    verify(store, times(1)).release(anyString());
+    verify(store, never()).complete(any(), any());
+  }
+
+  @Test
+  void test_exceptions_release_the_key() throws Exception {
+    MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException {
+        throw new ServletException("boom");
+      }
+    });
+
+    assertThrows(ServletException.class, () -> filter.doFilter(post("/api/HelpRequest/post", "k1", "alice"),
+        new MockHttpServletResponse(), chain));
+    verify(store, times(1)).release(anyString());
+  }
+
+  @Test
+  void test_replays_return_the_stored_response_without_running_the_handler() throws Exception {
+    when(store.claim(anyString(), anyString())).thenReturn(new IdempotentResponse(FINGERPRINT, 200,
+        "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8)));
+
+    MockHttpServletResponse response = run(post("/api/HelpRequest/post", "k1", "alice"));
+
+    assertEquals(0, handler.calls);
+    assertEquals(200, response.getStatus());
+    assertEquals("true", response.getHeader("Idempotent-Replayed"));
+    assertEquals("{\"id\":1}", response.getContentAsString());
+    verify(store, never()).complete(any(), any());
+    verify(store, never()).release(any());
+  }
+
+  @Test
+  void test_reusing_a_key_with_different_parameters_is_rejected() throws Exception {
+    when(store.claim(anyString(), anyString())).thenReturn(new IdempotentResponse(md5("other=1"), 200,
+        "application/json", new byte[0]));
+
+    MockHttpServletResponse response = run(post("/api/HelpRequest/post", "k1", "alice"));
+
+    assertEquals(422, response.getStatus());
+    assertTrue(response.getContentAsString().contains("already used with different parameters"));
+    assertEquals(0, handler.calls);
+  }
+
+  @Test
+  void test_retry_while_first_request_is_running_is_a_conflict() throws Exception {
+    when(store.claim(anyString(), anyString())).thenReturn(IdempotentResponse.inFlight(FINGERPRINT));
+
+    MockHttpServletResponse response = run(post("/api/HelpRequest/post", "k1", "alice"));
+
+    assertEquals(409, response.getStatus());
+    assertTrue(response.getContentAsString().contains("still in progress"));
+    assertEquals(0, handler.calls);
+  }
+
+  @Test
+  void test_keys_are_scoped_to_user_and_path() throws Exception {
+    run(post("/api/HelpRequest/post", "k1", "alice"));
+    run(post("/api/HelpRequest/post", "k1", "bob"));
+    run(post("/api/MenuItemReview/post", "k1", "alice"));
+    run(post("/api/HelpRequest/post", "k1", null));
+
+    ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+    verify(store, times(4)).claim(keys.capture(), anyString());
+    List<String> claimed = keys.getAllValues();
+    assertEquals(4, claimed.stream().distinct().count());
+    assertNotEquals(claimed.get(0), claimed.get(3));
+  }
+
+  @Test
+  void test_query_string_is_optional_for_the_fingerprint() throws Exception {
+    MockHttpServletRequest request = post("/api/HelpRequest/post", "k1", "alice");
+    request.setQueryString(null);
+
+    run(request);
+
+    verify(store, times(1)).claim(anyString(), eq(md5("")));
+  }
+
+  private MockHttpServletResponse run(MockHttpServletRequest request) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, new MockFilterChain(handler));
+    return response;
+  }
+
+  private static MockHttpServletRequest post(String uri, String key, String user) {
+    return request("POST", uri, key, user);
+  }
+
+  private static MockHttpServletRequest request(String method, String uri, String key, String user) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+    request.setQueryString("requesterEmail=a%40ucsb.edu&solved=false");
+    if (key != null) {
+      request.addHeader("Idempotency-Key", key);
+    }
+    if (user != null) {
+      request.setUserPrincipal(new TestingAuthenticationToken(user, null));
+    }
+    return request;
+  }
+
+  private static String md5(String value) {
+    return DigestUtils.md5DigestAsHex(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.config.RateLimitFilter.Budget;
+import edu.ucsb.cs156.example.services.TokenBucketLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimitFilterTests {
+
+  long now = 0;
+
+  SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  RateLimitFilter filter = new RateLimitFilter(Map.of(
+      Budget.READ, new TokenBucketLimiter(2, 1.0, 100, () -> now),
+      Budget.WRITE, new TokenBucketLimiter(1, 0.5, 100, () -> now)),
+      registry, new ObjectMapper());
+
+  @Test
+  void test_reads_are_throttled_with_429_and_retry_after() throws Exception {
+    assertEquals(200, run(request("GET", "alice")).getStatus());
+    assertEquals(200, run(request("GET", "alice")).getStatus());
+
+    MockHttpServletResponse response = run(request("GET", "alice"));
+
+    assertEquals(429, response.getStatus());
+    assertEquals("1", response.getHeader("Retry-After"));
+    assertTrue(response.getContentAsString().contains("too many read requests, retry in 1 seconds"));
+    assertEquals(2.0, registry.get("ratelimit.requests").tags("budget", "read", "outcome", "allowed").counter().count());
+    assertEquals(1.0, registry.get("ratelimit.requests").tags("budget", "read", "outcome", "rejected").counter().count());
+    assertEquals(1.0, registry.get("ratelimit.clients").tags("budget", "read").gauge().value());
+  }
+
+  @Test
+  void test_writes_have_their_own_budget() throws Exception {
+    run(request("GET", "alice"));
+    run(request("GET", "alice"));
+
+    assertEquals(200, run(request("POST", "alice")).getStatus());
+    MockHttpServletResponse response = run(request("PUT", "alice"));
+
+    assertEquals(429, response.getStatus());
+    assertEquals("2", response.getHeader("Retry-After"));
+    assertEquals(1.0, registry.get("ratelimit.requests").tags("budget", "write", "outcome", "rejected").counter().count());
+  }
+
+  @Test
+  void test_clients_are_throttled_separately() throws Exception {
+    run(request("POST", "alice"));
+
+    assertEquals(200, run(request("POST", "bob")).getStatus());
+    assertEquals(200, run(request("POST", null)).getStatus());
+    assertNull(run(request("HEAD", "alice")).getHeader("Retry-After"));
+  }
+
+  @Test
+  void test_client_is_email_for_oauth_users_otherwise_name_or_ip() {
+    MockHttpServletRequest google = request("GET", null);
+    google.setUserPrincipal(oauth(Map.of("sub", "1234", "email", "cgaucho@ucsb.edu")));
+    MockHttpServletRequest noEmail = request("GET", null);
+    noEmail.setUserPrincipal(oauth(Map.of("sub", "1234")));
+
+    assertEquals("user:cgaucho@ucsb.edu", RateLimitFilter.clientOf(google));
+    assertEquals("user:1234", RateLimitFilter.clientOf(noEmail));
+    assertEquals("user:alice", RateLimitFilter.clientOf(request("GET", "alice")));
+    assertEquals("ip:10.0.0.7", RateLimitFilter.clientOf(request("GET", null)));
+  }
+
+  private MockHttpServletResponse run(MockHttpServletRequest request) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, new MockFilterChain());
+    return response;
+  }
+
+  private static MockHttpServletRequest request(String method, String user) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/ucsbdates/all");
+    request.setRemoteAddr("10.0.0.7");
+    if (user != null) {
+      request.setUserPrincipal(new TestingAuthenticationToken(user, null));
+    }
+    return request;
+  }
+
+  private static OAuth2AuthenticationToken oauth(Map<String, Object> attributes) {
+    DefaultOAuth2User user = new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("ROLE_USER")),
+        attributes, "sub");
+    return new OAuth2AuthenticationToken(user, user.getAuthorities(), "google");
+  }
+}
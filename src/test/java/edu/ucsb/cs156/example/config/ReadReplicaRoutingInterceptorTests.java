@@ -0,0 +1,149 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.web.method.HandlerMethod;
+
+import edu.ucsb.cs156.example.config.ReadReplicaRoutingInterceptor.Route;
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import edu.ucsb.cs156.example.controllers.UserInfoController;
+
+class ReadReplicaRoutingInterceptorTests {
+
+  ReadReplicaRoutingInterceptor interceptor = new ReadReplicaRoutingInterceptor(60_000);
+
+  HandlerMethod controllerHandler = handler(new UCSBDatesController(), "allUCSBDates", String.class);
+
+  @AfterEach
+  void clearRoute() {
+    interceptor.afterCompletion(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(), null, null);
+  }
+
+  @Test
+  void test_route_defaults_to_primary_outside_a_request() {
+    assertEquals(Route.PRIMARY, ReadReplicaRoutingInterceptor.currentRoute());
+  }
+
+  @Test
+  void test_read_from_replica_get_handlers_go_to_replica() {
+    assertEquals(Route.REPLICA, interceptor.routeFor(request("GET", "alice"), controllerHandler));
+    assertEquals(Route.REPLICA, interceptor.routeFor(request("GET", null), controllerHandler));
+  }
+
+  @Test
+  void test_writes_and_other_handlers_go_to_primary() {
+    assertEquals(Route.PRIMARY, interceptor.routeFor(request("POST", "alice"), controllerHandler));
+    assertEquals(Route.PRIMARY, interceptor.routeFor(request("GET", "alice"), new Object()));
+    assertEquals(Route.PRIMARY, interceptor.routeFor(request("GET", "alice"), handler(new Object(), "toString")));
+  }
+
+  @Test
+  void test_get_handlers_without_the_annotation_go_to_primary() {
+    // GET /api/currentUser saves the user on first login
+    HandlerMethod currentUser = handler(new UserInfoController(), "getCurrentUser");
+
+    assertEquals(Route.PRIMARY, interceptor.routeFor(request("GET", "alice"), currentUser));
+  }
+
+  @Test
+  void test_reads_stick_to_primary_after_the_users_own_write() {
+    interceptor.afterCompletion(request("PUT", "alice"), new MockHttpServletResponse(), controllerHandler, null);
+
+    assertEquals(Route.PRIMARY, interceptor.routeFor(request("GET", "alice"), controllerHandler));
+    assertEquals(Route.REPLICA, interceptor.routeFor(request("GET", "bob"), controllerHandler));
+  }
+
+  @Test
+  void test_stickiness_expires() {
+    ReadReplicaRoutingInterceptor shortLived = new ReadReplicaRoutingInterceptor(-1);
+    shortLived.afterCompletion(request("PUT", "alice"), new MockHttpServletResponse(), controllerHandler, null);
+
+    assertEquals(Route.REPLICA, shortLived.routeFor(request("GET", "alice"), controllerHandler));
+  }
+
+  @Test
+  void test_failed_writes_do_not_make_reads_sticky() {
+    MockHttpServletResponse rejected = new MockHttpServletResponse();
+    rejected.setStatus(409);
+    interceptor.afterCompletion(request("PUT", "alice"), rejected, controllerHandler, null);
+    interceptor.afterCompletion(request("PUT", "bob"), new MockHttpServletResponse(), controllerHandler,
+        new IllegalStateException("boom"));
+
+    assertEquals(Route.REPLICA, interceptor.routeFor(request("GET", "alice"), controllerHandler));
+    assertEquals(Route.REPLICA, interceptor.routeFor(request("GET", "bob"), controllerHandler));
+  }
+
+  @Test
+  void test_routing_data_source_uses_two_h2_databases() throws Exception {
+    DataSource primary = h2("primary");
+    DataSource replica = h2("replica");
+
+    AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+      @Override
+      protected Object determineCurrentLookupKey() {
+        return ReadReplicaRoutingInterceptor.currentRoute();
+      }
+    };
+    routing.setTargetDataSources(Map.<Object, Object>of(Route.PRIMARY, primary, Route.REPLICA, replica));
+    routing.setDefaultTargetDataSource(primary);
+    routing.afterPropertiesSet();
+    DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+    interceptor.preHandle(request("GET", "alice"), new MockHttpServletResponse(), controllerHandler);
+    assertEquals("replica", whoAmI(dataSource));
+
+    interceptor.preHandle(request("POST", "alice"), new MockHttpServletResponse(), controllerHandler);
+    assertEquals("primary", whoAmI(dataSource));
+  }
+
+  private static MockHttpServletRequest request(String method, String user) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/ucsbdates/all");
+    if (user != null) {
+      request.setUserPrincipal(new TestingAuthenticationToken(user, null));
+    }
+    return request;
+  }
+
+  private static HandlerMethod handler(Object bean, String methodName, Class<?>... parameterTypes) {
+    try {
+      return new HandlerMethod(bean, methodName, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static DataSource h2(String name) throws Exception {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+      s.execute("CREATE TABLE IF NOT EXISTS WHOAMI (NAME VARCHAR(20))");
+      s.execute("DELETE FROM WHOAMI");
+      s.execute("INSERT INTO WHOAMI VALUES ('" + name + "')");
+    }
+    return dataSource;
+  }
+
+  private static String whoAmI(DataSource dataSource) throws Exception {
+    try (Connection c = dataSource.getConnection();
+        Statement s = c.createStatement();
+        ResultSet rs = s.executeQuery("SELECT NAME FROM WHOAMI")) {
+      rs.next();
+      return rs.getString(1);
+    }
+  }
+}
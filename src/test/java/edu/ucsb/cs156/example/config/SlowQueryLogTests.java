@@ -0,0 +1,186 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+
+class SlowQueryLogTests {
+
+  DataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:slowquery;DB_CLOSE_DELAY=-1", "sa", "");
+
+  List<String> entries = new ArrayList<>();
+
+  @BeforeEach
+  void table() throws Exception {
+    try (Connection c = h2.getConnection(); Statement s = c.createStatement()) {
+      s.execute("CREATE TABLE IF NOT EXISTS SLOW (ID BIGINT PRIMARY KEY, NAME VARCHAR(200))");
+      s.execute("DELETE FROM SLOW");
+      s.execute("INSERT INTO SLOW VALUES (1, 'one')");
+    }
+  }
+
+  @AfterEach
+  void noRequest() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void test_statements_under_the_threshold_are_not_logged() throws Exception {
+    select(proxy(new SlowQueryLog(60_000, 1, h2, () -> 0, entries::add, Runnable::run)), 1L);
+
+    assertEquals(List.of(), entries);
+  }
+
+  @Test
+  void test_slow_select_in_a_request_has_handler_binds_and_plan() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ucsbdates/all");
+    request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+        new HandlerMethod(new UCSBDatesController(), "allUCSBDates", String.class));
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+    select(proxy(new SlowQueryLog(0, 1, h2, () -> 0.5, entries::add, Runnable::run)), 1L);
+
+    assertEquals(1, entries.size());
+    String entry = entries.get(0);
+    assertTrue(entry.startsWith("slow query: "), entry);
+    assertTrue(entry.contains(" ms in UCSBDatesController.allUCSBDates\n"), entry);
+    assertTrue(entry.contains("\n  SELECT NAME FROM SLOW WHERE ID = ?\n  binds 1=1\n  plan:\n    "), entry);
+  }
+
+  @Test
+  void test_unsampled_binds_and_no_explain_data_source() throws Exception {
+    select(proxy(new SlowQueryLog(0, 0.5, null, () -> 0.5, entries::add, Runnable::run)), 1L);
+
+    assertEquals(List.of(), entries.stream().filter(e -> e.contains("binds") || e.contains("plan")).toList());
+    assertTrue(entries.get(0).contains(" ms in thread " + Thread.currentThread().getName() + "\n"), entries.get(0));
+  }
+
+  @Test
+  void test_nulls_and_long_values_in_binds_and_no_plan_for_updates() throws Exception {
+    DataSource proxy = proxy(new SlowQueryLog(0, 1, h2, () -> 0, entries::add, Runnable::run));
+    try (Connection c = proxy.getConnection();
+        PreparedStatement s = c.prepareStatement("UPDATE SLOW SET NAME = ? WHERE ID = ?")) {
+      s.setNull(1, Types.VARCHAR);
+      s.setLong(2, 1);
+      s.executeUpdate();
+      s.setString(1, "x".repeat(100));
+      s.setLong(2, 1);
+      s.executeUpdate();
+    }
+
+    assertTrue(entries.get(0).endsWith("\n  binds 1=null, 2=1"), entries.get(0));
+    assertTrue(entries.get(1).endsWith("\n  binds 1=" + "x".repeat(64) + "..., 2=1"), entries.get(1));
+  }
+
+  @Test
+  void test_batches_are_logged_once_without_a_plan() throws Exception {
+    DataSource proxy = proxy(new SlowQueryLog(0, 1, h2, () -> 0, entries::add, Runnable::run));
+    try (Connection c = proxy.getConnection();
+        PreparedStatement s = c.prepareStatement("SELECT NAME FROM SLOW WHERE ID = ?")) {
+      s.setLong(1, 1);
+      s.addBatch();
+      s.setLong(1, 2);
+      s.addBatch();
+      s.executeBatch();
+    } catch (SQLException e) {
+      // H2 refuses a SELECT in a batch; the statement was still timed
+    }
+
+    assertEquals(1, entries.size());
+    assertTrue(entries.get(0).contains("(batch of 2)"), entries.get(0));
+    assertFalse(entries.get(0).contains("plan"), entries.get(0));
+  }
+
+  @Test
+  void test_failed_explain_leaves_out_the_plan() throws Exception {
+    DataSource broken = mock(DataSource.class);
+    when(broken.getConnection()).thenThrow(new SQLException("no connections left"));
+
+    select(proxy(new SlowQueryLog(0, 0, broken, () -> 0.5, entries::add, Runnable::run)), 1L);
+
+    assertEquals(1, entries.size());
+    assertTrue(entries.get(0).endsWith("\n  SELECT NAME FROM SLOW WHERE ID = ?"), entries.get(0));
+  }
+
+  @Test
+  void test_slow_select_is_logged_without_a_plan_when_explain_is_backed_up() throws Exception {
+    Executor full = task -> {
+      throw new RejectedExecutionException("queue is full");
+    };
+
+    select(proxy(new SlowQueryLog(0, 0, h2, () -> 0.5, entries::add, full)), 1L);
+
+    assertEquals(1, entries.size());
+    assertTrue(entries.get(0).endsWith("\n  SELECT NAME FROM SLOW WHERE ID = ?\n  plan: skipped, 16 already waiting"),
+        entries.get(0));
+  }
+
+  @Test
+  void test_explain_runs_on_its_own_thread_with_a_bounded_queue() throws Exception {
+    Executor explainer = SlowQueryLog.explainer(1);
+    CountDownLatch release = new CountDownLatch(1);
+    BlockingQueue<String> ran = new LinkedBlockingQueue<>();
+
+    explainer.execute(() -> {
+      ran.add(Thread.currentThread().getName());
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    explainer.execute(() -> ran.add("queued"));
+    assertThrows(RejectedExecutionException.class, () -> explainer.execute(() -> ran.add("rejected")));
+    release.countDown();
+
+    assertEquals("slow-query-explain", ran.poll(5, TimeUnit.SECONDS));
+    assertEquals("queued", ran.poll(5, TimeUnit.SECONDS));
+    assertNull(ran.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  private DataSource proxy(SlowQueryLog slowQueryLog) {
+    return ProxyDataSourceBuilder.create(h2).listener(slowQueryLog).build();
+  }
+
+  private static void select(DataSource dataSource, long id) throws SQLException {
+    try (Connection c = dataSource.getConnection();
+        PreparedStatement s = c.prepareStatement("SELECT NAME FROM SLOW WHERE ID = ?")) {
+      s.setLong(1, id);
+      s.executeQuery().close();
+    }
+  }
+}
@@ -4,18 +4,32 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+import edu.ucsb.cs156.example.models.ArticlesSummary;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.OptimisticLockRetry;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,24 +38,36 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = ArticlesController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, OptimisticLockRetry.class })
 public class ArticlesControllerTests extends ControllerTestCase {
 
         @MockBean
         ArticlesRepository articlesRepository;
 
+        @MockBean
+        ListingService listingService;
+
+        @MockBean
+        PlatformTransactionManager transactionManager;
+
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        PartialUpdateService partialUpdateService;
+
         // Tests for GET /api/Articles/all
         
         @Test
@@ -85,7 +111,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                 ArrayList<Articles> expectedArticles = new ArrayList<>();
                 expectedArticles.addAll(Arrays.asList(articles1, articles2));
 
-                when(articlesRepository.findAll()).thenReturn(expectedArticles);
+                when(listingService.allArticles()).thenReturn(mapper.convertValue(expectedArticles, new TypeReference<List<ArticlesSummary>>() {}));
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/Articles/all"))
@@ -93,7 +119,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(articlesRepository, times(1)).findAll();
+                verify(listingService, times(1)).allArticles();
                 String expectedJson = mapper.writeValueAsString(expectedArticles);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -165,6 +191,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                                 .explanation("cool stuff here")
                                 .email("email1")
                                 .dateAdded(ldt1)
+                                .version(3)
                                 .build();
 
                 when(articlesRepository.findById(eq(7L))).thenReturn(Optional.of(articles1));
@@ -179,6 +206,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                 String expectedJson = mapper.writeValueAsString(articles1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
+                assertEquals("\"3\"", response.getResponse().getHeader("ETag"));
         }
 
         @WithMockUser(roles = { "USER" })
@@ -201,6 +229,53 @@ public class ArticlesControllerTests extends ControllerTestCase {
                 assertEquals("Articles with id 7 not found", json.get("message"));
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void etag_from_get_by_id_can_be_sent_back_as_if_match_on_put() throws Exception {
+                // arrange
+
+                Articles stored = Articles.builder()
+                                        .title("Wow")
+                                        .url("coolmathgames.com")
+                                        .explanation("cool stuff here")
+                                        .email("email1")
+                                        .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                        .version(3)
+                                        .build();
+
+                when(articlesRepository.findById(eq(7L))).thenReturn(Optional.of(stored));
+
+                String etag = mockMvc.perform(get("/api/Articles?id=7"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+
+                String requestBody = mapper.writeValueAsString(stored);
+
+                // act
+                mockMvc.perform(
+                                put("/api/Articles?id=7")
+                                                .header("If-Match", etag)
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+
+                // someone else saves in between, so the same tag is now stale
+                stored.setVersion(4);
+                mockMvc.perform(
+                                put("/api/Articles?id=7")
+                                                .header("If-Match", etag)
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isPreconditionFailed());
+
+                // assert
+                assertEquals("\"3\"", etag);
+                verify(articlesRepository, times(1)).save(any());
+        }
+
 
         // Tests for DELETE /api/Articles?id=... 
 
@@ -219,7 +294,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                                 .dateAdded(ldt1)
                                 .build();
 
-                when(articlesRepository.findById(eq(15L))).thenReturn(Optional.of(articles1));
+                when(articlesRepository.deleteByIdReturningCount(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -228,8 +303,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(articlesRepository, times(1)).findById(15L);
-                verify(articlesRepository, times(1)).delete(any());
+                verify(articlesRepository, times(1)).deleteByIdReturningCount(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Articles with id 15 deleted", json.get("message"));
@@ -241,7 +315,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(articlesRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(articlesRepository.deleteByIdReturningCount(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -250,7 +324,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(articlesRepository, times(1)).findById(15L);
+                verify(articlesRepository, times(1)).deleteByIdReturningCount(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Articles with id 15 not found", json.get("message"));
         }
@@ -337,4 +411,358 @@ public class ArticlesControllerTests extends ControllerTestCase {
                 assertEquals("Articles with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for PUT /api/Articles?id=... with optimistic locking
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_edit_article_when_if_match_is_current() throws Exception {
+                // arrange
+
+                Articles orig = Articles.builder()
+                                        .title("Wow")
+                                        .url("coolmathgames.com")
+                                        .explanation("cool stuff here")
+                                        .email("email1")
+                                        .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                Articles edited = Articles.builder()
+                                        .title("Wow2")
+                                        .url("coolmathgames.com2")
+                                        .explanation("cool stuff here2")
+                                        .email("email2")
+                                        .dateAdded(LocalDateTime.parse("2022-03-11T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                String requestBody = mapper.writeValueAsString(edited);
+
+                when(articlesRepository.findById(eq(67L))).thenReturn(Optional.of(orig));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/Articles?id=67")
+                                                .header("If-Match", "\"4\"")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(articlesRepository, times(1)).save(edited);
+                assertEquals("\"4\"", response.getResponse().getHeader("ETag"));
+                assertEquals(requestBody, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void if_match_accepts_weak_tags_lists_and_wildcard() throws Exception {
+                // arrange
+
+                Articles orig = Articles.builder()
+                                        .title("Wow")
+                                        .url("coolmathgames.com")
+                                        .explanation("cool stuff here")
+                                        .email("email1")
+                                        .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                Articles edited = Articles.builder()
+                                        .title("Wow2")
+                                        .url("coolmathgames.com2")
+                                        .explanation("cool stuff here2")
+                                        .email("email2")
+                                        .dateAdded(LocalDateTime.parse("2022-03-11T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                String requestBody = mapper.writeValueAsString(edited);
+
+                when(articlesRepository.findById(eq(67L))).thenReturn(Optional.of(orig));
+
+                // act
+                for (String ifMatch : List.of("W/\"3\", W/\"4\"", "4", "*")) {
+                        mockMvc.perform(
+                                        put("/api/Articles?id=67")
+                                                        .header("If-Match", ifMatch)
+                                                        .contentType(MediaType.APPLICATION_JSON)
+                                                        .characterEncoding("utf-8")
+                                                        .content(requestBody)
+                                                        .with(csrf()))
+                                        .andExpect(status().isOk());
+                }
+
+                // assert
+                verify(articlesRepository, times(3)).save(edited);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_gets_412_when_if_match_is_stale() throws Exception {
+                // arrange
+
+                Articles orig = Articles.builder()
+                                        .title("Wow")
+                                        .url("coolmathgames.com")
+                                        .explanation("cool stuff here")
+                                        .email("email1")
+                                        .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                Articles edited = Articles.builder()
+                                        .title("Wow2")
+                                        .url("coolmathgames.com2")
+                                        .explanation("cool stuff here2")
+                                        .email("email2")
+                                        .dateAdded(LocalDateTime.parse("2022-03-11T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                String requestBody = mapper.writeValueAsString(edited);
+
+                when(articlesRepository.findById(eq(67L))).thenReturn(Optional.of(orig));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/Articles?id=67")
+                                                .header("If-Match", "\"3\"")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isPreconditionFailed()).andReturn();
+
+                // assert
+                verify(articlesRepository, never()).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("PreconditionFailedException", json.get("type"));
+                assertEquals("Articles with id 67 has been modified (current version 4)", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void conflicting_edit_is_retried_from_a_fresh_read() throws Exception {
+                // arrange
+
+                Articles orig = Articles.builder()
+                                        .title("Wow")
+                                        .url("coolmathgames.com")
+                                        .explanation("cool stuff here")
+                                        .email("email1")
+                                        .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                Articles edited = Articles.builder()
+                                        .title("Wow2")
+                                        .url("coolmathgames.com2")
+                                        .explanation("cool stuff here2")
+                                        .email("email2")
+                                        .dateAdded(LocalDateTime.parse("2022-03-11T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                String requestBody = mapper.writeValueAsString(edited);
+
+                when(articlesRepository.findById(eq(67L))).thenReturn(Optional.of(orig));
+
+                when(articlesRepository.save(any()))
+                                .thenThrow(new ObjectOptimisticLockingFailureException(Articles.class, 67L))
+                                .thenReturn(edited);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/Articles?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(articlesRepository, times(2)).findById(67L);
+                verify(articlesRepository, times(2)).save(edited);
+                assertEquals(requestBody, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void edit_gives_up_with_409_after_bounded_retries() throws Exception {
+                // arrange
+
+                Articles orig = Articles.builder()
+                                        .title("Wow")
+                                        .url("coolmathgames.com")
+                                        .explanation("cool stuff here")
+                                        .email("email1")
+                                        .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                Articles edited = Articles.builder()
+                                        .title("Wow2")
+                                        .url("coolmathgames.com2")
+                                        .explanation("cool stuff here2")
+                                        .email("email2")
+                                        .dateAdded(LocalDateTime.parse("2022-03-11T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                String requestBody = mapper.writeValueAsString(edited);
+
+                when(articlesRepository.findById(eq(67L))).thenReturn(Optional.of(orig));
+
+                when(articlesRepository.save(any()))
+                                .thenThrow(new ObjectOptimisticLockingFailureException(Articles.class, 67L));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/Articles?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+                verify(articlesRepository, times(3)).findById(67L);
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("concurrent update, please retry", json.get("message"));
+        }
+
+        // Tests for PATCH /api/Articles?id=...
+
+        @Test
+        public void logged_out_users_cannot_patch() throws Exception {
+                mockMvc.perform(patch("/api/Articles?id=67"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_patch() throws Exception {
+                mockMvc.perform(patch("/api/Articles?id=67"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_patch_some_fields_of_an_existing_articles() throws Exception {
+                // arrange
+
+                Articles stored = Articles.builder()
+                                        .id(67L)
+                                        .title("Patched title")
+                                        .url("https://example.org/patched")
+                                        .explanation("patched in place")
+                                        .email("patch@ucsb.edu")
+                                        .dateAdded(LocalDateTime.parse("2023-01-03T00:00:00"))
+                                        .version(4)
+                                        .build();
+
+                String requestBody = mapper.writeValueAsString(Map.of("title", "Patched title"));
+
+                when(partialUpdateService.patch(eq(Articles.class), eq(67L), eq(Set.of(3L)), any())).thenReturn(stored);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/Articles?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .header("If-Match", "W/\"3\", \"not-a-version\"")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                ArgumentCaptor<JsonNode> body = ArgumentCaptor.forClass(JsonNode.class);
+                verify(partialUpdateService, times(1)).patch(eq(Articles.class), eq(67L), eq(Set.of(3L)), body.capture());
+                assertEquals(mapper.readTree(requestBody), body.getValue());
+                verify(articlesRepository, never()).save(any());
+                assertEquals("\"4\"", response.getResponse().getHeader("ETag"));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(mapper.writeValueAsString(stored), responseString);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_patch_articles_that_does_not_exist() throws Exception {
+                // arrange
+
+                String requestBody = mapper.writeValueAsString(Map.of("title", "Patched title"));
+
+                when(partialUpdateService.patch(eq(Articles.class), eq(67L), isNull(), any()))
+                                .thenThrow(new EntityNotFoundException(Articles.class, 67L));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/Articles?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                verify(partialUpdateService, times(1)).patch(eq(Articles.class), eq(67L), isNull(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("Articles with id 67 not found", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_patch_articles_when_if_match_is_stale() throws Exception {
+                // arrange
+
+                String requestBody = mapper.writeValueAsString(Map.of("title", "Patched title"));
+
+                when(partialUpdateService.patch(eq(Articles.class), eq(67L), eq(Set.of(3L)), any()))
+                                .thenThrow(new PreconditionFailedException(Articles.class, 67L, 5L));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/Articles?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .header("If-Match", "W/\"3\", \"not-a-version\"")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isPreconditionFailed()).andReturn();
+
+                // assert
+                verify(partialUpdateService, times(1)).patch(eq(Articles.class), eq(67L), eq(Set.of(3L)), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("Articles with id 67 has been modified (current version 5)", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_patch_articles_with_a_field_of_the_wrong_type() throws Exception {
+                // arrange
+
+                String requestBody = mapper.writeValueAsString(Map.of("dateAdded", "not a date"));
+
+                when(partialUpdateService.patch(eq(Articles.class), eq(67L), eq(Set.of(3L)), any()))
+                                .thenThrow(MismatchedInputException.from(null, LocalDateTime.class, "bad dateAdded"));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/Articles?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .header("If-Match", "W/\"3\", \"not-a-version\"")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(partialUpdateService, times(1)).patch(eq(Articles.class), eq(67L), eq(Set.of(3L)), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("bad dateAdded", json.get("message"));
+        }
 }
@@ -0,0 +1,90 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.Completion;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AutocompleteService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = AutocompleteController.class)
+@Import(TestConfig.class)
+public class AutocompleteControllerTests extends ControllerTestCase {
+
+        @MockBean
+        AutocompleteService autocompleteService;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @Test
+        public void logged_out_users_cannot_autocomplete() throws Exception {
+                mockMvc.perform(get("/api/autocomplete?type=ORGANIZATION&prefix=ga"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void unknown_type_is_a_bad_request() throws Exception {
+                mockMvc.perform(get("/api/autocomplete?type=BOGUS&prefix=ga"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_autocomplete_organizations() throws Exception {
+
+                // arrange
+
+                List<Completion> expected = List.of(new Completion("GR", "GauRadio"));
+                when(autocompleteService.complete(eq(AutocompleteService.Type.ORGANIZATION), eq("ga"), eq(10)))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/autocomplete?type=ORGANIZATION&prefix=ga"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(autocompleteService, times(1)).complete(AutocompleteService.Type.ORGANIZATION, "ga", 10);
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_autocomplete_menu_items_with_limit() throws Exception {
+
+                // arrange
+
+                List<Completion> expected = List.of(new Completion("7", "Burrito"));
+                when(autocompleteService.complete(eq(AutocompleteService.Type.MENUITEM), eq("bur"), eq(1)))
+                                .thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/autocomplete?type=MENUITEM&prefix=bur&limit=1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(autocompleteService, times(1)).complete(AutocompleteService.Type.MENUITEM, "bur", 1);
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+}
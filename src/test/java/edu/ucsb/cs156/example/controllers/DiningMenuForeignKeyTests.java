@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import edu.ucsb.cs156.example.IntegrationTestCase;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+// UCSBDiningMenu-3: a commons or menu item that is still referred to cannot
+// be deleted, and the API answers 409 instead.
+class DiningMenuForeignKeyTests extends IntegrationTestCase {
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  UCSBDiningCommonsMenuItem menuItem;
+  MenuItemReview review;
+
+  // each test has its own commons, since rows are not rolled back
+  void rows(String code) {
+    ucsbDiningCommonsRepository.save(UCSBDiningCommons.builder().code(code).name(code).build());
+    menuItem = ucsbDiningCommonsMenuItemRepository.save(UCSBDiningCommonsMenuItem.builder()
+        .diningCommonsCode(code).name("Baked Pesto Pasta").station("Entree Specials").build());
+    review = menuItemReviewRepository.save(MenuItemReview.builder().itemId(menuItem.getId())
+        .reviewerEmail("cgaucho@ucsb.edu").stars(5).dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+        .comments("good").build());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  void test_a_reviewed_menu_item_and_its_commons_cannot_be_deleted() throws Exception {
+    rows("fk-referenced");
+
+    mockMvc.perform(delete("/api/UCSBDiningCommonsMenuItem?id=" + menuItem.getId()).with(csrf()))
+        .andExpect(status().isConflict())
+        .andExpect(jsonPath("$.type").value("DataIntegrityViolationException"));
+    mockMvc.perform(delete("/api/ucsbdiningcommons?code=fk-referenced").with(csrf()))
+        .andExpect(status().isConflict());
+
+    assertTrue(ucsbDiningCommonsMenuItemRepository.existsById(menuItem.getId()));
+    assertTrue(ucsbDiningCommonsRepository.existsById("fk-referenced"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  void test_deletes_succeed_once_nothing_refers_to_the_row() throws Exception {
+    rows("fk-unreferenced");
+
+    mockMvc.perform(delete("/api/MenuItemReview?id=" + review.getId()).with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc.perform(delete("/api/UCSBDiningCommonsMenuItem?id=" + menuItem.getId()).with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc.perform(delete("/api/ucsbdiningcommons?code=fk-unreferenced").with(csrf()))
+        .andExpect(status().isOk());
+  }
+}
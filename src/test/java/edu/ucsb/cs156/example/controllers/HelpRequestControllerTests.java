@@ -3,19 +3,34 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.ArchivedHelpRequest;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.OptimisticLockRetry;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,24 +39,40 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = HelpRequestController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, OptimisticLockRetry.class })
 public class HelpRequestControllerTests extends ControllerTestCase {
 
     @MockBean
     HelpRequestRepository helpRequestRepository;
 
+    @MockBean
+    ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+    @MockBean
+    ListingService listingService;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    PartialUpdateService partialUpdateService;
+
     // Tests for GET /api/HelpRequest/all
         
         @Test
@@ -87,7 +118,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 ArrayList<HelpRequest> expectedRequests = new ArrayList<>();
                 expectedRequests.addAll(Arrays.asList(helpRequest1, helpRequest2));
 
-                when(helpRequestRepository.findAll()).thenReturn(expectedRequests);
+                when(listingService.allHelpRequests()).thenReturn(mapper.convertValue(expectedRequests, new TypeReference<List<HelpRequestSummary>>() {}));
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/HelpRequest/all"))
@@ -95,12 +126,46 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(helpRequestRepository, times(1)).findAll();
+                verify(listingService, times(1)).allHelpRequests();
                 String expectedJson = mapper.writeValueAsString(expectedRequests);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_all_helprequests_including_archived_ones() throws Exception {
+
+                // arrange
+                HelpRequestSummary archived = new HelpRequestSummary(1L, "cgaucho@ucsb.edu", "f23-4pm-5", "5",
+                                LocalDateTime.parse("2023-10-03T16:00:00"), "help with team01", true, 2L);
+                HelpRequestSummary current = new HelpRequestSummary(9L, "winstonwang@ucsb.edu", "s24-4pm-6", "6",
+                                LocalDateTime.parse("2024-04-04T16:00:00"), "help with dokku", false, 0L);
+
+                when(listingService.allArchivedHelpRequests()).thenReturn(List.of(archived));
+                when(listingService.allHelpRequests()).thenReturn(List.of(current));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/all?includeArchived=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                String expectedJson = mapper.writeValueAsString(List.of(archived, current));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void archived_helprequests_are_not_listed_by_default() throws Exception {
+                when(listingService.allHelpRequests()).thenReturn(List.of());
+
+                mockMvc.perform(get("/api/HelpRequest/all"))
+                                .andExpect(status().isOk());
+
+                verify(listingService, never()).allArchivedHelpRequests();
+        }
+
         // Tests for POST /api/HelpRequest/post...
 
         @Test
@@ -197,6 +262,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .requestTime(ldt1)
                                 .explanation("help with team02 controller")
                                 .solved(false)
+                                .version(3)
                                 .build();
 
                 when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.of(helpRequest));
@@ -211,6 +277,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 String expectedJson = mapper.writeValueAsString(helpRequest);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
+                assertEquals("\"3\"", response.getResponse().getHeader("ETag"));
         }
 
         @WithMockUser(roles = { "USER" })
@@ -233,6 +300,108 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 assertEquals("HelpRequest with id 7 not found", json.get("message"));
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void etag_from_get_by_id_can_be_sent_back_as_if_match_on_put() throws Exception {
+                // arrange
+
+                HelpRequest stored = HelpRequest.builder()
+                                        .requesterEmail("cgaucho@ucsb.edu")
+                                        .teamId("s24-4pm-5")
+                                        .tableOrBreakoutRoom("5")
+                                        .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                        .explanation("help with team02 controller")
+                                        .solved(false)
+                                        .version(3)
+                                        .build();
+
+                when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.of(stored));
+
+                String etag = mockMvc.perform(get("/api/HelpRequest?id=7"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+
+                String requestBody = mapper.writeValueAsString(stored);
+
+                // act
+                mockMvc.perform(
+                                put("/api/HelpRequest?id=7")
+                                                .header("If-Match", etag)
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+
+                // someone else saves in between, so the same tag is now stale
+                stored.setVersion(4);
+                mockMvc.perform(
+                                put("/api/HelpRequest?id=7")
+                                                .header("If-Match", etag)
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isPreconditionFailed());
+
+                // assert
+                assertEquals("\"3\"", etag);
+                verify(helpRequestRepository, times(1)).save(any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void test_that_logged_in_user_can_get_an_archived_helprequest_by_id() throws Exception {
+
+                // arrange
+                ArchivedHelpRequest archived = ArchivedHelpRequest.builder()
+                                .id(7L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("f23-4pm-5")
+                                .tableOrBreakoutRoom("5")
+                                .requestTime(LocalDateTime.parse("2023-10-03T16:00:00"))
+                                .explanation("help with team01")
+                                .solved(true)
+                                .version(2L)
+                                .build();
+
+                when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+                when(archivedHelpRequestRepository.findById(eq(7L))).thenReturn(Optional.of(archived));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest?id=7&includeArchived=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                HelpRequest expected = new HelpRequest(7L, "cgaucho@ucsb.edu", "f23-4pm-5", "5",
+                                LocalDateTime.parse("2023-10-03T16:00:00"), "help with team01", true, 2L);
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void test_that_archive_is_only_searched_when_asked() throws Exception {
+
+                // arrange
+
+                when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+                when(archivedHelpRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+
+                // act
+                mockMvc.perform(get("/api/HelpRequest?id=7"))
+                                .andExpect(status().isNotFound());
+                verify(archivedHelpRequestRepository, never()).findById(any());
+
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest?id=7&includeArchived=true"))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+
+                verify(archivedHelpRequestRepository, times(1)).findById(eq(7L));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("HelpRequest with id 7 not found", json.get("message"));
+        }
+
         // Tests for DELETE /api/HelpRequest?id=... 
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -251,7 +420,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .solved(false)
                                 .build();
 
-                when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.of(helpRequest1));
+                when(helpRequestRepository.deleteByIdReturningCount(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -260,8 +429,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(15L);
-                verify(helpRequestRepository, times(1)).delete(any());
+                verify(helpRequestRepository, times(1)).deleteByIdReturningCount(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 15 deleted", json.get("message"));
@@ -273,7 +441,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(helpRequestRepository.deleteByIdReturningCount(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -282,7 +450,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(15L);
+                verify(helpRequestRepository, times(1)).deleteByIdReturningCount(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 15 not found", json.get("message"));
         }
@@ -373,5 +541,401 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 assertEquals("HelpRequest with id 67 not found", json.get("message"));
 
         }
-    
+
+    // Tests for PUT /api/HelpRequest?id=... with optimistic locking
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_edit_helprequest_when_if_match_is_current() throws Exception {
+            // arrange
+
+            HelpRequest orig = HelpRequest.builder()
+                                    .requesterEmail("cgaucho@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                    .explanation("help with team02 controller")
+                                    .solved(false)
+                                    .version(4)
+                                    .build();
+
+            HelpRequest edited = HelpRequest.builder()
+                                    .requesterEmail("cgaucho@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                    .explanation("help with team02 controller")
+                                    .solved(true)
+                                    .version(4)
+                                    .build();
+
+            String requestBody = mapper.writeValueAsString(edited);
+
+            when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(orig));
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            put("/api/HelpRequest?id=67")
+                                            .header("If-Match", "\"4\"")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(helpRequestRepository, times(1)).save(edited);
+            assertEquals("\"4\"", response.getResponse().getHeader("ETag"));
+            assertEquals(requestBody, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void if_match_accepts_weak_tags_lists_and_wildcard() throws Exception {
+            // arrange
+
+            HelpRequest orig = HelpRequest.builder()
+                                    .requesterEmail("cgaucho@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                    .explanation("help with team02 controller")
+                                    .solved(false)
+                                    .version(4)
+                                    .build();
+
+            HelpRequest edited = HelpRequest.builder()
+                                    .requesterEmail("cgaucho@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                    .explanation("help with team02 controller")
+                                    .solved(true)
+                                    .version(4)
+                                    .build();
+
+            String requestBody = mapper.writeValueAsString(edited);
+
+            when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(orig));
+
+            // act
+            for (String ifMatch : List.of("W/\"3\", W/\"4\"", "4", "*")) {
+                    mockMvc.perform(
+                                    put("/api/HelpRequest?id=67")
+                                                    .header("If-Match", ifMatch)
+                                                    .contentType(MediaType.APPLICATION_JSON)
+                                                    .characterEncoding("utf-8")
+                                                    .content(requestBody)
+                                                    .with(csrf()))
+                                    .andExpect(status().isOk());
+            }
+
+            // assert
+            verify(helpRequestRepository, times(3)).save(edited);
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_gets_412_when_if_match_is_stale() throws Exception {
+            // arrange
+
+            HelpRequest orig = HelpRequest.builder()
+                                    .requesterEmail("cgaucho@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                    .explanation("help with team02 controller")
+                                    .solved(false)
+                                    .version(4)
+                                    .build();
+
+            HelpRequest edited = HelpRequest.builder()
+                                    .requesterEmail("cgaucho@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                    .explanation("help with team02 controller")
+                                    .solved(true)
+                                    .version(4)
+                                    .build();
+
+            String requestBody = mapper.writeValueAsString(edited);
+
+            when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(orig));
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            put("/api/HelpRequest?id=67")
+                                            .header("If-Match", "\"3\"")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isPreconditionFailed()).andReturn();
+
+            // assert
+            verify(helpRequestRepository, never()).save(any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("PreconditionFailedException", json.get("type"));
+            assertEquals("HelpRequest with id 67 has been modified (current version 4)", json.get("message"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void conflicting_edit_is_retried_from_a_fresh_read() throws Exception {
+            // arrange
+
+            HelpRequest orig = HelpRequest.builder()
+                                    .requesterEmail("cgaucho@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                    .explanation("help with team02 controller")
+                                    .solved(false)
+                                    .version(4)
+                                    .build();
+
+            HelpRequest edited = HelpRequest.builder()
+                                    .requesterEmail("cgaucho@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                    .explanation("help with team02 controller")
+                                    .solved(true)
+                                    .version(4)
+                                    .build();
+
+            String requestBody = mapper.writeValueAsString(edited);
+
+            when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(orig));
+
+            when(helpRequestRepository.save(any()))
+                            .thenThrow(new ObjectOptimisticLockingFailureException(HelpRequest.class, 67L))
+                            .thenReturn(edited);
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            put("/api/HelpRequest?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(helpRequestRepository, times(2)).findById(67L);
+            verify(helpRequestRepository, times(2)).save(edited);
+            assertEquals(requestBody, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void edit_gives_up_with_409_after_bounded_retries() throws Exception {
+            // arrange
+
+            HelpRequest orig = HelpRequest.builder()
+                                    .requesterEmail("cgaucho@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                    .explanation("help with team02 controller")
+                                    .solved(false)
+                                    .version(4)
+                                    .build();
+
+            HelpRequest edited = HelpRequest.builder()
+                                    .requesterEmail("cgaucho@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                    .explanation("help with team02 controller")
+                                    .solved(true)
+                                    .version(4)
+                                    .build();
+
+            String requestBody = mapper.writeValueAsString(edited);
+
+            when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(orig));
+
+            when(helpRequestRepository.save(any()))
+                            .thenThrow(new ObjectOptimisticLockingFailureException(HelpRequest.class, 67L));
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            put("/api/HelpRequest?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isConflict()).andReturn();
+
+            // assert
+            verify(helpRequestRepository, times(3)).findById(67L);
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("concurrent update, please retry", json.get("message"));
+    }
+
+    // Tests for PUT /api/HelpRequest/solved
+
+    @Test
+    public void logged_out_users_cannot_bulk_mark_help_requests_solved() throws Exception {
+            mockMvc.perform(put("/api/HelpRequest/solved"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_mark_help_requests_solved() throws Exception {
+            mockMvc.perform(put("/api/HelpRequest/solved"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_mark_help_requests_solved_matching_a_predicate() throws Exception {
+            // arrange
+
+            LocalDateTime cutoff = LocalDateTime.parse("2024-04-01T17:50:00");
+            when(helpRequestRepository.updateSolvedWhere(eq(true), eq(cutoff), eq("7"), eq("s24-4pm-5"))).thenReturn(12);
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            put("/api/HelpRequest/solved?before=2024-04-01T17:50:00&tableOrBreakoutRoom=7&teamId=s24-4pm-5")
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(helpRequestRepository, times(1)).updateSolvedWhere(true, cutoff, "7", "s24-4pm-5");
+            verify(helpRequestRepository, never()).save(any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("12 help requests marked solved", json.get("message"));
+            assertEquals(12, json.get("count"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void bulk_mark_help_requests_solved_defaults_to_everything_before_now() throws Exception {
+            // arrange
+
+            LocalDateTime start = LocalDateTime.now();
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            put("/api/HelpRequest/solved?solved=false")
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(helpRequestRepository, times(1)).updateSolvedWhere(eq(false), cutoff.capture(), isNull(), isNull());
+            assertFalse(cutoff.getValue().isBefore(start));
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("0 help requests marked unsolved", json.get("message"));
+    }
+
+    // Tests for PATCH /api/HelpRequest?id=...
+
+    @Test
+    public void logged_out_users_cannot_patch() throws Exception {
+            mockMvc.perform(patch("/api/HelpRequest?id=67"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_patch() throws Exception {
+            mockMvc.perform(patch("/api/HelpRequest?id=67"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_patch_some_fields_of_an_existing_helprequest() throws Exception {
+            // arrange
+
+            HelpRequest stored = HelpRequest.builder()
+                                    .id(67L)
+                                    .requesterEmail("patch@ucsb.edu")
+                                    .teamId("s24-4pm-5")
+                                    .tableOrBreakoutRoom("5")
+                                    .requestTime(LocalDateTime.parse("2023-01-03T00:00:00"))
+                                    .explanation("patched in place")
+                                    .solved(true)
+                                    .version(4)
+                                    .build();
+
+            String requestBody = mapper.writeValueAsString(Map.of("requesterEmail", "patch@ucsb.edu"));
+
+            when(partialUpdateService.patch(eq(HelpRequest.class), eq(67L), eq(Set.of(3L)), any())).thenReturn(stored);
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            patch("/api/HelpRequest?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .header("If-Match", "W/\"3\", \"not-a-version\"")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            ArgumentCaptor<JsonNode> body = ArgumentCaptor.forClass(JsonNode.class);
+            verify(partialUpdateService, times(1)).patch(eq(HelpRequest.class), eq(67L), eq(Set.of(3L)), body.capture());
+            assertEquals(mapper.readTree(requestBody), body.getValue());
+            verify(helpRequestRepository, never()).save(any());
+            assertEquals("\"4\"", response.getResponse().getHeader("ETag"));
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(mapper.writeValueAsString(stored), responseString);
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_cannot_patch_helprequest_that_does_not_exist() throws Exception {
+            // arrange
+
+            String requestBody = mapper.writeValueAsString(Map.of("requesterEmail", "patch@ucsb.edu"));
+
+            when(partialUpdateService.patch(eq(HelpRequest.class), eq(67L), isNull(), any()))
+                            .thenThrow(new EntityNotFoundException(HelpRequest.class, 67L));
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            patch("/api/HelpRequest?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isNotFound()).andReturn();
+
+            // assert
+            verify(partialUpdateService, times(1)).patch(eq(HelpRequest.class), eq(67L), isNull(), any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("HelpRequest with id 67 not found", json.get("message"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_cannot_patch_helprequest_when_if_match_is_stale() throws Exception {
+            // arrange
+
+            String requestBody = mapper.writeValueAsString(Map.of("requesterEmail", "patch@ucsb.edu"));
+
+            when(partialUpdateService.patch(eq(HelpRequest.class), eq(67L), eq(Set.of(3L)), any()))
+                            .thenThrow(new PreconditionFailedException(HelpRequest.class, 67L, 5L));
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            patch("/api/HelpRequest?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .header("If-Match", "W/\"3\", \"not-a-version\"")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isPreconditionFailed()).andReturn();
+
+            // assert
+            verify(partialUpdateService, times(1)).patch(eq(HelpRequest.class), eq(67L), eq(Set.of(3L)), any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("HelpRequest with id 67 has been modified (current version 5)", json.get("message"));
+    }
 }
@@ -4,15 +4,30 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.MenuItemReviewDetail;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.QueueFullException;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
+import edu.ucsb.cs156.example.services.ReviewIngestionQueue;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -28,6 +43,10 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,9 +58,21 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     @MockBean
     MenuItemReviewRepository menuitemReviewRepository;
 
+    @MockBean
+    UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+    @MockBean
+    ListingService listingService;
+
+    @MockBean
+    ReviewIngestionQueue reviewIngestionQueue;
+
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    PartialUpdateService partialUpdateService;
+
     // Tests for GET /api/MenuItemReview/all
         
         @Test
@@ -84,7 +115,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 ArrayList<MenuItemReview> expectedReviews = new ArrayList<>();
                 expectedReviews.addAll(Arrays.asList(menuitemReview1, menuitemReview2));
 
-                when(menuitemReviewRepository.findAll()).thenReturn(expectedReviews);
+                when(listingService.allMenuItemReviews()).thenReturn(mapper.convertValue(expectedReviews, new TypeReference<List<MenuItemReviewSummary>>() {}));
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/MenuItemReview/all"))
@@ -92,7 +123,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(menuitemReviewRepository, times(1)).findAll();
+                verify(listingService, times(1)).allMenuItemReviews();
                 String expectedJson = mapper.writeValueAsString(expectedReviews);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -147,6 +178,154 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
         }
 
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void in_async_mode_a_post_is_queued_and_accepted() throws Exception {
+                // arrange
+
+                MenuItemReview menuitemReview1 = MenuItemReview.builder()
+                                .itemId(7L)
+                                .reviewerEmail("cgaucho@ucsb.edu")
+                                .stars(5)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("I love the apple pie")
+                                .build();
+
+                when(reviewIngestionQueue.isAsync()).thenReturn(true);
+                when(ucsbDiningCommonsMenuItemRepository.existsById(eq(7L))).thenReturn(true);
+                // as the background writer would, once the review is saved
+                doAnswer(invocation -> {
+                        invocation.<MenuItemReview>getArgument(0).setId(42L);
+                        return null;
+                }).when(reviewIngestionQueue).submit(any());
+
+                // act
+
+                MvcResult response = mockMvc.perform(
+                                post("/api/MenuItemReview/post?itemId=7&reviewerEmail=cgaucho@ucsb.edu&stars=5&dateReviewed=2022-01-03T00:00:00&comments=I love the apple pie")
+                                                .with(csrf()))
+                                .andExpect(status().isAccepted()).andReturn();
+
+                // assert
+
+                menuitemReview1.setId(42L);
+                verify(reviewIngestionQueue, times(1)).submit(menuitemReview1);
+                verify(menuitemReviewRepository, never()).save(any());
+                // the response is not the instance the writer updated
+                menuitemReview1.setId(0L);
+                assertEquals(mapper.writeValueAsString(menuitemReview1), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void in_async_mode_a_post_gets_503_when_the_queue_is_full() throws Exception {
+                // arrange
+
+                when(reviewIngestionQueue.isAsync()).thenReturn(true);
+                when(ucsbDiningCommonsMenuItemRepository.existsById(eq(7L))).thenReturn(true);
+                doThrow(new QueueFullException("review queue", 10)).when(reviewIngestionQueue).submit(any());
+
+                // act
+
+                MvcResult response = mockMvc.perform(
+                                post("/api/MenuItemReview/post?itemId=7&reviewerEmail=cgaucho@ucsb.edu&stars=5&dateReviewed=2022-01-03T00:00:00&comments=I love the apple pie")
+                                                .with(csrf()))
+                                .andExpect(status().isServiceUnavailable())
+                                .andExpect(header().string("Retry-After", "1")).andReturn();
+
+                // assert
+
+                verify(menuitemReviewRepository, never()).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("QueueFullException", json.get("type"));
+                assertEquals("review queue is full (10 pending), please retry", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void in_async_mode_a_post_for_an_unknown_item_gets_404() throws Exception {
+                // arrange
+
+                when(reviewIngestionQueue.isAsync()).thenReturn(true);
+                when(ucsbDiningCommonsMenuItemRepository.existsById(eq(7L))).thenReturn(false);
+
+                // act
+
+                MvcResult response = mockMvc.perform(
+                                post("/api/MenuItemReview/post?itemId=7&reviewerEmail=cgaucho@ucsb.edu&stars=5&dateReviewed=2022-01-03T00:00:00&comments=I love the apple pie")
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+
+                verify(reviewIngestionQueue, never()).submit(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("EntityNotFoundException", json.get("type"));
+                assertEquals("UCSBDiningCommonsMenuItem with id 7 not found", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void a_post_rejected_by_the_item_foreign_key_gets_409() throws Exception {
+                // arrange
+
+                when(menuitemReviewRepository.save(any()))
+                                .thenThrow(new DataIntegrityViolationException("FK_MENUITEMREVIEW_ITEM"));
+
+                // act
+
+                MvcResult response = mockMvc.perform(
+                                post("/api/MenuItemReview/post?itemId=7&reviewerEmail=cgaucho@ucsb.edu&stars=5&dateReviewed=2022-01-03T00:00:00&comments=I love the apple pie")
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("DataIntegrityViolationException", json.get("type"));
+                assertEquals("refers to a row that does not exist, is still referred to by another row, or conflicts with an existing one", json.get("message"));
+        }
+
+        // Tests for GET /api/MenuItemReview/commons?code=...
+
+        @Test
+        public void logged_out_users_cannot_get_reviews_at_a_commons() throws Exception {
+                mockMvc.perform(get("/api/MenuItemReview/commons?code=ortega"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_reviews_at_a_commons_with_their_items() throws Exception {
+                // arrange
+
+                UCSBDiningCommonsMenuItem item = UCSBDiningCommonsMenuItem.builder()
+                                .id(7L).diningCommonsCode("ortega").name("Tofu Banh Mi").station("Entrees").build();
+                MenuItemReview review = MenuItemReview.builder()
+                                .id(3L)
+                                .itemId(7L)
+                                .item(item)
+                                .reviewerEmail("cgaucho@ucsb.edu")
+                                .stars(5)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("I love the banh mi")
+                                .build();
+
+                when(menuitemReviewRepository.findByDiningCommonsCode(eq("ortega"))).thenReturn(List.of(review));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/commons?code=ortega"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                String expectedJson = mapper.writeValueAsString(List.of(new MenuItemReviewDetail(3L, 7L,
+                                "Tofu Banh Mi", "Entrees", "cgaucho@ucsb.edu", 5,
+                                LocalDateTime.parse("2022-01-03T00:00:00"), "I love the banh mi")));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
         // Tests for GET /api/MenuItemReview?id=...
 
         @Test
@@ -222,7 +401,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .comments("I love the apple pie")
                                 .build();
 
-                when(menuitemReviewRepository.findById(eq(17L))).thenReturn(Optional.of(menuitemReview));
+                when(menuitemReviewRepository.deleteByIdReturningCount(eq(17L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -231,8 +410,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(menuitemReviewRepository, times(1)).findById(17L);
-                verify(menuitemReviewRepository, times(1)).delete(any());
+                verify(menuitemReviewRepository, times(1)).deleteByIdReturningCount(17L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 17 deleted", json.get("message"));
@@ -244,7 +422,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(menuitemReviewRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(menuitemReviewRepository.deleteByIdReturningCount(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -253,7 +431,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(menuitemReviewRepository, times(1)).findById(17L);
+                verify(menuitemReviewRepository, times(1)).deleteByIdReturningCount(17L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 17 not found", json.get("message"));
         }
@@ -343,5 +521,79 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
         }
 
-
-}
\ No newline at end of file
+    // Tests for PATCH /api/MenuItemReview?id=...
+
+    @Test
+    public void logged_out_users_cannot_patch() throws Exception {
+            mockMvc.perform(patch("/api/MenuItemReview?id=67"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_patch() throws Exception {
+            mockMvc.perform(patch("/api/MenuItemReview?id=67"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_patch_some_fields_of_an_existing_menuitemreview() throws Exception {
+            // arrange
+
+            MenuItemReview stored = MenuItemReview.builder()
+                                    .id(67L)
+                                    .itemId(3L)
+                                    .reviewerEmail("patch@ucsb.edu")
+                                    .stars(4)
+                                    .dateReviewed(LocalDateTime.parse("2023-01-03T00:00:00"))
+                                    .comments("patched in place")
+                                    .build();
+
+            String requestBody = mapper.writeValueAsString(Map.of("itemId", 3L));
+
+            when(partialUpdateService.patch(eq(MenuItemReview.class), eq(67L), isNull(), any())).thenReturn(stored);
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            patch("/api/MenuItemReview?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            ArgumentCaptor<JsonNode> body = ArgumentCaptor.forClass(JsonNode.class);
+            verify(partialUpdateService, times(1)).patch(eq(MenuItemReview.class), eq(67L), isNull(), body.capture());
+            assertEquals(mapper.readTree(requestBody), body.getValue());
+            verify(menuitemReviewRepository, never()).save(any());
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(mapper.writeValueAsString(stored), responseString);
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_cannot_patch_menuitemreview_that_does_not_exist() throws Exception {
+            // arrange
+
+            String requestBody = mapper.writeValueAsString(Map.of("itemId", 3L));
+
+            when(partialUpdateService.patch(eq(MenuItemReview.class), eq(67L), isNull(), any()))
+                            .thenThrow(new EntityNotFoundException(MenuItemReview.class, 67L));
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            patch("/api/MenuItemReview?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isNotFound()).andReturn();
+
+            // assert
+            verify(partialUpdateService, times(1)).patch(eq(MenuItemReview.class), eq(67L), isNull(), any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("MenuItemReview with id 67 not found", json.get("message"));
+    }
+}
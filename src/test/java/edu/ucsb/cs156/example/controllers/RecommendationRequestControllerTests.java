@@ -4,12 +4,21 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.RecommendationRequestSummary;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -26,8 +35,11 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,9 +51,15 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
     @MockBean
     RecommendationRequestRepository recommendationRequestRepository;
 
+    @MockBean
+    ListingService listingService;
+
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    PartialUpdateService partialUpdateService;
+
     // Tests for GET /api/RecommendationRequest/all
         
         @Test
@@ -89,7 +107,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 ArrayList<RecommendationRequest> expectedRequests = new ArrayList<>();
                 expectedRequests.addAll(Arrays.asList(recommendationRequest1, recommendationRequest2));
 
-                when(recommendationRequestRepository.findAll()).thenReturn(expectedRequests);
+                when(listingService.allRecommendationRequests()).thenReturn(mapper.convertValue(expectedRequests, new TypeReference<List<RecommendationRequestSummary>>() {}));
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/all"))
@@ -97,7 +115,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(recommendationRequestRepository, times(1)).findAll();
+                verify(listingService, times(1)).allRecommendationRequests();
                 String expectedJson = mapper.writeValueAsString(expectedRequests);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -228,7 +246,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .done(false)
                                 .build();
 
-                when(recommendationRequestRepository.findById(eq(15L))).thenReturn(Optional.of(recommendationRequest1));
+                when(recommendationRequestRepository.deleteByIdReturningCount(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -237,8 +255,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(recommendationRequestRepository, times(1)).findById(15L);
-                verify(recommendationRequestRepository, times(1)).delete(any());
+                verify(recommendationRequestRepository, times(1)).deleteByIdReturningCount(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 15 deleted", json.get("message"));
@@ -250,7 +267,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(recommendationRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(recommendationRequestRepository.deleteByIdReturningCount(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -259,7 +276,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(recommendationRequestRepository, times(1)).findById(15L);
+                verify(recommendationRequestRepository, times(1)).deleteByIdReturningCount(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
         }
@@ -351,5 +368,139 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 assertEquals("RecommendationRequest with id 67 not found", json.get("message"));
 
         }
-    
+
+    // Tests for PUT /api/RecommendationRequest/done
+
+    @Test
+    public void logged_out_users_cannot_bulk_mark_recommendation_requests_done() throws Exception {
+            mockMvc.perform(put("/api/RecommendationRequest/done"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_mark_recommendation_requests_done() throws Exception {
+            mockMvc.perform(put("/api/RecommendationRequest/done"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_mark_recommendation_requests_done_matching_a_predicate() throws Exception {
+            // arrange
+
+            LocalDateTime cutoff = LocalDateTime.parse("2024-04-01T17:50:00");
+            when(recommendationRequestRepository.updateDoneWhere(eq(true), eq(cutoff), eq("phtcon@ucsb.edu"), eq("cgaucho@ucsb.edu"))).thenReturn(12);
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            put("/api/RecommendationRequest/done?neededBefore=2024-04-01T17:50:00&professorEmail=phtcon@ucsb.edu&requesterEmail=cgaucho@ucsb.edu")
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(recommendationRequestRepository, times(1)).updateDoneWhere(true, cutoff, "phtcon@ucsb.edu", "cgaucho@ucsb.edu");
+            verify(recommendationRequestRepository, never()).save(any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("12 recommendation requests marked done", json.get("message"));
+            assertEquals(12, json.get("count"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void bulk_mark_recommendation_requests_done_defaults_to_everything_before_now() throws Exception {
+            // arrange
+
+            LocalDateTime start = LocalDateTime.now();
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            put("/api/RecommendationRequest/done?done=false")
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(recommendationRequestRepository, times(1)).updateDoneWhere(eq(false), cutoff.capture(), isNull(), isNull());
+            assertFalse(cutoff.getValue().isBefore(start));
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("0 recommendation requests marked not done", json.get("message"));
+    }
+
+    // Tests for PATCH /api/RecommendationRequest?id=...
+
+    @Test
+    public void logged_out_users_cannot_patch() throws Exception {
+            mockMvc.perform(patch("/api/RecommendationRequest?id=67"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_patch() throws Exception {
+            mockMvc.perform(patch("/api/RecommendationRequest?id=67"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_patch_some_fields_of_an_existing_recommendationrequest() throws Exception {
+            // arrange
+
+            RecommendationRequest stored = RecommendationRequest.builder()
+                                    .id(67L)
+                                    .requesterEmail("patch@ucsb.edu")
+                                    .professorEmail("prof@ucsb.edu")
+                                    .explanation("patched in place")
+                                    .dateRequested(LocalDateTime.parse("2023-01-03T00:00:00"))
+                                    .dateNeeded(LocalDateTime.parse("2023-02-03T00:00:00"))
+                                    .done(true)
+                                    .build();
+
+            String requestBody = mapper.writeValueAsString(Map.of("requesterEmail", "patch@ucsb.edu"));
+
+            when(partialUpdateService.patch(eq(RecommendationRequest.class), eq(67L), isNull(), any())).thenReturn(stored);
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            patch("/api/RecommendationRequest?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            ArgumentCaptor<JsonNode> body = ArgumentCaptor.forClass(JsonNode.class);
+            verify(partialUpdateService, times(1)).patch(eq(RecommendationRequest.class), eq(67L), isNull(), body.capture());
+            assertEquals(mapper.readTree(requestBody), body.getValue());
+            verify(recommendationRequestRepository, never()).save(any());
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(mapper.writeValueAsString(stored), responseString);
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_cannot_patch_recommendationrequest_that_does_not_exist() throws Exception {
+            // arrange
+
+            String requestBody = mapper.writeValueAsString(Map.of("requesterEmail", "patch@ucsb.edu"));
+
+            when(partialUpdateService.patch(eq(RecommendationRequest.class), eq(67L), isNull(), any()))
+                            .thenThrow(new EntityNotFoundException(RecommendationRequest.class, 67L));
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            patch("/api/RecommendationRequest?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isNotFound()).andReturn();
+
+            // assert
+            verify(partialUpdateService, times(1)).patch(eq(RecommendationRequest.class), eq(67L), isNull(), any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("RecommendationRequest with id 67 not found", json.get("message"));
+    }
 }
@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.RetentionProgress;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.RetentionService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@WebMvcTest(controllers = RetentionController.class)
+@Import(TestConfig.class)
+public class RetentionControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  RetentionService retentionService;
+
+  @Test
+  public void retention__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/retention"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void retention__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/retention"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void retention__admin_logged_in() throws Exception {
+
+    // arrange
+
+    List<RetentionProgress> expected = List.of(
+        RetentionProgress.builder()
+            .policy("help-requests").node("web.1").action("archive").retentionDays(180).state("running")
+            .cutoff(LocalDateTime.parse("2023-11-16T04:00:00"))
+            .startedAt(LocalDateTime.parse("2024-05-14T04:00:00"))
+            .batches(3).rows(1500).lastId(4711)
+            .build(),
+        RetentionProgress.builder()
+            .policy("menu-item-reviews").action("delete").retentionDays(0).state("disabled")
+            .build());
+    when(retentionService.progress()).thenReturn(expected);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/retention"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(retentionService, times(1)).progress();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+}
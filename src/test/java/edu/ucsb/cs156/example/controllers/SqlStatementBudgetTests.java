@@ -0,0 +1,391 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static edu.ucsb.cs156.example.testconfig.SqlStatementCounting.sqlStatements;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import edu.ucsb.cs156.example.IntegrationTestCase;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+// How many SQL statements each endpoint may send per request.  When a
+// change needs more, raise the budget here in the same commit so the extra
+// round trip is visible in review.
+
+@WithMockUser(roles = { "ADMIN", "USER" })
+public class SqlStatementBudgetTests extends IntegrationTestCase {
+
+  static final LocalDateTime LDT = LocalDateTime.parse("2022-01-03T00:00:00");
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  Articles article;
+  UCSBDate date;
+
+  @BeforeEach
+  void rows() {
+    article = articlesRepository.save(Articles.builder().title("title").url("https://example.org")
+        .explanation("explanation").email("cgaucho@ucsb.edu").dateAdded(LDT).build());
+    date = ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ("20221").name("firstDayOfClasses")
+        .localDateTime(LDT).build());
+  }
+
+  @Test
+  public void articles_all_is_one_select() throws Exception {
+    mockMvc.perform(get("/api/Articles/all"))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void articles_get_by_id_is_one_select() throws Exception {
+    mockMvc.perform(get("/api/Articles?id=" + article.getId()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void articles_post_is_one_insert() throws Exception {
+    mockMvc.perform(post("/api/Articles/post?title=t&url=u&explanation=e&email=a@ucsb.edu&dateAdded=2022-01-03T00:00:00")
+        .with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void articles_put_is_one_select_and_one_update() throws Exception {
+    article.setTitle("new title");
+    mockMvc.perform(put("/api/Articles?id=" + article.getId()).with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(article)))
+        .andExpect(status().isOk()).andExpect(sqlStatements(2));
+  }
+
+  @Test
+  public void articles_patch_is_one_update_and_one_select() throws Exception {
+    mockMvc.perform(patch("/api/Articles?id=" + article.getId()).with(csrf())
+        .header("If-Match", "\"" + article.getVersion() + "\"")
+        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"new title\"}"))
+        .andExpect(status().isOk()).andExpect(jsonPath("$.url").value("https://example.org"))
+        .andExpect(sqlStatements(2));
+  }
+
+  @Test
+  public void articles_delete_is_one_delete() throws Exception {
+    mockMvc.perform(delete("/api/Articles?id=" + article.getId()).with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void helprequest_get_by_id_is_one_select() throws Exception {
+    HelpRequest helpRequest = helpRequest("budget-get", false, LDT);
+
+    mockMvc.perform(get("/api/HelpRequest?id=" + helpRequest.getId()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void helprequest_post_is_one_insert() throws Exception {
+    mockMvc.perform(post("/api/HelpRequest/post?requesterEmail=cgaucho@ucsb.edu&teamId=s22-5pm-3"
+        + "&tableOrBreakoutRoom=budget-post&requestTime=2022-01-03T00:00:00&explanation=e&solved=false")
+        .with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void helprequest_put_with_if_match_is_one_select_and_one_update() throws Exception {
+    HelpRequest helpRequest = helpRequest("budget-put", false, LDT);
+    helpRequest.setExplanation("new explanation");
+
+    mockMvc.perform(put("/api/HelpRequest?id=" + helpRequest.getId()).with(csrf())
+        .header("If-Match", "\"" + helpRequest.getVersion() + "\"")
+        .contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(helpRequest)))
+        .andExpect(status().isOk()).andExpect(sqlStatements(2));
+  }
+
+  @Test
+  public void helprequest_patch_is_one_update_and_one_select() throws Exception {
+    HelpRequest helpRequest = helpRequest("budget-patch", false, LDT);
+
+    mockMvc.perform(patch("/api/HelpRequest?id=" + helpRequest.getId()).with(csrf())
+        .header("If-Match", "\"" + helpRequest.getVersion() + "\"")
+        .contentType(MediaType.APPLICATION_JSON).content("{\"solved\":true}"))
+        .andExpect(status().isOk()).andExpect(jsonPath("$.solved").value(true))
+        .andExpect(sqlStatements(2));
+  }
+
+  @Test
+  public void helprequest_delete_is_one_delete() throws Exception {
+    HelpRequest helpRequest = helpRequest("budget-delete", false, LDT);
+
+    mockMvc.perform(delete("/api/HelpRequest?id=" + helpRequest.getId()).with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void helprequest_mark_solved_is_one_update() throws Exception {
+    HelpRequest open1 = helpRequest("budget-solved", false, LDT);
+    HelpRequest open2 = helpRequest("budget-solved", false, LDT.plusHours(1));
+    helpRequest("budget-solved", true, LDT);
+    HelpRequest later = helpRequest("budget-solved", false, LDT.plusDays(7));
+    HelpRequest otherRoom = helpRequest("budget-solved-other", false, LDT);
+
+    mockMvc.perform(put("/api/HelpRequest/solved?before=2022-01-04T00:00:00&tableOrBreakoutRoom=budget-solved")
+        .with(csrf()))
+        .andExpect(status().isOk()).andExpect(jsonPath("$.count").value(2))
+        .andExpect(sqlStatements(1));
+
+    assertTrue(helpRequestRepository.findById(open1.getId()).get().getSolved());
+    assertTrue(helpRequestRepository.findById(open2.getId()).get().getSolved());
+    assertFalse(helpRequestRepository.findById(later.getId()).get().getSolved());
+    assertFalse(helpRequestRepository.findById(otherRoom.getId()).get().getSolved());
+  }
+
+  @Test
+  public void recommendationrequest_mark_done_is_one_update() throws Exception {
+    RecommendationRequest open1 = recommendationRequest("budget-done@ucsb.edu", false, LDT);
+    RecommendationRequest open2 = recommendationRequest("budget-done@ucsb.edu", false, LDT.plusHours(1));
+    recommendationRequest("budget-done@ucsb.edu", true, LDT);
+    RecommendationRequest later = recommendationRequest("budget-done@ucsb.edu", false, LDT.plusDays(7));
+    RecommendationRequest otherProfessor = recommendationRequest("budget-done-other@ucsb.edu", false, LDT);
+
+    mockMvc.perform(put("/api/RecommendationRequest/done?neededBefore=2022-01-04T00:00:00"
+        + "&professorEmail=budget-done@ucsb.edu")
+        .with(csrf()))
+        .andExpect(status().isOk()).andExpect(jsonPath("$.count").value(2))
+        .andExpect(sqlStatements(1));
+
+    assertTrue(recommendationRequestRepository.findById(open1.getId()).get().getDone());
+    assertTrue(recommendationRequestRepository.findById(open2.getId()).get().getDone());
+    assertFalse(recommendationRequestRepository.findById(later.getId()).get().getDone());
+    assertFalse(recommendationRequestRepository.findById(otherProfessor.getId()).get().getDone());
+  }
+
+  @Test
+  public void recommendationrequest_patch_is_one_update_and_one_select() throws Exception {
+    RecommendationRequest request = recommendationRequest("budget-patch@ucsb.edu", false, LDT);
+
+    mockMvc.perform(patch("/api/RecommendationRequest?id=" + request.getId()).with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"done\":true}"))
+        .andExpect(status().isOk()).andExpect(sqlStatements(2));
+  }
+
+  @Test
+  public void recommendationrequest_delete_is_one_delete() throws Exception {
+    RecommendationRequest request = recommendationRequest("budget-delete@ucsb.edu", false, LDT);
+
+    mockMvc.perform(delete("/api/RecommendationRequest?id=" + request.getId()).with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void ucsbdates_patch_is_one_update_and_one_select() throws Exception {
+    mockMvc.perform(patch("/api/ucsbdates?id=" + date.getId()).with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"lastDayOfClasses\"}"))
+        .andExpect(status().isOk()).andExpect(sqlStatements(2));
+  }
+
+  @Test
+  public void ucsbdates_delete_is_one_delete() throws Exception {
+    mockMvc.perform(delete("/api/ucsbdates?id=" + date.getId()).with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void ucsborganization_patch_is_one_update_and_one_select() throws Exception {
+    ucsbOrganizationRepository.save(UCSBOrganization.builder().orgCode("BUDGET-PATCH")
+        .orgTranslationShort("Budget").orgTranslation("Budget Club").inactive(false).build());
+
+    mockMvc.perform(patch("/api/UCSBOrganization?orgCode=BUDGET-PATCH").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"inactive\":true}"))
+        .andExpect(status().isOk()).andExpect(sqlStatements(2));
+  }
+
+  @Test
+  public void ucsborganization_delete_is_one_delete() throws Exception {
+    ucsbOrganizationRepository.save(UCSBOrganization.builder().orgCode("BUDGET-DELETE")
+        .orgTranslationShort("Budget").orgTranslation("Budget Club").inactive(false).build());
+
+    mockMvc.perform(delete("/api/UCSBOrganization?orgCode=BUDGET-DELETE").with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void ucsbdiningcommons_patch_is_one_update_and_one_select() throws Exception {
+    commons("budget-patch");
+
+    mockMvc.perform(patch("/api/ucsbdiningcommons?code=budget-patch").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"hasSackMeal\":true}"))
+        .andExpect(status().isOk()).andExpect(sqlStatements(2));
+  }
+
+  @Test
+  public void ucsbdiningcommons_delete_is_one_delete() throws Exception {
+    commons("budget-delete");
+
+    mockMvc.perform(delete("/api/ucsbdiningcommons?code=budget-delete").with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void menuitem_patch_is_one_update_and_one_select() throws Exception {
+    UCSBDiningCommonsMenuItem item = menuItem(commons("budget-item-patch"));
+
+    mockMvc.perform(patch("/api/UCSBDiningCommonsMenuItem?id=" + item.getId()).with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"station\":\"grill\"}"))
+        .andExpect(status().isOk()).andExpect(sqlStatements(2));
+  }
+
+  @Test
+  public void menuitem_delete_is_one_delete() throws Exception {
+    UCSBDiningCommonsMenuItem item = menuItem(commons("budget-item-delete"));
+
+    mockMvc.perform(delete("/api/UCSBDiningCommonsMenuItem?id=" + item.getId()).with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void menuitemreview_post_is_one_insert() throws Exception {
+    UCSBDiningCommonsMenuItem item = menuItem(commons("budget-review-post"));
+
+    mockMvc.perform(post("/api/MenuItemReview/post?itemId=" + item.getId()
+        + "&reviewerEmail=cgaucho@ucsb.edu&stars=5&dateReviewed=2022-01-03T00:00:00&comments=ok")
+        .with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void menuitemreview_patch_is_one_update_and_one_select() throws Exception {
+    MenuItemReview review = review(menuItem(commons("budget-review-patch")));
+
+    mockMvc.perform(patch("/api/MenuItemReview?id=" + review.getId()).with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"stars\":1}"))
+        .andExpect(status().isOk()).andExpect(sqlStatements(2));
+  }
+
+  @Test
+  public void menuitemreview_delete_is_one_delete() throws Exception {
+    MenuItemReview review = review(menuItem(commons("budget-review-delete")));
+
+    mockMvc.perform(delete("/api/MenuItemReview?id=" + review.getId()).with(csrf()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void ucsbdates_all_is_one_select() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/all"))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void ucsbdates_get_by_id_is_one_select() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates?id=" + date.getId()))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void dining_menu_is_one_select() throws Exception {
+    ucsbDiningCommonsRepository.save(UCSBDiningCommons.builder().code("ortega").name("Ortega")
+        .hasSackMeal(true).hasTakeOutMeal(true).hasDiningCam(true).latitude(34.410987).longitude(-119.84709).build());
+
+    mockMvc.perform(get("/api/ucsbdiningcommons/menu?code=ortega"))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void commons_reviews_with_items_is_one_select() throws Exception {
+    ucsbDiningCommonsRepository.save(UCSBDiningCommons.builder().code("de-la-guerra").name("De La Guerra")
+        .hasSackMeal(false).hasTakeOutMeal(false).hasDiningCam(true).latitude(34.409811).longitude(-119.845026).build());
+    for (int i = 0; i < 5; i++) {
+      UCSBDiningCommonsMenuItem item = ucsbDiningCommonsMenuItemRepository.save(UCSBDiningCommonsMenuItem.builder()
+          .diningCommonsCode("de-la-guerra").name("item " + i).station("station " + i % 2).build());
+      menuItemReviewRepository.save(MenuItemReview.builder().itemId(item.getId()).reviewerEmail("cgaucho@ucsb.edu")
+          .stars(1 + i).dateReviewed(LDT.plusDays(i)).comments("ok").build());
+    }
+
+    mockMvc.perform(get("/api/MenuItemReview/commons?code=de-la-guerra"))
+        .andExpect(status().isOk()).andExpect(jsonPath("$[4].itemName").exists())
+        .andExpect(sqlStatements(1));
+  }
+
+  @Test
+  public void admin_users_page_is_one_select() throws Exception {
+    mockMvc.perform(get("/api/admin/users"))
+        .andExpect(status().isOk()).andExpect(sqlStatements(1));
+  }
+
+  HelpRequest helpRequest(String room, boolean solved, LocalDateTime requestTime) {
+    return helpRequestRepository.save(HelpRequest.builder().requesterEmail("cgaucho@ucsb.edu").teamId("s22-5pm-3")
+        .tableOrBreakoutRoom(room).requestTime(requestTime).explanation("explanation").solved(solved).build());
+  }
+
+  RecommendationRequest recommendationRequest(String professorEmail, boolean done, LocalDateTime dateNeeded) {
+    return recommendationRequestRepository.save(RecommendationRequest.builder().requesterEmail("cgaucho@ucsb.edu")
+        .professorEmail(professorEmail).explanation("explanation").dateRequested(LDT).dateNeeded(dateNeeded)
+        .done(done).build());
+  }
+
+  String commons(String code) {
+    ucsbDiningCommonsRepository.save(UCSBDiningCommons.builder().code(code).name(code)
+        .hasSackMeal(false).hasTakeOutMeal(false).hasDiningCam(false).latitude(34.41).longitude(-119.85).build());
+    return code;
+  }
+
+  UCSBDiningCommonsMenuItem menuItem(String commonsCode) {
+    return ucsbDiningCommonsMenuItemRepository.save(UCSBDiningCommonsMenuItem.builder()
+        .diningCommonsCode(commonsCode).name("item").station("station").build());
+  }
+
+  MenuItemReview review(UCSBDiningCommonsMenuItem item) {
+    return menuItemReviewRepository.save(MenuItemReview.builder().itemId(item.getId())
+        .reviewerEmail("cgaucho@ucsb.edu").stars(3).dateReviewed(LDT).comments("ok").build());
+  }
+}
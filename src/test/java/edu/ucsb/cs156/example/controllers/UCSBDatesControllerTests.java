@@ -4,16 +4,28 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.UCSBDateSummary;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
+import edu.ucsb.cs156.example.services.SingleFlight;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
@@ -28,6 +40,8 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,9 +53,18 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
         @MockBean
         UCSBDateRepository ucsbDateRepository;
 
+        @MockBean
+        ListingService listingService;
+
+        @SpyBean
+        SingleFlight singleFlight;
+
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        PartialUpdateService partialUpdateService;
+
         // Tests for GET /api/ucsbdates/all
         
         @Test
@@ -81,7 +104,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 ArrayList<UCSBDate> expectedDates = new ArrayList<>();
                 expectedDates.addAll(Arrays.asList(ucsbDate1, ucsbDate2));
 
-                when(ucsbDateRepository.findAll()).thenReturn(expectedDates);
+                when(listingService.allUCSBDates()).thenReturn(mapper.convertValue(expectedDates, new TypeReference<List<UCSBDateSummary>>() {}));
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/ucsbdates/all"))
@@ -89,12 +112,72 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(ucsbDateRepository, times(1)).findAll();
+                verify(listingService, times(1)).allUCSBDates();
+                verify(singleFlight, times(1)).run(eq("ucsbdates/all"), any());
                 String expectedJson = mapper.writeValueAsString(expectedDates);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_all_ucsbdates_as_smile() throws Exception {
+
+                // arrange
+                UCSBDate ucsbDate1 = UCSBDate.builder()
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                List<UCSBDateSummary> expectedDates = mapper.convertValue(List.of(ucsbDate1),
+                                new TypeReference<List<UCSBDateSummary>>() {});
+                when(listingService.allUCSBDates()).thenReturn(expectedDates);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all")
+                                .header("Accept", "application/x-jackson-smile, application/json;q=0.5"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(ApiController.APPLICATION_SMILE_VALUE))
+                                .andReturn();
+
+                // assert
+                verify(singleFlight, never()).run(any(), any());
+                List<UCSBDateSummary> decoded = Jackson2ObjectMapperBuilder.smile().build().readValue(
+                                response.getResponse().getContentAsByteArray(),
+                                new TypeReference<List<UCSBDateSummary>>() {});
+                assertEquals(expectedDates, decoded);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void json_ranked_above_cbor_gets_the_shared_json_buffer() throws Exception {
+
+                // arrange
+                when(listingService.allUCSBDates()).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all")
+                                .header("Accept", "application/cbor;q=0.5, application/json"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                                .andReturn();
+
+                // assert
+                verify(singleFlight, times(1)).run(eq("ucsbdates/all"), any());
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void prefers_binary_only_when_cbor_or_smile_outranks_json() {
+                assertEquals(false, ApiController.prefersBinary(null));
+                assertEquals(false, ApiController.prefersBinary("*/*"));
+                assertEquals(false, ApiController.prefersBinary("text/plain"));
+                assertEquals(false, ApiController.prefersBinary("application/cbor;q=0.1, application/*"));
+                assertEquals(true, ApiController.prefersBinary("text/plain, application/cbor;q=0.9, */*;q=0.1"));
+                assertEquals(true, ApiController.prefersBinary("application/x-jackson-smile"));
+        }
+
         // Tests for POST /api/ucsbdates/post...
 
         @Test
@@ -133,6 +216,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(ucsbDateRepository, times(1)).save(ucsbDate1);
+                verify(singleFlight, times(1)).forget("ucsbdates/all");
                 String expectedJson = mapper.writeValueAsString(ucsbDate1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -209,7 +293,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .localDateTime(ldt1)
                                 .build();
 
-                when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.of(ucsbDate1));
+                when(ucsbDateRepository.deleteByIdReturningCount(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -218,8 +302,8 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(15L);
-                verify(ucsbDateRepository, times(1)).delete(any());
+                verify(ucsbDateRepository, times(1)).deleteByIdReturningCount(15L);
+                verify(singleFlight, times(1)).forget("ucsbdates/all");
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 15 deleted", json.get("message"));
@@ -231,7 +315,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(ucsbDateRepository.deleteByIdReturningCount(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -240,7 +324,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(15L);
+                verify(ucsbDateRepository, times(1)).deleteByIdReturningCount(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 15 not found", json.get("message"));
         }
@@ -283,6 +367,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 // assert
                 verify(ucsbDateRepository, times(1)).findById(67L);
                 verify(ucsbDateRepository, times(1)).save(ucsbDateEdited); // should be saved with correct user
+                verify(singleFlight, times(1)).forget("ucsbdates/all");
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -320,4 +405,79 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for PATCH /api/ucsbdates?id=...
+
+        @Test
+        public void logged_out_users_cannot_patch() throws Exception {
+                mockMvc.perform(patch("/api/ucsbdates?id=67"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_patch() throws Exception {
+                mockMvc.perform(patch("/api/ucsbdates?id=67"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_patch_some_fields_of_an_existing_ucsbdate() throws Exception {
+                // arrange
+
+                UCSBDate stored = UCSBDate.builder()
+                                        .id(67L)
+                                        .name("firstDayOfFestivus")
+                                        .quarterYYYYQ("20232")
+                                        .localDateTime(LocalDateTime.parse("2023-12-23T00:00:00"))
+                                        .build();
+
+                String requestBody = mapper.writeValueAsString(Map.of("name", "firstDayOfFestivus"));
+
+                when(partialUpdateService.patch(eq(UCSBDate.class), eq(67L), isNull(), any())).thenReturn(stored);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/ucsbdates?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                ArgumentCaptor<JsonNode> body = ArgumentCaptor.forClass(JsonNode.class);
+                verify(partialUpdateService, times(1)).patch(eq(UCSBDate.class), eq(67L), isNull(), body.capture());
+                assertEquals(mapper.readTree(requestBody), body.getValue());
+                verify(ucsbDateRepository, never()).save(any());
+                verify(singleFlight, times(1)).forget("ucsbdates/all");
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(mapper.writeValueAsString(stored), responseString);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_patch_ucsbdate_that_does_not_exist() throws Exception {
+                // arrange
+
+                String requestBody = mapper.writeValueAsString(Map.of("name", "firstDayOfFestivus"));
+
+                when(partialUpdateService.patch(eq(UCSBDate.class), eq(67L), isNull(), any()))
+                                .thenThrow(new EntityNotFoundException(UCSBDate.class, 67L));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/ucsbdates?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                verify(partialUpdateService, times(1)).patch(eq(UCSBDate.class), eq(67L), isNull(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("UCSBDate with id 67 not found", json.get("message"));
+        }
 }
@@ -4,16 +4,34 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.DiningMenu;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsSummary;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.CacheInvalidationBus;
+import edu.ucsb.cs156.example.services.DiningCommonsLocator;
+import edu.ucsb.cs156.example.services.DiningMenuService;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
+import edu.ucsb.cs156.example.services.SingleFlight;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
+
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
@@ -24,8 +42,14 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -37,9 +61,27 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         @MockBean
         UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+        @MockBean
+        ListingService listingService;
+
+        @SpyBean
+        SingleFlight singleFlight;
+
+        @MockBean
+        DiningCommonsLocator diningCommonsLocator;
+
+        @MockBean
+        DiningMenuService diningMenuService;
+
+        @MockBean
+        CacheInvalidationBus cacheInvalidationBus;
+
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        PartialUpdateService partialUpdateService;
+
         // Tests for GET /api/ucsbdiningcommons/all
 
         @Test
@@ -104,7 +146,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 ArrayList<UCSBDiningCommons> expectedCommons = new ArrayList<>();
                 expectedCommons.addAll(Arrays.asList(carrillo, dlg));
 
-                when(ucsbDiningCommonsRepository.findAll()).thenReturn(expectedCommons);
+                when(listingService.allDiningCommons()).thenReturn(mapper.convertValue(expectedCommons, new TypeReference<List<UCSBDiningCommonsSummary>>() {}));
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
@@ -112,12 +154,204 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(ucsbDiningCommonsRepository, times(1)).findAll();
+                verify(listingService, times(1)).allDiningCommons();
+                verify(singleFlight, times(1)).run(eq("ucsbdiningcommons/all"), any());
                 String expectedJson = mapper.writeValueAsString(expectedCommons);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_all_ucsbdiningcommons_as_cbor() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+                                .name("Carrillo")
+                                .code("carrillo")
+                                .hasDiningCam(true)
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .build();
+
+                List<UCSBDiningCommonsSummary> expectedCommons = mapper.convertValue(List.of(carrillo),
+                                new TypeReference<List<UCSBDiningCommonsSummary>>() {});
+                when(listingService.allDiningCommons()).thenReturn(expectedCommons);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all")
+                                .accept(MediaType.APPLICATION_CBOR))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                                .andReturn();
+
+                // assert
+
+                verify(singleFlight, never()).run(any(), any());
+                List<UCSBDiningCommonsSummary> decoded = Jackson2ObjectMapperBuilder.cbor().build().readValue(
+                                response.getResponse().getContentAsByteArray(),
+                                new TypeReference<List<UCSBDiningCommonsSummary>>() {});
+                assertEquals(expectedCommons, decoded);
+        }
+
+        // Tests for GET /api/ucsbdiningcommons/nearest
+
+        @Test
+        public void logged_out_users_cannot_get_nearest() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_nearest_commons_without_filters() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+                                .name("Carrillo")
+                                .code("carrillo")
+                                .hasSackMeal(false)
+                                .hasTakeOutMeal(false)
+                                .hasDiningCam(true)
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .build();
+
+                List<UCSBDiningCommons> expectedCommons = List.of(carrillo);
+
+                @SuppressWarnings("unchecked")
+                ArgumentCaptor<Predicate<UCSBDiningCommons>> filter = ArgumentCaptor.forClass(Predicate.class);
+                when(diningCommonsLocator.nearest(eq(34.41), eq(-119.85), eq(3), any())).thenReturn(expectedCommons);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(diningCommonsLocator, times(1)).nearest(eq(34.41), eq(-119.85), eq(3), filter.capture());
+                assertTrue(filter.getValue().test(carrillo));
+                String expectedJson = mapper.writeValueAsString(expectedCommons);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void nearest_commons_rejects_coordinates_out_of_range() throws Exception {
+                for (String query : List.of("lat=90.5&lon=-119.85", "lat=-91&lon=-119.85", "lat=NaN&lon=-119.85",
+                                "lat=34.41&lon=180.5", "lat=34.41&lon=-181")) {
+                        mockMvc.perform(get("/api/ucsbdiningcommons/nearest?" + query))
+                                        .andExpect(status().isBadRequest())
+                                        .andExpect(jsonPath("$.type").value("InvalidParameterException"));
+                }
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=91&lon=0"))
+                                .andExpect(jsonPath("$.message").value("lat must be between -90 and 90, got 91.0"));
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=0&lon=200"))
+                                .andExpect(jsonPath("$.message").value("lon must be between -180 and 180, got 200.0"));
+
+                verify(diningCommonsLocator, never()).nearest(anyDouble(), anyDouble(), anyInt(), any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void nearest_commons_accepts_the_edges_of_the_range() throws Exception {
+                when(diningCommonsLocator.nearest(anyDouble(), anyDouble(), eq(3), any())).thenReturn(List.of());
+
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=-90&lon=-180")).andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=90&lon=180")).andExpect(status().isOk());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void nearest_commons_filters_on_sack_meal_and_take_out_meal() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder()
+                                .code("ortega")
+                                .hasSackMeal(true)
+                                .hasTakeOutMeal(true)
+                                .build();
+                UCSBDiningCommons sackOnly = UCSBDiningCommons.builder()
+                                .code("sack-only")
+                                .hasSackMeal(true)
+                                .hasTakeOutMeal(false)
+                                .build();
+                UCSBDiningCommons takeOutOnly = UCSBDiningCommons.builder()
+                                .code("take-out-only")
+                                .hasSackMeal(false)
+                                .hasTakeOutMeal(true)
+                                .build();
+
+                @SuppressWarnings("unchecked")
+                ArgumentCaptor<Predicate<UCSBDiningCommons>> filter = ArgumentCaptor.forClass(Predicate.class);
+                when(diningCommonsLocator.nearest(eq(34.41), eq(-119.85), eq(1), any())).thenReturn(List.of(ortega));
+
+                // act
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85&k=1&hasSackMeal=true&hasTakeOutMeal=true"))
+                                .andExpect(status().isOk());
+
+                // assert
+
+                verify(diningCommonsLocator, times(1)).nearest(eq(34.41), eq(-119.85), eq(1), filter.capture());
+                assertTrue(filter.getValue().test(ortega));
+                assertFalse(filter.getValue().test(sackOnly));
+                assertFalse(filter.getValue().test(takeOutOnly));
+        }
+
+        // Tests for GET /api/ucsbdiningcommons/menu?code=...
+
+        @Test
+        public void logged_out_users_cannot_get_menu() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/menu?code=ortega"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_menu_of_a_commons() throws Exception {
+
+                // arrange
+
+                DiningMenu menu = new DiningMenu(
+                                new UCSBDiningCommonsSummary("ortega", "Ortega", true, true, true, 34.410987, -119.84709),
+                                List.of(new DiningMenu.Station("Entrees", List.of(
+                                                new DiningMenu.Item(1, "Baked Pesto Pasta", 2, 4.5),
+                                                new DiningMenu.Item(2, "Tofu Banh Mi", 0, null)))));
+                when(diningMenuService.menu(eq("ortega"))).thenReturn(Optional.of(menu));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/menu?code=ortega"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(diningMenuService, times(1)).menu(eq("ortega"));
+                assertEquals(mapper.writeValueAsString(menu), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void menu_of_a_commons_that_does_not_exist_is_not_found() throws Exception {
+
+                // arrange
+
+                when(diningMenuService.menu(eq("munger-hall"))).thenReturn(Optional.empty());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/menu?code=munger-hall"))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("EntityNotFoundException", json.get("type"));
+                assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
+        }
+
         // Tests for POST /api/ucsbdiningcommons...
 
         @Test
@@ -158,6 +392,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(ucsbDiningCommonsRepository, times(1)).save(ortega);
+                verify(cacheInvalidationBus, times(1)).publish(UCSBDiningCommons.class, "ortega");
+                verify(singleFlight, times(1)).forget("ucsbdiningcommons/all");
                 String expectedJson = mapper.writeValueAsString(ortega);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -219,7 +455,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .longitude(-119.867427)
                                 .build();
 
-                when(ucsbDiningCommonsRepository.findById(eq("portola"))).thenReturn(Optional.of(portola));
+                when(ucsbDiningCommonsRepository.deleteByIdReturningCount(eq("portola"))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -228,8 +464,9 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
-                verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+                verify(ucsbDiningCommonsRepository, times(1)).deleteByIdReturningCount("portola");
+                verify(cacheInvalidationBus, times(1)).publish(UCSBDiningCommons.class, "portola");
+                verify(singleFlight, times(1)).forget("ucsbdiningcommons/all");
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
@@ -241,7 +478,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsRepository.deleteByIdReturningCount(eq("munger-hall"))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -250,7 +487,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+                verify(ucsbDiningCommonsRepository, times(1)).deleteByIdReturningCount("munger-hall");
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
         }
@@ -298,6 +535,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 // assert
                 verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
                 verify(ucsbDiningCommonsRepository, times(1)).save(carrilloEdited); // should be saved with updated info
+                verify(cacheInvalidationBus, times(1)).publish(UCSBDiningCommons.class, "carrillo");
+                verify(singleFlight, times(1)).forget("ucsbdiningcommons/all");
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -337,4 +576,84 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
 
         }
+
+        // Tests for PATCH /api/ucsbdiningcommons?code=...
+
+        @Test
+        public void logged_out_users_cannot_patch() throws Exception {
+                mockMvc.perform(patch("/api/ucsbdiningcommons?code=carrillo"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_patch() throws Exception {
+                mockMvc.perform(patch("/api/ucsbdiningcommons?code=carrillo"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_patch_some_fields_of_an_existing_ucsbdiningcommons() throws Exception {
+                // arrange
+
+                UCSBDiningCommons stored = UCSBDiningCommons.builder()
+                                        .code("carrillo")
+                                        .name("Carrillo Patched")
+                                        .hasSackMeal(true)
+                                        .hasTakeOutMeal(true)
+                                        .hasDiningCam(false)
+                                        .latitude(34.409953)
+                                        .longitude(-119.85277)
+                                        .build();
+
+                String requestBody = mapper.writeValueAsString(Map.of("name", "Carrillo Patched"));
+
+                when(partialUpdateService.patch(eq(UCSBDiningCommons.class), eq("carrillo"), isNull(), any())).thenReturn(stored);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/ucsbdiningcommons?code=carrillo")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                ArgumentCaptor<JsonNode> body = ArgumentCaptor.forClass(JsonNode.class);
+                verify(partialUpdateService, times(1)).patch(eq(UCSBDiningCommons.class), eq("carrillo"), isNull(), body.capture());
+                assertEquals(mapper.readTree(requestBody), body.getValue());
+                verify(ucsbDiningCommonsRepository, never()).save(any());
+                verify(cacheInvalidationBus, times(1)).publish(UCSBDiningCommons.class, "carrillo");
+                verify(singleFlight, times(1)).forget("ucsbdiningcommons/all");
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(mapper.writeValueAsString(stored), responseString);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_patch_ucsbdiningcommons_that_does_not_exist() throws Exception {
+                // arrange
+
+                String requestBody = mapper.writeValueAsString(Map.of("name", "Carrillo Patched"));
+
+                when(partialUpdateService.patch(eq(UCSBDiningCommons.class), eq("carrillo"), isNull(), any()))
+                                .thenThrow(new EntityNotFoundException(UCSBDiningCommons.class, "carrillo"));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/ucsbdiningcommons?code=carrillo")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                verify(partialUpdateService, times(1)).patch(eq(UCSBDiningCommons.class), eq("carrillo"), isNull(), any());
+                verify(cacheInvalidationBus, times(0)).publish(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("UCSBDiningCommons with id carrillo not found", json.get("message"));
+        }
 }
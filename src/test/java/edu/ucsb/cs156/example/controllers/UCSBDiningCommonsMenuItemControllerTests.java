@@ -4,13 +4,23 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsMenuItemSummary;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.CacheInvalidationBus;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -28,6 +38,8 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,9 +51,18 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
     @MockBean
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+    @MockBean
+    ListingService listingService;
+
+    @MockBean
+    CacheInvalidationBus cacheInvalidationBus;
+
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    PartialUpdateService partialUpdateService;
+
     // Tests for GET /api/ucsbdiningcommons/all
 
     @Test
@@ -76,7 +97,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
             ArrayList<UCSBDiningCommonsMenuItem> expectedItems = new ArrayList<>(Arrays.asList(item1, item2));
 
-            when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(expectedItems);
+            when(listingService.allDiningCommonsMenuItems()).thenReturn(mapper.convertValue(expectedItems, new TypeReference<List<UCSBDiningCommonsMenuItemSummary>>() {}));
 
             // act
             MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/all"))
@@ -84,7 +105,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
             // assert
 
-            verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAll();
+            verify(listingService, times(1)).allDiningCommonsMenuItems();
             String expectedJson = mapper.writeValueAsString(expectedItems);
             String responseString = response.getResponse().getContentAsString();
             assertEquals(expectedJson, responseString);
@@ -126,6 +147,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
             // assert
             verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(item1);
+            verify(cacheInvalidationBus, times(1)).publish(UCSBDiningCommonsMenuItem.class, 0L);
             String expectedJson = mapper.writeValueAsString(item1);
             String responseString = response.getResponse().getContentAsString();
             assertEquals(expectedJson, responseString);
@@ -218,6 +240,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 // assert
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(123L);
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(ucsbMenuItemEdited); // should be saved with correct user
+                verify(cacheInvalidationBus, times(1)).publish(UCSBDiningCommonsMenuItem.class, 123L);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -270,7 +293,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                     .station("roll")
                                     .build();
 
-                when(ucsbDiningCommonsMenuItemRepository.findById(eq(123L))).thenReturn(Optional.of(menuItem1));
+                when(ucsbDiningCommonsMenuItemRepository.deleteByIdReturningCount(eq(123L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -279,8 +302,8 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(123L);
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(any());
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).deleteByIdReturningCount(123L);
+                verify(cacheInvalidationBus, times(1)).publish(UCSBDiningCommonsMenuItem.class, 123L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItem with id 123 deleted", json.get("message"));
@@ -292,7 +315,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                         throws Exception {
                 // arrange
 
-                when(ucsbDiningCommonsMenuItemRepository.findById(eq(123L))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsMenuItemRepository.deleteByIdReturningCount(eq(123L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -301,9 +324,84 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(123L);
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).deleteByIdReturningCount(123L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItem with id 123 not found", json.get("message"));
         }
 
+    // Tests for PATCH /api/UCSBDiningCommonsMenuItem?id=...
+
+    @Test
+    public void logged_out_users_cannot_patch() throws Exception {
+            mockMvc.perform(patch("/api/UCSBDiningCommonsMenuItem?id=67"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_patch() throws Exception {
+            mockMvc.perform(patch("/api/UCSBDiningCommonsMenuItem?id=67"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_patch_some_fields_of_an_existing_ucsbdiningcommonsmenuitem() throws Exception {
+            // arrange
+
+            UCSBDiningCommonsMenuItem stored = UCSBDiningCommonsMenuItem.builder()
+                                    .id(67L)
+                                    .diningCommonsCode("ortega")
+                                    .name("Patched Pasta")
+                                    .station("Entrees")
+                                    .build();
+
+            String requestBody = mapper.writeValueAsString(Map.of("diningCommonsCode", "ortega"));
+
+            when(partialUpdateService.patch(eq(UCSBDiningCommonsMenuItem.class), eq(67L), isNull(), any())).thenReturn(stored);
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            patch("/api/UCSBDiningCommonsMenuItem?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            ArgumentCaptor<JsonNode> body = ArgumentCaptor.forClass(JsonNode.class);
+            verify(partialUpdateService, times(1)).patch(eq(UCSBDiningCommonsMenuItem.class), eq(67L), isNull(), body.capture());
+            assertEquals(mapper.readTree(requestBody), body.getValue());
+            verify(ucsbDiningCommonsMenuItemRepository, never()).save(any());
+            verify(cacheInvalidationBus, times(1)).publish(UCSBDiningCommonsMenuItem.class, 67L);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(mapper.writeValueAsString(stored), responseString);
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_cannot_patch_ucsbdiningcommonsmenuitem_that_does_not_exist() throws Exception {
+            // arrange
+
+            String requestBody = mapper.writeValueAsString(Map.of("diningCommonsCode", "ortega"));
+
+            when(partialUpdateService.patch(eq(UCSBDiningCommonsMenuItem.class), eq(67L), isNull(), any()))
+                            .thenThrow(new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, 67L));
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            patch("/api/UCSBDiningCommonsMenuItem?id=67")
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .characterEncoding("utf-8")
+                                            .content(requestBody)
+                                            .with(csrf()))
+                            .andExpect(status().isNotFound()).andReturn();
+
+            // assert
+            verify(partialUpdateService, times(1)).patch(eq(UCSBDiningCommonsMenuItem.class), eq(67L), isNull(), any());
+            verify(cacheInvalidationBus, times(0)).publish(any(), any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("UCSBDiningCommonsMenuItem with id 67 not found", json.get("message"));
+    }
 }
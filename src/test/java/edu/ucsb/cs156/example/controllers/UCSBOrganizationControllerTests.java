@@ -4,12 +4,22 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.UCSBOrganizationSummary;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.CacheInvalidationBus;
+import edu.ucsb.cs156.example.services.ListingService;
+import edu.ucsb.cs156.example.services.PartialUpdateService;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -26,6 +36,8 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -37,9 +49,18 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
         @MockBean
         UCSBOrganizationRepository ucsbOrganizationRepository;
 
+        @MockBean
+        ListingService listingService;
+
+        @MockBean
+        CacheInvalidationBus cacheInvalidationBus;
+
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        PartialUpdateService partialUpdateService;
+
         // Tests for GET /api/ucsbOrganization/all
 
         @Test
@@ -78,7 +99,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 ArrayList<UCSBOrganization> expectedOrganization = new ArrayList<>();
                 expectedOrganization.addAll(Arrays.asList(coder,data));
 
-                when(ucsbOrganizationRepository.findAll()).thenReturn(expectedOrganization);
+                when(listingService.allOrganizations()).thenReturn(mapper.convertValue(expectedOrganization, new TypeReference<List<UCSBOrganizationSummary>>() {}));
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/UCSBOrganization/all"))
@@ -86,7 +107,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(ucsbOrganizationRepository, times(1)).findAll();
+                verify(listingService, times(1)).allOrganizations();
                 String expectedJson = mapper.writeValueAsString(expectedOrganization);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -129,6 +150,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(ucsbOrganizationRepository, times(1)).save(gaucho);
+                verify(cacheInvalidationBus, times(1)).publish(UCSBOrganization.class, "GR");
                 String expectedJson = mapper.writeValueAsString(gaucho);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -189,6 +211,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 // assert
                 verify(ucsbOrganizationRepository, times(1)).findById("c");
                 verify(ucsbOrganizationRepository, times(1)).save(coderEdited); // should be saved with updated info
+                verify(cacheInvalidationBus, times(1)).publish(UCSBOrganization.class, "c");
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -264,7 +287,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                                 .inactive(true)
                                 .build();
 
-                when(ucsbOrganizationRepository.findById(eq("GR"))).thenReturn(Optional.of(gaucho));
+                when(ucsbOrganizationRepository.deleteByIdReturningCount(eq("GR"))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -273,8 +296,8 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbOrganizationRepository, times(1)).findById("GR");
-                verify(ucsbOrganizationRepository, times(1)).delete(any());
+                verify(ucsbOrganizationRepository, times(1)).deleteByIdReturningCount("GR");
+                verify(cacheInvalidationBus, times(1)).publish(UCSBOrganization.class, "GR");
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBOrganization with id GR deleted", json.get("message"));
@@ -285,18 +308,91 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
         public void admin_tries_to_delete_non_existant_commons_and_gets_right_error_message()
                         throws Exception {
                 // arrange
-                when(ucsbOrganizationRepository.findById(eq("www"))).thenReturn(Optional.empty());
+                when(ucsbOrganizationRepository.deleteByIdReturningCount(eq("www"))).thenReturn(0);
                 // act
                 MvcResult response = mockMvc.perform(
                                 delete("/api/UCSBOrganization?orgCode=www")
                                                 .with(csrf()))
                                 .andExpect(status().isNotFound()).andReturn();
                 // assert
-                verify(ucsbOrganizationRepository, times(1)).findById("www");
+                verify(ucsbOrganizationRepository, times(1)).deleteByIdReturningCount("www");
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBOrganization with id www not found", json.get("message"));
         }
-        
 
+        // Tests for PATCH /api/UCSBOrganization?orgCode=...
+
+        @Test
+        public void logged_out_users_cannot_patch() throws Exception {
+                mockMvc.perform(patch("/api/UCSBOrganization?orgCode=GR"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_patch() throws Exception {
+                mockMvc.perform(patch("/api/UCSBOrganization?orgCode=GR"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_patch_some_fields_of_an_existing_ucsborganization() throws Exception {
+                // arrange
+
+                UCSBOrganization stored = UCSBOrganization.builder()
+                                        .orgCode("GR")
+                                        .orgTranslationShort("GAUCHO RACING")
+                                        .orgTranslation("GAUCHO RACING CLUB")
+                                        .inactive(true)
+                                        .build();
+
+                String requestBody = mapper.writeValueAsString(Map.of("orgTranslationShort", "GAUCHO RACING"));
+
+                when(partialUpdateService.patch(eq(UCSBOrganization.class), eq("GR"), isNull(), any())).thenReturn(stored);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/UCSBOrganization?orgCode=GR")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                ArgumentCaptor<JsonNode> body = ArgumentCaptor.forClass(JsonNode.class);
+                verify(partialUpdateService, times(1)).patch(eq(UCSBOrganization.class), eq("GR"), isNull(), body.capture());
+                assertEquals(mapper.readTree(requestBody), body.getValue());
+                verify(ucsbOrganizationRepository, never()).save(any());
+                verify(cacheInvalidationBus, times(1)).publish(UCSBOrganization.class, "GR");
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(mapper.writeValueAsString(stored), responseString);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_patch_ucsborganization_that_does_not_exist() throws Exception {
+                // arrange
 
+                String requestBody = mapper.writeValueAsString(Map.of("orgTranslationShort", "GAUCHO RACING"));
+
+                when(partialUpdateService.patch(eq(UCSBOrganization.class), eq("GR"), isNull(), any()))
+                                .thenThrow(new EntityNotFoundException(UCSBOrganization.class, "GR"));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/UCSBOrganization?orgCode=GR")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                verify(partialUpdateService, times(1)).patch(eq(UCSBOrganization.class), eq("GR"), isNull(), any());
+                verify(cacheInvalidationBus, times(0)).publish(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("UCSBOrganization with id GR not found", json.get("message"));
+        }
 }
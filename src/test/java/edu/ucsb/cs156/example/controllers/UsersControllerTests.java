@@ -1,8 +1,10 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
-import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.UserSummary;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserListingService;
+import edu.ucsb.cs156.example.services.UserListingService.Filter;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
 import org.junit.jupiter.api.Test;
@@ -19,8 +21,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.List;
 
 @WebMvcTest(controllers = UsersController.class)
 @Import(TestConfig.class)
@@ -29,6 +30,9 @@ public class UsersControllerTests extends ControllerTestCase {
   @MockBean
   UserRepository userRepository;
 
+  @MockBean
+  UserListingService userListingService;
+
   @Test
   public void users__logged_out() throws Exception {
     mockMvc.perform(get("/api/admin/users"))
@@ -48,26 +52,55 @@ public class UsersControllerTests extends ControllerTestCase {
 
     // arrange
 
-    User u1 = User.builder().id(1L).build();
-    User u2 = User.builder().id(2L).build();
-    User u = currentUserService.getCurrentUser().getUser();
-
-    ArrayList<User> expectedUsers = new ArrayList<>();
-    expectedUsers.addAll(Arrays.asList(u1, u2, u));
-
-    when(userRepository.findAll()).thenReturn(expectedUsers);
+    List<UserSummary> expectedUsers = List.of(user(1), user(2));
+    when(userListingService.page(0, 1000, new Filter(null, null, null)))
+        .thenReturn(expectedUsers);
     String expectedJson = mapper.writeValueAsString(expectedUsers);
-    
+
     // act
 
     MvcResult response = mockMvc.perform(get("/api/admin/users"))
-        .andExpect(status().isOk()).andReturn();
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("Link"))
+        .andReturn();
 
     // assert
 
-    verify(userRepository, times(1)).findAll();
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__full_page_links_to_the_next_page() throws Exception {
+
+    // arrange
+
+    when(userListingService.page(5, 2, new Filter(true, "ucsb.edu", "cgaucho")))
+        .thenReturn(List.of(user(7), user(9)));
+
+    // act
+
+    mockMvc.perform(get("/api/admin/users?afterId=5&limit=2&admin=true&hostedDomain=ucsb.edu&emailPrefix=cgaucho"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Link",
+            "<http://localhost/api/admin/users?afterId=9&limit=2&admin=true&hostedDomain=ucsb.edu&emailPrefix=cgaucho>; rel=\"next\""))
+        .andExpect(jsonPath("$[1].id").value(9));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__limit_is_clamped() throws Exception {
+    mockMvc.perform(get("/api/admin/users?limit=5000")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/admin/users?limit=0")).andExpect(status().isOk());
+
+    Filter none = new Filter(null, null, null);
+    verify(userListingService, times(1)).page(0, 1000, none);
+    verify(userListingService, times(1)).page(0, 1, none);
+  }
 
+  private static UserSummary user(long id) {
+    return new UserSummary(id, "user" + id + "@ucsb.edu", "sub" + id, null, "User " + id, "User",
+        Long.toString(id), true, "en", "ucsb.edu", false);
   }
 }
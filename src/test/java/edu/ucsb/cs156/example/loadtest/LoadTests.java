@@ -0,0 +1,338 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.testconfig.FullApplication;
+import lombok.extern.slf4j.Slf4j;
+
+// Boots the whole application on a random port against a local database,
+// seeds it, and has USERS virtual users (one in ADMIN_EVERY is an admin,
+// the rest students) send a weighted mix of requests across every
+// controller for SECONDS after WARMUP_SECONDS.  Users are signed in with
+// SyntheticUsersConfig's header; writes carry a matching XSRF cookie and
+// header like the frontend does.  Rate limiting and scheduled jobs are off.
+//
+// Per operation it reports requests, errors, throughput and p50/p95/p99/max
+// latency, and writes them as CSV to REPORT so runs of two releases can be
+// diffed.  Everything is a system property, e.g.:
+//
+//   mvn -Pbenchmark test -Dtest=LoadTests -Dloadtest.users=64 -Dloadtest.seconds=120 \
+//     -Dloadtest.db-url=jdbc:postgresql://localhost:5432/loadtest -Dloadtest.db-user=postgres \
+//     -Dloadtest.report=target/load-test-v2.csv
+//
+// The default database is an in-memory H2.  A Postgres database must be
+// empty or disposable: the test seeds it and leaves its writes behind.
+
+@Slf4j
+@Tag("benchmark")
+class LoadTests {
+
+  static final int USERS = Integer.getInteger("loadtest.users", 32);
+  static final int ADMIN_EVERY = 8;
+  static final int SECONDS = Integer.getInteger("loadtest.seconds", 60);
+  static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup-seconds", 15);
+  static final String DB_URL = System.getProperty("loadtest.db-url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+  static final String DB_USER = System.getProperty("loadtest.db-user", "sa");
+  static final String DB_PASSWORD = System.getProperty("loadtest.db-password", "");
+  static final String REPORT = System.getProperty("loadtest.report", "target/load-test-report.csv");
+
+  static final String XSRF_TOKEN = "load-test-token";
+  static final LocalDateTime NOW = LocalDateTime.of(2024, 4, 1, 13, 0);
+
+  // seeded ids, for the GET-by-id operations
+  record Data(List<Long> dates, List<String> commons, List<Long> menuItems, List<String> organizations,
+      List<Long> helpRequests, List<Long> reviews, List<Long> recommendations, List<Long> articles) {
+  }
+
+  // one kind of request; path() builds a fresh path and query from the seeded ids
+  record Operation(String name, int weight, boolean admin, String method, Function<Data, String> path) {
+  }
+
+  static final List<Operation> MIX = List.of(
+      new Operation("GET currentUser", 10, false, "GET", d -> "/api/currentUser"),
+      new Operation("GET systemInfo", 2, false, "GET", d -> "/api/systemInfo"),
+      new Operation("GET ucsbdates/all", 6, false, "GET", d -> "/api/ucsbdates/all"),
+      new Operation("GET ucsbdates", 4, false, "GET", d -> "/api/ucsbdates?id=" + any(d.dates())),
+      new Operation("GET ucsbdiningcommons/all", 6, false, "GET", d -> "/api/ucsbdiningcommons/all"),
+      new Operation("GET ucsbdiningcommons/nearest", 4, false, "GET",
+          d -> "/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85&k=3"),
+      new Operation("GET UCSBDiningCommonsMenuItem/all", 6, false, "GET", d -> "/api/UCSBDiningCommonsMenuItem/all"),
+      new Operation("GET UCSBDiningCommonsMenuItem", 4, false, "GET",
+          d -> "/api/UCSBDiningCommonsMenuItem?id=" + any(d.menuItems())),
+      new Operation("GET UCSBOrganization/all", 4, false, "GET", d -> "/api/UCSBOrganization/all"),
+      new Operation("GET UCSBOrganization", 3, false, "GET",
+          d -> "/api/UCSBOrganization?orgCode=" + any(d.organizations())),
+      new Operation("GET autocomplete", 8, false, "GET",
+          d -> "/api/autocomplete?type=" + (random(2) == 0 ? "ORGANIZATION&prefix=org" : "MENUITEM&prefix=item")
+              + random(10)),
+      new Operation("GET HelpRequest/all", 6, false, "GET", d -> "/api/HelpRequest/all"),
+      new Operation("GET HelpRequest", 4, false, "GET", d -> "/api/HelpRequest?id=" + any(d.helpRequests())),
+      new Operation("GET MenuItemReview/all", 6, false, "GET", d -> "/api/MenuItemReview/all"),
+      new Operation("GET MenuItemReview", 4, false, "GET", d -> "/api/MenuItemReview?id=" + any(d.reviews())),
+      new Operation("GET RecommendationRequest/all", 4, false, "GET", d -> "/api/RecommendationRequest/all"),
+      new Operation("GET RecommendationRequest", 3, false, "GET",
+          d -> "/api/RecommendationRequest?id=" + any(d.recommendations())),
+      new Operation("GET Articles/all", 4, false, "GET", d -> "/api/Articles/all"),
+      new Operation("GET Articles", 3, false, "GET", d -> "/api/Articles?id=" + any(d.articles())),
+      new Operation("GET admin/users", 4, true, "GET", d -> "/api/admin/users?limit=100"),
+      new Operation("POST HelpRequest", 6, true, "POST",
+          d -> "/api/HelpRequest/post?requesterEmail=student%d@ucsb.edu&teamId=s24-6pm-%d&tableOrBreakoutRoom=table%d"
+              .formatted(random(500), random(8), random(10))
+              + "&requestTime=" + NOW.plusMinutes(random(10_000)) + "&explanation=stuck&solved=false"),
+      new Operation("PUT HelpRequest/solved", 2, true, "PUT",
+          d -> "/api/HelpRequest/solved?teamId=s24-6pm-" + random(8)),
+      new Operation("POST MenuItemReview", 6, true, "POST",
+          d -> "/api/MenuItemReview/post?itemId=%d&reviewerEmail=reviewer%d@ucsb.edu&stars=%d&comments=ok"
+              .formatted(any(d.menuItems()), random(500), 1 + random(5))
+              + "&dateReviewed=" + NOW.plusMinutes(random(10_000))),
+      new Operation("POST Articles", 3, true, "POST",
+          d -> "/api/Articles/post?title=t&url=https://example.org/%d&explanation=e&email=author%d@ucsb.edu"
+              .formatted(random(10_000), random(50))
+              + "&dateAdded=" + NOW.plusMinutes(random(10_000))));
+
+  // latencies in nanoseconds, and error count, per operation name
+  static final class Results {
+    final Map<String, List<Long>> latencies = new HashMap<>();
+    final Map<String, Integer> errors = new HashMap<>();
+
+    void add(Results other) {
+      other.latencies.forEach((name, l) -> latencies.computeIfAbsent(name, n -> new ArrayList<>()).addAll(l));
+      other.errors.forEach((name, e) -> errors.merge(name, e, Integer::sum));
+    }
+  }
+
+  @Test
+  void load_test_mixed_reads_and_writes() throws Exception {
+    try (ConfigurableApplicationContext context = FullApplication.builder(SyntheticUsersConfig.class)
+        .run(
+            "--server.port=0",
+            "--app.scheduling.enabled=false",
+            "--app.rate-limit.enabled=false",
+            "--spring.datasource.url=" + DB_URL,
+            "--spring.datasource.username=" + DB_USER,
+            "--spring.datasource.password=" + DB_PASSWORD,
+            "--spring.liquibase.url=" + DB_URL,
+            "--spring.liquibase.user=" + DB_USER,
+            "--spring.liquibase.password=" + DB_PASSWORD)) {
+      String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+      Data data = seed(context);
+
+      run(base, data, WARMUP_SECONDS);
+      Results results = run(base, data, SECONDS);
+
+      String report = report(results);
+      Path path = Path.of(REPORT);
+      Files.createDirectories(path.toAbsolutePath().getParent());
+      Files.writeString(path, report);
+      log.info("load test report ({}):\n{}", path, report);
+
+      assertEquals(0, results.errors.values().stream().mapToInt(Integer::intValue).sum(),
+          "requests failed; see " + path);
+    }
+  }
+
+  private static Results run(String base, Data data, int seconds) throws Exception {
+    long until = System.nanoTime() + seconds * 1_000_000_000L;
+    ExecutorService pool = Executors.newFixedThreadPool(USERS);
+    try {
+      List<Future<Results>> users = new ArrayList<>();
+      for (int u = 0; u < USERS; u++) {
+        String name = u % ADMIN_EVERY == 0 ? "admin" + u : "student" + u;
+        users.add(pool.submit(() -> user(base, data, name, until)));
+      }
+      Results results = new Results();
+      for (Future<Results> user : users) {
+        results.add(user.get());
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static Results user(String base, Data data, String name, long until) throws Exception {
+    boolean admin = name.startsWith("admin");
+    List<Operation> mix = MIX.stream().filter(o -> admin || !o.admin()).toList();
+    int totalWeight = mix.stream().mapToInt(Operation::weight).sum();
+    HttpClient client = HttpClient.newHttpClient();
+    Results results = new Results();
+
+    while (System.nanoTime() < until) {
+      Operation operation = pick(mix, random(totalWeight));
+      HttpRequest request = HttpRequest.newBuilder(URI.create(base + operation.path().apply(data)))
+          .method(operation.method(), HttpRequest.BodyPublishers.noBody())
+          .header(SyntheticUsersConfig.USER_HEADER, name)
+          .header("Cookie", "XSRF-TOKEN=" + XSRF_TOKEN)
+          .header("X-XSRF-TOKEN", XSRF_TOKEN)
+          .build();
+
+      long started = System.nanoTime();
+      int status;
+      try {
+        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+      } catch (IOException e) {
+        status = -1;
+      }
+      long elapsed = System.nanoTime() - started;
+
+      results.latencies.computeIfAbsent(operation.name(), n -> new ArrayList<>()).add(elapsed);
+      if (status < 200 || status >= 400) {
+        results.errors.merge(operation.name(), 1, Integer::sum);
+      }
+    }
+    return results;
+  }
+
+  private static Operation pick(List<Operation> mix, int roll) {
+    for (Operation operation : mix) {
+      roll -= operation.weight();
+      if (roll < 0) {
+        return operation;
+      }
+    }
+    throw new IllegalStateException("roll past total weight");
+  }
+
+  private static String report(Results results) {
+    StringBuilder csv = new StringBuilder()
+        .append("# users=%d admins=1/%d seconds=%d warmup=%d db=%s%n"
+            .formatted(USERS, ADMIN_EVERY, SECONDS, WARMUP_SECONDS, DB_URL.replaceAll(";.*", "")))
+        .append("operation,requests,errors,throughput_per_s,p50_ms,p95_ms,p99_ms,max_ms\n");
+
+    List<Long> all = new ArrayList<>();
+    int allErrors = 0;
+    for (Map.Entry<String, List<Long>> entry : new TreeMap<>(results.latencies).entrySet()) {
+      int errors = results.errors.getOrDefault(entry.getKey(), 0);
+      csv.append(row(entry.getKey(), entry.getValue(), errors));
+      all.addAll(entry.getValue());
+      allErrors += errors;
+    }
+    return csv.append(row("total", all, allErrors)).toString();
+  }
+
+  private static String row(String name, List<Long> latencies, int errors) {
+    long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+    return "%s,%d,%d,%.1f,%s,%s,%s,%s%n".formatted(name, sorted.length, errors, (double) sorted.length / SECONDS,
+        millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.95)), millis(percentile(sorted, 0.99)),
+        millis(sorted[sorted.length - 1]));
+  }
+
+  // nearest-rank
+  private static long percentile(long[] sorted, double p) {
+    return sorted[Math.max(0, (int) Math.ceil(p * sorted.length) - 1)];
+  }
+
+  private static String millis(long nanos) {
+    return "%.2f".formatted(nanos / 1e6);
+  }
+
+  private static int random(int bound) {
+    return ThreadLocalRandom.current().nextInt(bound);
+  }
+
+  private static <T> T any(List<T> values) {
+    return values.get(random(values.size()));
+  }
+
+  // roughly one quarter of one course's worth of data
+  private static Data seed(ConfigurableApplicationContext context) {
+    List<Long> dates = new ArrayList<>();
+    context.getBean(UCSBDateRepository.class).saveAll(range(50, i -> UCSBDate.builder()
+        .quarterYYYYQ("20241").name("date " + i).localDateTime(NOW.plusDays(i)).build()))
+        .forEach(d -> dates.add(d.getId()));
+
+    List<String> commons = new ArrayList<>();
+    context.getBean(UCSBDiningCommonsRepository.class).saveAll(range(8, i -> UCSBDiningCommons.builder()
+        .code("dc" + i).name("Dining Commons " + i).hasSackMeal(i % 2 == 0).hasTakeOutMeal(i % 3 == 0)
+        .hasDiningCam(true).latitude(34.40 + i * 0.005).longitude(-119.86 + i * 0.005).build()))
+        .forEach(c -> commons.add(c.getCode()));
+
+    List<Long> menuItems = new ArrayList<>();
+    context.getBean(UCSBDiningCommonsMenuItemRepository.class).saveAll(range(400, i -> UCSBDiningCommonsMenuItem
+        .builder().diningCommonsCode(commons.get(i % commons.size())).name("item " + i).station("station " + i % 6)
+        .build()))
+        .forEach(m -> menuItems.add(m.getId()));
+
+    List<String> organizations = new ArrayList<>();
+    context.getBean(UCSBOrganizationRepository.class).saveAll(range(100, i -> UCSBOrganization.builder()
+        .orgCode("ORG" + i).orgTranslationShort("org " + i).orgTranslation("Organization " + i)
+        .inactive(i % 10 == 0).build()))
+        .forEach(o -> organizations.add(o.getOrgCode()));
+
+    List<Long> helpRequests = new ArrayList<>();
+    context.getBean(HelpRequestRepository.class).saveAll(range(2_000, i -> HelpRequest.builder()
+        .requesterEmail("student" + i % 500 + "@ucsb.edu").teamId("s24-6pm-" + i % 8)
+        .tableOrBreakoutRoom("table" + i % 10).requestTime(NOW.plusMinutes(i)).explanation("help " + i)
+        .solved(i % 3 == 0).build()))
+        .forEach(h -> helpRequests.add(h.getId()));
+
+    List<Long> reviews = new ArrayList<>();
+    context.getBean(MenuItemReviewRepository.class).saveAll(range(2_000, i -> MenuItemReview.builder()
+        .itemId(menuItems.get(i % menuItems.size())).reviewerEmail("reviewer" + i % 500 + "@ucsb.edu")
+        .stars(1 + i % 5).dateReviewed(NOW.plusMinutes(i)).comments("review " + i).build()))
+        .forEach(r -> reviews.add(r.getId()));
+
+    List<Long> recommendations = new ArrayList<>();
+    context.getBean(RecommendationRequestRepository.class).saveAll(range(300, i -> RecommendationRequest.builder()
+        .requesterEmail("student" + i + "@ucsb.edu").professorEmail("prof" + i % 20 + "@ucsb.edu")
+        .explanation("grad school " + i).dateRequested(NOW).dateNeeded(NOW.plusDays(i % 60)).done(i % 4 == 0)
+        .build()))
+        .forEach(r -> recommendations.add(r.getId()));
+
+    List<Long> articles = new ArrayList<>();
+    context.getBean(ArticlesRepository.class).saveAll(range(200, i -> Articles.builder()
+        .title("article " + i).url("https://example.org/" + i).explanation("explanation " + i)
+        .email("author" + i % 50 + "@ucsb.edu").dateAdded(NOW.minusDays(i)).build()))
+        .forEach(a -> articles.add(a.getId()));
+
+    return new Data(dates, commons, menuItems, organizations, helpRequests, reviews, recommendations, articles);
+  }
+
+  private static <T> List<T> range(int n, Function<Integer, T> row) {
+    List<T> rows = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      rows.add(row.apply(i));
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.testconfig.MockCurrentUserServiceImpl;
+
+// Lets the load generator act as any number of signed-in users without
+// going through Google: a request with "X-Load-Test-User: student17" is
+// authenticated as that user (ROLE_USER, plus ROLE_ADMIN for names starting
+// with "admin") for the duration of the request.  The filter runs inside
+// the Spring Security chain, after the session's context has been loaded,
+// and MockCurrentUserServiceImpl turns the principal into a User.
+//
+// Only ever loaded by LoadTests, as an extra source of FullApplication.
+
+@Configuration
+public class SyntheticUsersConfig {
+
+  public static final String USER_HEADER = "X-Load-Test-User";
+
+  @Bean
+  @Primary
+  public CurrentUserService loadTestCurrentUserService() {
+    return new MockCurrentUserServiceImpl();
+  }
+
+  @Bean
+  public FilterRegistrationBean<OncePerRequestFilter> syntheticUserFilter() {
+    FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(
+        new OncePerRequestFilter() {
+          @Override
+          protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+              FilterChain chain) throws ServletException, IOException {
+            String name = request.getHeader(USER_HEADER);
+            if (name == null) {
+              chain.doFilter(request, response);
+              return;
+            }
+            List<GrantedAuthority> roles = name.startsWith("admin")
+                ? List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"))
+                : List.of(new SimpleGrantedAuthority("ROLE_USER"));
+            SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(new User(name, "", roles), null, roles));
+            try {
+              chain.doFilter(request, response);
+            } finally {
+              SecurityContextHolder.clearContext();
+            }
+          }
+        });
+    registration.addUrlPatterns("/api/*");
+    // inside the security chain (-100), ahead of RateLimitFilter
+    registration.setOrder(0);
+    return registration;
+  }
+}
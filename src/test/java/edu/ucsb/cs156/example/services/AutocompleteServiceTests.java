@@ -0,0 +1,113 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.Completion;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { AutocompleteService.class, InProcessCacheInvalidationBus.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AutocompleteServiceTests {
+
+  @MockBean
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @MockBean
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  AutocompleteService autocompleteService;
+
+  @Autowired
+  InProcessCacheInvalidationBus cacheInvalidationBus;
+
+  UCSBOrganization gaucho = UCSBOrganization.builder()
+      .orgCode("GR").orgTranslationShort("GauRadio").orgTranslation("Gaucho Radio").build();
+
+  UCSBOrganization zeta = UCSBOrganization.builder()
+      .orgCode("ZPZ").orgTranslationShort("ZetaPhiZeta").orgTranslation("Zeta Phi Zeta").build();
+
+  UCSBDiningCommonsMenuItem burrito = UCSBDiningCommonsMenuItem.builder()
+      .id(7L).name("Breakfast Burrito").diningCommonsCode("ortega").station("Entrees").build();
+
+  @Test
+  void test_organizations_are_loaded_once_and_kept_current() {
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(gaucho));
+
+    assertEquals(List.of(new Completion("GR", "GauRadio")),
+        autocompleteService.complete(AutocompleteService.Type.ORGANIZATION, "radio", 10));
+
+    when(ucsbOrganizationRepository.findById("ZPZ")).thenReturn(Optional.of(zeta));
+    cacheInvalidationBus.publish(UCSBOrganization.class, "ZPZ");
+    assertEquals(List.of(new Completion("ZPZ", "ZetaPhiZeta")),
+        autocompleteService.complete(AutocompleteService.Type.ORGANIZATION, "phi", 10));
+
+    when(ucsbOrganizationRepository.findById("GR")).thenReturn(Optional.empty());
+    cacheInvalidationBus.publish(UCSBOrganization.class, "GR");
+    assertTrue(autocompleteService.complete(AutocompleteService.Type.ORGANIZATION, "gau", 10).isEmpty());
+
+    verify(ucsbOrganizationRepository, times(1)).findAll();
+  }
+
+  @Test
+  void test_menu_items_are_loaded_once_and_kept_current() {
+    when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(List.of(burrito));
+
+    assertEquals(List.of(new Completion("7", "Breakfast Burrito")),
+        autocompleteService.complete(AutocompleteService.Type.MENUITEM, "bur", 10));
+
+    burrito.setName("Breakfast Sandwich");
+    when(ucsbDiningCommonsMenuItemRepository.findById(7L)).thenReturn(Optional.of(burrito));
+    cacheInvalidationBus.publish(UCSBDiningCommonsMenuItem.class, 7L);
+    assertTrue(autocompleteService.complete(AutocompleteService.Type.MENUITEM, "bur", 10).isEmpty());
+    assertEquals(List.of(new Completion("7", "Breakfast Sandwich")),
+        autocompleteService.complete(AutocompleteService.Type.MENUITEM, "sand", 10));
+
+    when(ucsbDiningCommonsMenuItemRepository.findById(7L)).thenReturn(Optional.empty());
+    cacheInvalidationBus.publish(UCSBDiningCommonsMenuItem.class, 7L);
+    assertTrue(autocompleteService.complete(AutocompleteService.Type.MENUITEM, "break", 10).isEmpty());
+
+    verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAll();
+  }
+
+  @Test
+  void test_changes_before_an_index_is_loaded_are_not_read() {
+    cacheInvalidationBus.publish(UCSBOrganization.class, "GR");
+
+    verify(ucsbOrganizationRepository, never()).findById(any());
+  }
+
+  @Test
+  void test_missed_changes_drop_the_index() {
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(gaucho));
+    autocompleteService.complete(AutocompleteService.Type.ORGANIZATION, "radio", 10);
+
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(gaucho, zeta));
+    cacheInvalidationBus.deliverAll();
+
+    assertEquals(List.of(new Completion("ZPZ", "ZetaPhiZeta")),
+        autocompleteService.complete(AutocompleteService.Type.ORGANIZATION, "phi", 10));
+    verify(ucsbOrganizationRepository, times(2)).findAll();
+  }
+}
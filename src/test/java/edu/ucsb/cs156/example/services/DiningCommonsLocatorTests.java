@@ -0,0 +1,201 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { DiningCommonsLocator.class, InProcessCacheInvalidationBus.class })
+class DiningCommonsLocatorTests {
+
+  @MockBean
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  DiningCommonsLocator diningCommonsLocator;
+
+  @Autowired
+  CacheInvalidationBus cacheInvalidationBus;
+
+  UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+      .code("carrillo").name("Carrillo")
+      .hasSackMeal(false).hasTakeOutMeal(false).hasDiningCam(true)
+      .latitude(34.409953).longitude(-119.85277).build();
+
+  UCSBDiningCommons dlg = UCSBDiningCommons.builder()
+      .code("de-la-guerra").name("De La Guerra")
+      .hasSackMeal(false).hasTakeOutMeal(false).hasDiningCam(true)
+      .latitude(34.409811).longitude(-119.845026).build();
+
+  UCSBDiningCommons ortega = UCSBDiningCommons.builder()
+      .code("ortega").name("Ortega")
+      .hasSackMeal(true).hasTakeOutMeal(true).hasDiningCam(true)
+      .latitude(34.410987).longitude(-119.84709).build();
+
+  UCSBDiningCommons portola = UCSBDiningCommons.builder()
+      .code("portola").name("Portola")
+      .hasSackMeal(true).hasTakeOutMeal(true).hasDiningCam(true)
+      .latitude(34.417723).longitude(-119.867427).build();
+
+  UCSBDiningCommons noLocation = UCSBDiningCommons.builder()
+      .code("no-location").name("No Location").build();
+
+  UCSBDiningCommons noLongitude = UCSBDiningCommons.builder()
+      .code("no-longitude").name("No Longitude").latitude(34.41).build();
+
+  @BeforeEach
+  void resetIndex() {
+    // the locator is a cached singleton across tests in this class
+    diningCommonsLocator.invalidate();
+  }
+
+  @Test
+  void test_nearest_returns_commons_in_distance_order() {
+    when(ucsbDiningCommonsRepository.findAll())
+        .thenReturn(List.of(portola, carrillo, ortega, dlg, noLocation, noLongitude));
+
+    // De La Guerra's own location
+    List<UCSBDiningCommons> result = diningCommonsLocator.nearest(34.409811, -119.845026, 3, c -> true);
+
+    assertEquals(List.of(dlg, ortega, carrillo), result);
+  }
+
+  @Test
+  void test_nearest_applies_filter() {
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(portola, carrillo, ortega, dlg));
+
+    List<UCSBDiningCommons> result = diningCommonsLocator.nearest(34.409811, -119.845026, 2,
+        UCSBDiningCommons::getHasSackMeal);
+
+    assertEquals(List.of(ortega, portola), result);
+  }
+
+  @Test
+  void test_nearest_returns_everything_when_k_exceeds_size() {
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(portola, carrillo));
+
+    List<UCSBDiningCommons> result = diningCommonsLocator.nearest(34.417723, -119.867427, 10, c -> true);
+
+    assertEquals(List.of(portola, carrillo), result);
+  }
+
+  @Test
+  void test_nearest_with_non_positive_k_or_empty_repository_is_empty() {
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of());
+    assertTrue(diningCommonsLocator.nearest(34.41, -119.85, 3, c -> true).isEmpty());
+
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo));
+    diningCommonsLocator.invalidate();
+    assertTrue(diningCommonsLocator.nearest(34.41, -119.85, 0, c -> true).isEmpty());
+  }
+
+  @Test
+  void test_index_is_only_rebuilt_after_invalidate() {
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo));
+
+    diningCommonsLocator.nearest(34.41, -119.85, 1, c -> true);
+    diningCommonsLocator.nearest(34.41, -119.85, 1, c -> true);
+    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo, dlg));
+    diningCommonsLocator.invalidate();
+
+    assertEquals(List.of(dlg), diningCommonsLocator.nearest(34.409811, -119.845026, 1, c -> true));
+    verify(ucsbDiningCommonsRepository, times(2)).findAll();
+  }
+
+  @Test
+  void test_index_is_rebuilt_after_a_dining_commons_change_is_published() {
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo));
+    diningCommonsLocator.nearest(34.41, -119.85, 1, c -> true);
+
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo, dlg));
+    cacheInvalidationBus.publish(UCSBDiningCommons.class, "de-la-guerra");
+
+    assertEquals(List.of(dlg), diningCommonsLocator.nearest(34.409811, -119.845026, 1, c -> true));
+    verify(ucsbDiningCommonsRepository, times(2)).findAll();
+  }
+
+  @Test
+  void test_a_failed_rebuild_is_retried_on_the_next_query() {
+    when(ucsbDiningCommonsRepository.findAll())
+        .thenThrow(new DataAccessResourceFailureException("database down"))
+        .thenReturn(List.of(carrillo));
+
+    assertThrows(DataAccessResourceFailureException.class,
+        () -> diningCommonsLocator.nearest(34.41, -119.85, 1, c -> true));
+
+    assertEquals(List.of(carrillo), diningCommonsLocator.nearest(34.41, -119.85, 1, c -> true));
+    verify(ucsbDiningCommonsRepository, times(2)).findAll();
+  }
+
+  @Test
+  void test_an_invalidation_during_a_rebuild_is_not_lost() {
+    when(ucsbDiningCommonsRepository.findAll())
+        .thenAnswer(call -> {
+          // a commons write lands while the first rebuild is reading
+          diningCommonsLocator.invalidate();
+          return List.of(carrillo);
+        })
+        .thenReturn(List.of(carrillo, dlg));
+
+    assertEquals(List.of(carrillo), diningCommonsLocator.nearest(34.409811, -119.845026, 1, c -> true));
+    assertEquals(List.of(dlg), diningCommonsLocator.nearest(34.409811, -119.845026, 1, c -> true));
+    verify(ucsbDiningCommonsRepository, times(2)).findAll();
+  }
+
+  @Test
+  void test_nearest_matches_brute_force_on_random_points() {
+    Random random = new Random(156);
+    List<UCSBDiningCommons> all = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      all.add(UCSBDiningCommons.builder()
+          .code("c" + i)
+          .hasSackMeal(random.nextBoolean())
+          .latitude(34.0 + random.nextDouble())
+          .longitude(-120.0 + random.nextDouble())
+          .build());
+    }
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(all);
+
+    for (int q = 0; q < 50; q++) {
+      double lat = 34.0 + random.nextDouble();
+      double lon = -120.0 + random.nextDouble();
+
+      List<UCSBDiningCommons> expected = all.stream()
+          .filter(UCSBDiningCommons::getHasSackMeal)
+          .sorted(Comparator.comparingDouble(c -> chordDistance(c, lat, lon)))
+          .limit(7)
+          .collect(Collectors.toList());
+
+      assertEquals(expected, diningCommonsLocator.nearest(lat, lon, 7, UCSBDiningCommons::getHasSackMeal));
+    }
+  }
+
+  private static double chordDistance(UCSBDiningCommons c, double lat, double lon) {
+    double[] a = DiningCommonsLocator.toPoint(c.getLatitude(), c.getLongitude());
+    double[] b = DiningCommonsLocator.toPoint(lat, lon);
+    return Math.sqrt((a[0] - b[0]) * (a[0] - b[0]) + (a[1] - b[1]) * (a[1] - b[1]) + (a[2] - b[2]) * (a[2] - b[2]));
+  }
+}
@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.example.models.DiningMenu;
+import edu.ucsb.cs156.example.models.DiningMenu.Item;
+import edu.ucsb.cs156.example.models.DiningMenu.Station;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsSummary;
+
+@JdbcTest
+@Import(DiningMenuService.class)
+class DiningMenuServiceTests {
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  DiningMenuService diningMenuService;
+
+  @BeforeEach
+  void menus() {
+    commons("ortega", "Ortega");
+    commons("carrillo", "Carrillo");
+    commons("munger-hall", "Munger Hall");
+
+    item(1, "ortega", "Tofu Banh Mi", "Entrees");
+    item(2, "ortega", "Baked Pesto Pasta", "Entrees");
+    item(3, "ortega", "Caesar Salad", "Salads");
+    item(4, "carrillo", "Chicken Caesar Salad", "Salads");
+
+    review(1, 5);
+    review(1, 4);
+    review(3, 2);
+    review(4, 1);
+  }
+
+  void commons(String code, String name) {
+    jdbcTemplate.update("""
+        insert into UCSBDININGCOMMONS (CODE, NAME, HAS_SACK_MEAL, HAS_TAKE_OUT_MEAL, HAS_DINING_CAM, LATITUDE, LONGITUDE)
+        values (?, ?, true, false, true, 34.41, -119.85)""", code, name);
+  }
+
+  void item(long id, String commons, String name, String station) {
+    jdbcTemplate.update("insert into UCSBDININGCOMMONSMENUITEM (ID, DINING_COMMONS_CODE, NAME, STATION) values (?, ?, ?, ?)",
+        id, commons, name, station);
+  }
+
+  void review(long itemId, int stars) {
+    jdbcTemplate.update("insert into MENUITEMREVIEW (ITEM_ID, REVIEWER_EMAIL, STARS, COMMENTS) values (?, 'cgaucho@ucsb.edu', ?, 'ok')",
+        itemId, stars);
+  }
+
+  @Test
+  void test_menu_groups_items_by_station_with_review_summaries() {
+    assertEquals(Optional.of(new DiningMenu(
+        new UCSBDiningCommonsSummary("ortega", "Ortega", true, false, true, 34.41, -119.85),
+        List.of(
+            new Station("Entrees", List.of(
+                new Item(2, "Baked Pesto Pasta", 0, null),
+                new Item(1, "Tofu Banh Mi", 2, 4.5))),
+            new Station("Salads", List.of(
+                new Item(3, "Caesar Salad", 1, 2.0)))))),
+        diningMenuService.menu("ortega"));
+  }
+
+  @Test
+  void test_commons_without_items_has_no_stations() {
+    assertEquals(List.of(), diningMenuService.menu("munger-hall").orElseThrow().stations());
+  }
+
+  @Test
+  void test_unknown_commons_is_empty() {
+    assertEquals(Optional.empty(), diningMenuService.menu("de-la-guerra"));
+  }
+}
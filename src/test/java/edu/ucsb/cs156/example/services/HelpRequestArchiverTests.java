@@ -0,0 +1,138 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { HelpRequestArchiver.class, InProcessJobLock.class })
+class HelpRequestArchiverTests {
+
+  @MockBean
+  HelpRequestRepository helpRequestRepository;
+
+  @MockBean
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @MockBean
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  HelpRequestArchiver helpRequestArchiver;
+
+  // May 14th 2024, i.e. spring quarter
+  LocalDateTime now = LocalDateTime.parse("2024-05-14T03:30:00");
+
+  @BeforeEach
+  void configure() {
+    helpRequestArchiver.batchSize = 2;
+    helpRequestArchiver.keepQuarters = 2;
+    helpRequestArchiver.partitioned = false;
+    helpRequestArchiver.clock = Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+  }
+
+  @Test
+  void test_cutoff_is_the_start_of_the_oldest_kept_quarter() {
+    assertEquals(LocalDateTime.parse("2024-04-01T00:00"), HelpRequestArchiver.cutoff(now, 1));
+    assertEquals(LocalDateTime.parse("2024-01-01T00:00"), HelpRequestArchiver.cutoff(now, 2));
+    assertEquals(LocalDateTime.parse("2023-07-01T00:00"), HelpRequestArchiver.cutoff(now, 4));
+    assertEquals(LocalDateTime.parse("2023-10-01T00:00"),
+        HelpRequestArchiver.cutoff(LocalDateTime.parse("2023-12-31T23:59:59"), 1));
+  }
+
+  @Test
+  void test_rows_are_moved_in_batches_until_a_short_batch() {
+    LocalDateTime cutoff = LocalDateTime.parse("2024-01-01T00:00");
+    when(helpRequestRepository.findIdsRequestedBefore(cutoff, 2))
+        .thenReturn(List.of(1L, 2L))
+        .thenReturn(List.of(3L));
+
+    assertEquals(3, helpRequestArchiver.archiveBefore(cutoff));
+
+    InOrder order = inOrder(archivedHelpRequestRepository, helpRequestRepository);
+    order.verify(archivedHelpRequestRepository).copyFromHelpRequests(List.of(1L, 2L));
+    order.verify(helpRequestRepository).deleteByIds(List.of(1L, 2L));
+    order.verify(archivedHelpRequestRepository).copyFromHelpRequests(List.of(3L));
+    order.verify(helpRequestRepository).deleteByIds(List.of(3L));
+    verify(transactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  void test_an_exact_multiple_of_the_batch_size_ends_on_an_empty_batch() {
+    LocalDateTime cutoff = LocalDateTime.parse("2024-01-01T00:00");
+    when(helpRequestRepository.findIdsRequestedBefore(cutoff, 2))
+        .thenReturn(List.of(1L, 2L))
+        .thenReturn(List.of());
+
+    assertEquals(2, helpRequestArchiver.archiveBefore(cutoff));
+
+    verify(archivedHelpRequestRepository, times(1)).copyFromHelpRequests(any());
+    verify(helpRequestRepository, times(1)).deleteByIds(any());
+  }
+
+  @Test
+  void test_scheduled_job_archives_before_the_cutoff_without_touching_partitions() {
+    when(helpRequestRepository.findIdsRequestedBefore(any(), anyInt())).thenReturn(List.of());
+
+    helpRequestArchiver.archiveOldQuarters();
+
+    verify(helpRequestRepository, times(1)).findIdsRequestedBefore(LocalDateTime.parse("2024-01-01T00:00"), 2);
+    verify(helpRequestRepository, never()).ensurePartition(any());
+    verify(helpRequestRepository, never()).dropPartitionsBefore(any());
+  }
+
+  @Test
+  void test_scheduled_job_maintains_partitions_when_partitioned() {
+    helpRequestArchiver.partitioned = true;
+    when(helpRequestRepository.findIdsRequestedBefore(any(), anyInt())).thenReturn(List.of(5L));
+
+    helpRequestArchiver.archiveOldQuarters();
+
+    verify(helpRequestRepository, times(1)).ensurePartition(now);
+    verify(helpRequestRepository, times(1)).ensurePartition(LocalDateTime.parse("2024-08-14T03:30:00"));
+    verify(archivedHelpRequestRepository, times(1)).copyFromHelpRequests(List.of(5L));
+    verify(helpRequestRepository, times(1)).dropPartitionsBefore(LocalDateTime.parse("2024-01-01T00:00"));
+  }
+
+  @Test
+  void test_with_archiving_off_only_partitions_are_maintained() {
+    helpRequestArchiver.keepQuarters = 0;
+    helpRequestArchiver.partitioned = true;
+
+    helpRequestArchiver.archiveOldQuarters();
+
+    verify(helpRequestRepository, times(1)).ensurePartition(now);
+    verify(helpRequestRepository, never()).findIdsRequestedBefore(any(), anyInt());
+    verify(helpRequestRepository, never()).dropPartitionsBefore(any());
+  }
+
+  @Test
+  void test_scheduled_job_is_skipped_while_another_maintenance_job_runs() {
+    helpRequestArchiver.jobLock.runExclusively(JobLock.MAINTENANCE, helpRequestArchiver::archiveOldQuarters);
+
+    verify(helpRequestRepository, never()).findIdsRequestedBefore(any(), anyInt());
+  }
+}
@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.models.IdempotentResponse;
+
+class InMemoryIdempotencyStoreTests {
+
+  InMemoryIdempotencyStore store = new InMemoryIdempotencyStore();
+
+  long now = 1_000_000;
+
+  IdempotentResponse created = new IdempotentResponse("fp", 200, "application/json", "{}".getBytes());
+
+  @BeforeEach
+  void configure() {
+    store.ttlSeconds = 60;
+    store.maxEntries = 3;
+    store.clock = () -> now;
+  }
+
+  @Test
+  void test_first_claim_wins_and_later_claims_see_it_in_flight() {
+    assertNull(store.claim("k1", "fp"));
+
+    IdempotentResponse second = store.claim("k1", "fp");
+    assertTrue(second.isInFlight());
+    assertEquals("fp", second.fingerprint());
+  }
+
+  @Test
+  void test_completed_response_is_returned_to_later_claims() {
+    store.claim("k1", "fp");
+    store.complete("k1", created);
+
+    assertEquals(created, store.claim("k1", "fp"));
+  }
+
+  @Test
+  void test_released_key_can_be_claimed_again() {
+    store.claim("k1", "fp");
+    store.release("k1");
+
+    assertNull(store.claim("k1", "fp"));
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  void test_complete_after_release_is_ignored() {
+    store.claim("k1", "fp");
+    store.release("k1");
+    store.complete("k1", created);
+
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  void test_entries_expire_after_ttl() {
+    store.claim("k1", "fp");
+    store.complete("k1", created);
+
+    now += 60_000;
+    assertEquals(created, store.claim("k1", "fp"));
+
+    now += 1;
+    assertNull(store.claim("k1", "fp"));
+  }
+
+  @Test
+  void test_oldest_entries_are_evicted_beyond_max_entries() {
+    store.claim("k1", "fp");
+    store.claim("k2", "fp");
+    store.claim("k3", "fp");
+    store.claim("k4", "fp");
+
+    assertEquals(3, store.size());
+    assertNull(store.claim("k1", "fp"));
+    assertEquals(3, store.size());
+  }
+
+  @Test
+  void test_evicting_a_released_claim_keeps_the_newer_one() {
+    store.claim("k1", "fp");
+    store.release("k1");
+    now += 30_000;
+    store.claim("k1", "fp");
+
+    // the first claim of k1 expires, the second is still live
+    now += 30_001;
+    assertTrue(store.claim("k1", "fp").isInFlight());
+  }
+}
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InProcessCacheInvalidationBusTests {
+
+  InProcessCacheInvalidationBus bus = new InProcessCacheInvalidationBus();
+
+  List<String> commons = new ArrayList<>();
+  List<String> organizations = new ArrayList<>();
+
+  @Test
+  void test_publish_calls_the_entitys_subscribers_with_the_id() {
+    bus.subscribe(UCSBDiningCommons.class, commons::add);
+    bus.subscribe(UCSBDiningCommons.class, commons::add);
+    bus.subscribe(UCSBOrganization.class, organizations::add);
+
+    bus.publish(UCSBDiningCommons.class, "ortega");
+    bus.publish(UCSBDiningCommons.class, 7L);
+
+    assertEquals(List.of("ortega", "ortega", "7", "7"), commons);
+    assertEquals(List.of(), organizations);
+  }
+
+  @Test
+  void test_publish_without_subscribers_does_nothing() {
+    bus.publish(UCSBOrganization.class, "GR");
+
+    assertEquals(List.of(), organizations);
+  }
+
+  @Test
+  void test_a_failing_subscriber_does_not_stop_the_others() {
+    bus.subscribe(UCSBDiningCommons.class, code -> {
+      throw new IllegalStateException("index is broken");
+    });
+    bus.subscribe(UCSBDiningCommons.class, commons::add);
+
+    bus.publish(UCSBDiningCommons.class, "ortega");
+
+    assertEquals(List.of("ortega"), commons);
+  }
+
+  @Test
+  void test_deliver_all_passes_null_to_every_subscriber() {
+    bus.subscribe(UCSBDiningCommons.class, commons::add);
+    bus.subscribe(UCSBOrganization.class, organizations::add);
+
+    bus.deliverAll();
+
+    assertEquals(Collections.singletonList(null), commons);
+    assertEquals(Collections.singletonList(null), organizations);
+  }
+
+  @Test
+  void test_propagation_time_is_recorded_per_entity_and_origin() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    bus.bindTo(registry);
+    long[] now = { 1_000 };
+    bus.clock = () -> now[0];
+
+    bus.publish(UCSBDiningCommons.class, "ortega");
+    bus.deliver("UCSBDiningCommons", "ortega", 990, true);
+
+    Timer local = registry.get("cache.invalidation.propagation")
+        .tags("entity", "UCSBDiningCommons", "origin", "local").timer();
+    Timer remote = registry.get("cache.invalidation.propagation")
+        .tags("entity", "UCSBDiningCommons", "origin", "remote").timer();
+    assertEquals(1, local.count());
+    assertEquals(0, local.totalTime(TimeUnit.MILLISECONDS));
+    assertEquals(1, remote.count());
+    assertEquals(10, remote.totalTime(TimeUnit.MILLISECONDS));
+  }
+}
@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class InProcessJobLockTests {
+
+  InProcessJobLock jobLock = new InProcessJobLock();
+
+  List<String> ran = new ArrayList<>();
+
+  @Test
+  void test_a_held_lock_skips_the_task_and_other_locks_still_run() {
+    assertTrue(jobLock.runExclusively("maintenance", () -> {
+      ran.add("outer");
+      assertFalse(jobLock.runExclusively("maintenance", () -> ran.add("same lock")));
+      assertTrue(jobLock.runExclusively("other", () -> ran.add("other lock")));
+    }));
+
+    assertEquals(List.of("outer", "other lock"), ran);
+  }
+
+  @Test
+  void test_the_lock_is_released_when_the_task_fails() {
+    assertThrows(IllegalStateException.class, () -> jobLock.runExclusively("maintenance", () -> {
+      throw new IllegalStateException("failed");
+    }));
+
+    assertTrue(jobLock.runExclusively("maintenance", () -> ran.add("again")));
+    assertEquals(List.of("again"), ran);
+  }
+}
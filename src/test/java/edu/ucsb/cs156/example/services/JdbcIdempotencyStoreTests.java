@@ -0,0 +1,161 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import edu.ucsb.cs156.example.models.IdempotentResponse;
+
+@JdbcTest
+@Import({ JdbcIdempotencyStore.class, InProcessJobLock.class })
+@TestPropertySource(properties = { "app.idempotency.store=jdbc", "app.idempotency.ttl-seconds=60",
+    "app.idempotency.lease-seconds=10" })
+class JdbcIdempotencyStoreTests {
+
+  @SpyBean
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  JdbcIdempotencyStore store;
+
+  long now = 1_000_000;
+
+  IdempotentResponse created = new IdempotentResponse("fp", 201, "application/json", "{\"id\":1}".getBytes());
+
+  @BeforeEach
+  void configure() {
+    store.clock = () -> now;
+  }
+
+  @Test
+  void test_first_claim_wins_and_later_claims_see_it_in_flight() {
+    assertNull(store.claim("k1", "fp"));
+
+    IdempotentResponse second = store.claim("k1", "fp");
+    assertTrue(second.isInFlight());
+    assertEquals("fp", second.fingerprint());
+  }
+
+  @Test
+  void test_completed_response_round_trips() {
+    store.claim("k1", "fp");
+    store.complete("k1", created);
+
+    IdempotentResponse stored = store.claim("k1", "fp");
+    assertEquals(201, stored.status());
+    assertEquals("application/json", stored.contentType());
+    assertArrayEquals(created.body(), stored.body());
+  }
+
+  @Test
+  void test_released_key_can_be_claimed_again() {
+    store.claim("k1", "fp");
+    store.release("k1");
+
+    assertNull(store.claim("k1", "fp"));
+  }
+
+  @Test
+  void test_an_expired_row_is_replaced_on_claim() {
+    store.claim("k1", "fp");
+    store.complete("k1", created);
+
+    now += 60_001;
+    assertNull(store.claim("k1", "fp"));
+    assertEquals(1, jdbcTemplate.queryForObject("select count(*) from IDEMPOTENCY_KEYS", Integer.class));
+  }
+
+  @Test
+  void test_claim_retries_when_the_conflicting_row_disappears() {
+    // another node held the key when we inserted, then released it before we read it
+    doThrow(new DuplicateKeyException("IDEMPOTENCY_KEYS_PK"))
+        .doCallRealMethod()
+        .when(jdbcTemplate).update(startsWith("insert"), anyString(), anyString(), any(), any());
+
+    assertNull(store.claim("k1", "fp"));
+    assertTrue(store.claim("k1", "fp").isInFlight());
+  }
+
+  @Test
+  void test_a_key_that_keeps_changing_is_reported_in_flight_after_a_few_tries() {
+    doThrow(new DuplicateKeyException("IDEMPOTENCY_KEYS_PK"))
+        .when(jdbcTemplate).update(startsWith("insert"), anyString(), anyString(), any(), any());
+
+    IdempotentResponse response = store.claim("k1", "fp");
+
+    assertTrue(response.isInFlight());
+    verify(jdbcTemplate, times(JdbcIdempotencyStore.MAX_ATTEMPTS))
+        .update(startsWith("insert"), anyString(), anyString(), any(), any());
+  }
+
+  @Test
+  void test_a_retry_takes_over_an_in_flight_key_once_its_lease_runs_out() {
+    store.claim("k1", "fp");
+
+    now += 10_000;
+    assertTrue(store.claim("k1", "fp").isInFlight());
+
+    now += 1;
+    assertNull(store.claim("k1", "fp"));
+    // the new owner holds a fresh lease
+    assertTrue(store.claim("k1", "fp").isInFlight());
+  }
+
+  @Test
+  void test_an_expired_lease_is_not_taken_over_by_a_different_request() {
+    store.claim("k1", "fp");
+
+    now += 10_001;
+    IdempotentResponse existing = store.claim("k1", "other");
+
+    assertTrue(existing.isInFlight());
+    assertEquals("fp", existing.fingerprint());
+  }
+
+  @Test
+  void test_only_one_retry_wins_a_takeover() {
+    store.claim("k1", "fp");
+    now += 10_001;
+    // another retry updated CLAIMED_AT between our SELECT and UPDATE
+    doReturn(0).doCallRealMethod()
+        .when(jdbcTemplate).update(startsWith("update IDEMPOTENCY_KEYS set CLAIMED_AT"), any(), any(), any());
+
+    assertNull(store.claim("k1", "fp"));
+    verify(jdbcTemplate, times(2))
+        .update(startsWith("update IDEMPOTENCY_KEYS set CLAIMED_AT"), any(), any(), any());
+  }
+
+  @Test
+  void test_sweep_deletes_expired_keys_in_batches() {
+    store.sweepBatchSize = 1;
+    store.claim("k1", "fp");
+    store.claim("k2", "fp");
+    now += 60_001;
+    store.claim("k3", "fp");
+
+    store.sweep();
+
+    assertEquals(List.of("k3"), jdbcTemplate.queryForList("select IDEMPOTENCY_KEY from IDEMPOTENCY_KEYS", String.class));
+  }
+}
@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.models.ArticlesSummary;
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
+import edu.ucsb.cs156.example.models.RecommendationRequestSummary;
+import edu.ucsb.cs156.example.models.UCSBDateSummary;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsMenuItemSummary;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsSummary;
+import edu.ucsb.cs156.example.models.UCSBOrganizationSummary;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = ListingService.class)
+class ListingServiceTests {
+
+  @MockBean
+  ArticlesRepository articlesRepository;
+
+  @MockBean
+  HelpRequestRepository helpRequestRepository;
+
+  @MockBean
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @MockBean
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @MockBean
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @MockBean
+  UCSBDateRepository ucsbDateRepository;
+
+  @MockBean
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @MockBean
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @MockBean
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  ListingService listingService;
+
+  @Test
+  void test_each_listing_delegates_to_its_projection_query() {
+    List<ArticlesSummary> articles = List.of(new ArticlesSummary(1L, "t", "u", "e", "m", null, 0L));
+    List<HelpRequestSummary> helpRequests = List.of(new HelpRequestSummary(1L, "r", "t", "b", null, "e", false, 0L));
+    List<HelpRequestSummary> archivedHelpRequests = List.of(new HelpRequestSummary(2L, "r", "t", "b", null, "e", true, 1L));
+    List<MenuItemReviewSummary> reviews = List.of(new MenuItemReviewSummary(1L, 2L, "r", 5, null, "c"));
+    List<RecommendationRequestSummary> recommendations = List.of(
+        new RecommendationRequestSummary(1L, "r", "p", "e", null, null, true));
+    List<UCSBDateSummary> dates = List.of(new UCSBDateSummary(1L, "20241", "n", null));
+    List<UCSBDiningCommonsSummary> commons = List.of(
+        new UCSBDiningCommonsSummary("ortega", "Ortega", true, true, true, 34.41, -119.84));
+    List<UCSBDiningCommonsMenuItemSummary> menuItems = List.of(
+        new UCSBDiningCommonsMenuItemSummary(1L, "ortega", "Burrito", "Entrees"));
+    List<UCSBOrganizationSummary> organizations = List.of(
+        new UCSBOrganizationSummary("GR", "GauRadio", "Gaucho Radio", false));
+
+    when(articlesRepository.findAllSummaries()).thenReturn(articles);
+    when(helpRequestRepository.findAllSummaries()).thenReturn(helpRequests);
+    when(archivedHelpRequestRepository.findAllSummaries()).thenReturn(archivedHelpRequests);
+    when(menuItemReviewRepository.findAllSummaries()).thenReturn(reviews);
+    when(recommendationRequestRepository.findAllSummaries()).thenReturn(recommendations);
+    when(ucsbDateRepository.findAllSummaries()).thenReturn(dates);
+    when(ucsbDiningCommonsRepository.findAllSummaries()).thenReturn(commons);
+    when(ucsbDiningCommonsMenuItemRepository.findAllSummaries()).thenReturn(menuItems);
+    when(ucsbOrganizationRepository.findAllSummaries()).thenReturn(organizations);
+
+    assertSame(articles, listingService.allArticles());
+    assertSame(helpRequests, listingService.allHelpRequests());
+    assertSame(archivedHelpRequests, listingService.allArchivedHelpRequests());
+    assertSame(reviews, listingService.allMenuItemReviews());
+    assertSame(recommendations, listingService.allRecommendationRequests());
+    assertSame(dates, listingService.allUCSBDates());
+    assertSame(commons, listingService.allDiningCommons());
+    assertSame(menuItems, listingService.allDiningCommonsMenuItems());
+    assertSame(organizations, listingService.allOrganizations());
+  }
+}
@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = OptimisticLockRetry.class)
+class OptimisticLockRetryTests {
+
+  @MockBean
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  OptimisticLockRetry optimisticLockRetry;
+
+  @Test
+  void test_first_successful_attempt_is_returned() {
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertEquals("ok", optimisticLockRetry.run(() -> {
+      attempts.incrementAndGet();
+      return "ok";
+    }));
+
+    assertEquals(1, attempts.get());
+    verify(transactionManager, times(1)).commit(any());
+  }
+
+  @Test
+  void test_conflicts_are_retried_in_a_new_transaction() {
+    AtomicInteger attempts = new AtomicInteger();
+
+    String result = optimisticLockRetry.run(() -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw new ObjectOptimisticLockingFailureException(HelpRequest.class, 1L);
+      }
+      return "third time";
+    });
+
+    assertEquals("third time", result);
+    verify(transactionManager, times(3)).getTransaction(any());
+    verify(transactionManager, times(2)).rollback(any());
+  }
+
+  @Test
+  void test_gives_up_after_max_attempts() {
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThrows(ObjectOptimisticLockingFailureException.class, () -> optimisticLockRetry.run(() -> {
+      attempts.incrementAndGet();
+      throw new ObjectOptimisticLockingFailureException(HelpRequest.class, 1L);
+    }));
+
+    assertEquals(3, attempts.get());
+  }
+
+  @Test
+  void test_other_failures_are_not_retried() {
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThrows(DataIntegrityViolationException.class, () -> optimisticLockRetry.run(() -> {
+      attempts.incrementAndGet();
+      throw new DataIntegrityViolationException("constraint");
+    }));
+
+    assertEquals(1, attempts.get());
+  }
+}
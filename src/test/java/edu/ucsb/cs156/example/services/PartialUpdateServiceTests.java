@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import edu.ucsb.cs156.example.IntegrationTestCase;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+class PartialUpdateServiceTests extends IntegrationTestCase {
+
+  @Autowired
+  PartialUpdateService partialUpdateService;
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  Articles article;
+
+  @BeforeEach
+  void rows() {
+    article = articlesRepository.save(Articles.builder().title("title").url("https://example.org")
+        .explanation("explanation").email("cgaucho@ucsb.edu").dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+        .build());
+  }
+
+  @Test
+  void test_only_the_fields_in_the_body_are_written_and_the_version_is_bumped() throws Exception {
+    Articles patched = partialUpdateService.patch(Articles.class, article.getId(), null,
+        mapper.readTree("{\"title\":\"new title\",\"dateAdded\":\"2023-05-01T00:00:00\",\"id\":999,\"version\":42}"));
+
+    assertEquals("new title", patched.getTitle());
+    assertEquals(LocalDateTime.parse("2023-05-01T00:00:00"), patched.getDateAdded());
+    assertEquals("https://example.org", patched.getUrl());
+    assertEquals(article.getId(), patched.getId());
+    assertEquals(article.getVersion() + 1, patched.getVersion());
+    assertEquals(patched, articlesRepository.findById(article.getId()).orElseThrow());
+  }
+
+  @Test
+  void test_a_matching_if_match_version_is_accepted() throws Exception {
+    Articles patched = partialUpdateService.patch(Articles.class, article.getId(),
+        Set.of(article.getVersion(), article.getVersion() + 7), mapper.readTree("{\"email\":\"new@ucsb.edu\"}"));
+
+    assertEquals("new@ucsb.edu", patched.getEmail());
+    assertEquals(article.getVersion() + 1, patched.getVersion());
+  }
+
+  @Test
+  void test_a_stale_version_fails_the_precondition_and_writes_nothing() throws Exception {
+    for (Set<Long> expected : List.of(Set.of(article.getVersion() + 1), Set.<Long>of())) {
+      PreconditionFailedException e = assertThrows(PreconditionFailedException.class, () ->
+          partialUpdateService.patch(Articles.class, article.getId(), expected, mapper.readTree("{\"title\":\"lost\"}")));
+      assertEquals("Articles with id %d has been modified (current version %d)"
+          .formatted(article.getId(), article.getVersion()), e.getMessage());
+    }
+
+    assertEquals(article, articlesRepository.findById(article.getId()).orElseThrow());
+  }
+
+  @Test
+  void test_an_empty_body_returns_the_row_and_still_checks_the_version() throws Exception {
+    assertEquals(article, partialUpdateService.patch(Articles.class, article.getId(), null, mapper.readTree("{}")));
+    assertEquals(article, partialUpdateService.patch(Articles.class, article.getId(),
+        Set.of(article.getVersion()), mapper.readTree("{}")));
+    assertThrows(PreconditionFailedException.class, () -> partialUpdateService.patch(Articles.class,
+        article.getId(), Set.of(article.getVersion() + 1), mapper.readTree("{}")));
+  }
+
+  @Test
+  void test_a_missing_row_is_not_found() throws Exception {
+    EntityNotFoundException e = assertThrows(EntityNotFoundException.class, () ->
+        partialUpdateService.patch(Articles.class, -1L, null, mapper.readTree("{\"title\":\"nobody\"}")));
+
+    assertEquals("Articles with id -1 not found", e.getMessage());
+  }
+
+  @Test
+  void test_entities_without_a_version_and_explicit_nulls() throws Exception {
+    ucsbOrganizationRepository.save(UCSBOrganization.builder().orgCode("PATCHORG").orgTranslationShort("short")
+        .orgTranslation("long").inactive(false).build());
+
+    UCSBOrganization patched = partialUpdateService.patch(UCSBOrganization.class, "PATCHORG", Set.of(99L),
+        mapper.readTree("{\"orgTranslation\":null,\"inactive\":true}"));
+
+    assertEquals("short", patched.getOrgTranslationShort());
+    assertNull(patched.getOrgTranslation());
+    assertTrue(patched.isInactive());
+    assertNull(ucsbOrganizationRepository.findById("PATCHORG").orElseThrow().getOrgTranslation());
+  }
+}
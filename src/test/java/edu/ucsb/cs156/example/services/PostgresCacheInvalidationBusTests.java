@@ -0,0 +1,149 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+
+class PostgresCacheInvalidationBusTests {
+
+  PostgresCacheInvalidationBus bus = new PostgresCacheInvalidationBus();
+
+  JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+  Connection connection = mock(Connection.class);
+  Statement statement = mock(Statement.class);
+  PGConnection notifications = mock(PGConnection.class);
+
+  List<String> commons = new ArrayList<>();
+
+  @BeforeEach
+  void wire() throws Exception {
+    bus.jdbcTemplate = jdbcTemplate;
+    bus.pollMillis = 10;
+    bus.retryBackoffMs = 0;
+    bus.clock = () -> 1_000;
+    bus.connector = () -> connection;
+    when(connection.createStatement()).thenReturn(statement);
+    when(connection.unwrap(PGConnection.class)).thenReturn(notifications);
+    bus.subscribe(UCSBDiningCommons.class, commons::add);
+  }
+
+  @Test
+  void test_publish_delivers_here_and_notifies_the_other_nodes() {
+    bus.publish(UCSBDiningCommons.class, "ortega");
+
+    assertEquals(List.of("ortega"), commons);
+    verify(jdbcTemplate).queryForList("select pg_notify(?, ?)", "cache_invalidation",
+        bus.node + " 1000 UCSBDiningCommons ortega");
+  }
+
+  @Test
+  void test_a_failed_notify_does_not_fail_the_write() {
+    doThrow(new CannotGetJdbcConnectionException("database is down"))
+        .when(jdbcTemplate).queryForList(eq("select pg_notify(?, ?)"), eq("cache_invalidation"), anyString());
+
+    bus.publish(UCSBDiningCommons.class, "ortega");
+
+    assertEquals(List.of("ortega"), commons);
+  }
+
+  @Test
+  void test_only_other_nodes_notifications_are_delivered() {
+    bus.receive(bus.node + " 990 UCSBDiningCommons ortega");
+    bus.receive("another-node 990 UCSBDiningCommons de la guerra");
+
+    assertEquals(List.of("de la guerra"), commons);
+  }
+
+  @Test
+  void test_listen_starts_everyone_over_then_delivers_until_stopped() throws Exception {
+    PGNotification notification = mock(PGNotification.class);
+    when(notification.getParameter()).thenReturn("another-node 990 UCSBDiningCommons ortega");
+    when(notifications.getNotifications(10)).thenReturn(null).thenAnswer(invocation -> {
+      bus.running = false;
+      return new PGNotification[] { notification };
+    });
+    bus.running = true;
+
+    bus.listen(connection);
+
+    verify(statement).execute("LISTEN cache_invalidation");
+    assertEquals(Arrays.asList(null, "ortega"), commons);
+  }
+
+  @Test
+  void test_listener_reconnects_after_losing_its_connection() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    bus.connector = () -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new SQLException("connection refused");
+      }
+      return connection;
+    };
+    when(notifications.getNotifications(10)).thenAnswer(invocation -> {
+      bus.running = false;
+      return null;
+    });
+    bus.running = true;
+
+    bus.listenLoop();
+
+    assertEquals(2, attempts.get());
+    verify(connection).close();
+  }
+
+  @Test
+  void test_a_failure_while_stopping_ends_the_listener() {
+    bus.connector = () -> {
+      bus.running = false;
+      throw new SQLException("connection closed");
+    };
+    bus.running = true;
+
+    bus.listenLoop();
+
+    assertEquals(List.of(), commons);
+  }
+
+  @Test
+  void test_listener_connects_with_the_datasource_settings() throws Exception {
+    PostgresCacheInvalidationBus unwired = new PostgresCacheInvalidationBus();
+    unwired.url = "jdbc:h2:mem:cacheinvalidation";
+    unwired.username = "sa";
+    unwired.password = "";
+
+    try (Connection own = unwired.connector.call()) {
+      assertTrue(own.isValid(1));
+    }
+  }
+
+  @Test
+  void test_start_and_stop() throws Exception {
+    bus.start();
+    bus.stop();
+
+    assertFalse(bus.running);
+  }
+}
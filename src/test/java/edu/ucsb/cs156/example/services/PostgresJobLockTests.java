@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class PostgresJobLockTests {
+
+  PostgresJobLock jobLock = new PostgresJobLock();
+
+  JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+  Connection connection = mock(Connection.class);
+  PreparedStatement lock = mock(PreparedStatement.class);
+  PreparedStatement unlock = mock(PreparedStatement.class);
+  ResultSet locked = mock(ResultSet.class);
+  ResultSet unlocked = mock(ResultSet.class);
+
+  List<String> ran = new ArrayList<>();
+
+  @BeforeEach
+  void wire() throws Exception {
+    jobLock.jdbcTemplate = jdbcTemplate;
+    when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+        .thenAnswer(call -> call.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+    when(connection.prepareStatement("select pg_try_advisory_lock(?, ?)")).thenReturn(lock);
+    when(connection.prepareStatement("select pg_advisory_unlock(?, ?)")).thenReturn(unlock);
+    when(lock.executeQuery()).thenReturn(locked);
+    when(unlock.executeQuery()).thenReturn(unlocked);
+  }
+
+  @Test
+  void test_the_task_runs_between_lock_and_unlock_on_one_connection() throws Exception {
+    when(locked.getBoolean(1)).thenReturn(true);
+
+    assertTrue(jobLock.runExclusively("maintenance", () -> ran.add("task")));
+
+    assertEquals(List.of("task"), ran);
+    InOrder order = inOrder(lock, unlock);
+    order.verify(lock).setInt(1, PostgresJobLock.CLASS_ID);
+    order.verify(lock).setInt(2, "maintenance".hashCode());
+    order.verify(lock).executeQuery();
+    order.verify(unlock).setInt(2, "maintenance".hashCode());
+    order.verify(unlock).executeQuery();
+  }
+
+  @Test
+  void test_a_lock_held_by_another_node_skips_the_task() throws Exception {
+    when(locked.getBoolean(1)).thenReturn(false);
+
+    assertFalse(jobLock.runExclusively("maintenance", () -> ran.add("task")));
+
+    assertEquals(List.of(), ran);
+    verify(connection, never()).prepareStatement("select pg_advisory_unlock(?, ?)");
+  }
+
+  @Test
+  void test_the_lock_is_released_when_the_task_fails() throws Exception {
+    when(locked.getBoolean(1)).thenReturn(true);
+
+    assertThrows(IllegalStateException.class, () -> jobLock.runExclusively("maintenance", () -> {
+      throw new IllegalStateException("failed");
+    }));
+
+    verify(unlock).executeQuery();
+  }
+}
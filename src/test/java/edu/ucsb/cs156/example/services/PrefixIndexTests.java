@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.models.Completion;
+
+class PrefixIndexTests {
+
+  @Test
+  void test_complete_is_case_insensitive_and_matches_words() {
+    PrefixIndex index = new PrefixIndex();
+    index.put("AS", "Assoc Students", "Assoc Students", "Associated Students");
+    index.put("GR", "GauRadio", "GauRadio", "Gaucho Radio");
+
+    assertEquals(List.of(new Completion("AS", "Assoc Students")), index.complete("ASSO", 10));
+    assertEquals(List.of(new Completion("AS", "Assoc Students")), index.complete("stu", 10));
+    assertEquals(List.of(new Completion("GR", "GauRadio")), index.complete(" radio ", 10));
+    assertTrue(index.complete("zzz", 10).isEmpty());
+  }
+
+  @Test
+  void test_shorter_matches_rank_first_and_limit_is_respected() {
+    PrefixIndex index = new PrefixIndex();
+    index.put("3", "Pizza Supreme", "Pizza Supreme");
+    index.put("1", "Pizza", "Pizza");
+    index.put("2", "Pizza Bagel", "Pizza Bagel");
+
+    assertEquals(List.of(
+        new Completion("1", "Pizza"),
+        new Completion("2", "Pizza Bagel"),
+        new Completion("3", "Pizza Supreme")), index.complete("piz", 10));
+    assertEquals(List.of(new Completion("1", "Pizza")), index.complete("piz", 1));
+  }
+
+  @Test
+  void test_an_entry_matching_several_terms_is_returned_once() {
+    PrefixIndex index = new PrefixIndex();
+    index.put("1", "Sweet Sweet Potato", "Sweet Sweet Potato");
+
+    assertEquals(List.of(new Completion("1", "Sweet Sweet Potato")), index.complete("sw", 10));
+  }
+
+  @Test
+  void test_blank_prefix_or_non_positive_limit_returns_nothing() {
+    PrefixIndex index = new PrefixIndex();
+    index.put("1", "Pizza", "Pizza");
+
+    assertTrue(index.complete("", 10).isEmpty());
+    assertTrue(index.complete(null, 10).isEmpty());
+    assertTrue(index.complete("p", 0).isEmpty());
+  }
+
+  @Test
+  void test_put_replaces_and_remove_deletes() {
+    PrefixIndex index = new PrefixIndex();
+    index.put("1", "Pizza", "Pizza");
+    index.put("2", "Pasta", "Pasta");
+    index.put("1", "Burrito", "Burrito");
+
+    assertEquals(2, index.size());
+    assertEquals(List.of(new Completion("2", "Pasta")), index.complete("p", 10));
+    assertEquals(List.of(new Completion("1", "Burrito")), index.complete("b", 10));
+
+    index.remove("1");
+    index.remove("does-not-exist");
+
+    assertEquals(1, index.size());
+    assertTrue(index.complete("b", 10).isEmpty());
+    assertEquals(List.of(new Completion("2", "Pasta")), index.complete("pa", 10));
+  }
+
+  @Test
+  void test_removing_one_entry_keeps_shared_prefixes_of_others() {
+    PrefixIndex index = new PrefixIndex();
+    index.put("1", "Pie", "Pie");
+    index.put("2", "Pie", "Pie");
+
+    assertEquals(List.of(new Completion("1", "Pie")), index.complete("pie", 1));
+
+    index.remove("1");
+
+    assertEquals(List.of(new Completion("2", "Pie")), index.complete("pi", 10));
+  }
+
+  @Test
+  void test_termsOf() {
+    assertEquals(Set.of("associated  students", "students"), PrefixIndex.termsOf(" Associated  Students "));
+    assertTrue(PrefixIndex.termsOf(null).isEmpty());
+    assertTrue(PrefixIndex.termsOf("   ").isEmpty());
+  }
+}
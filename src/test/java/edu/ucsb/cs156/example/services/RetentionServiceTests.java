@@ -0,0 +1,239 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.RetentionProgress;
+import edu.ucsb.cs156.example.repositories.ArchivedHelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RetentionProgressRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { RetentionService.class, InProcessJobLock.class })
+class RetentionServiceTests {
+
+  @MockBean
+  HelpRequestRepository helpRequestRepository;
+
+  @MockBean
+  ArchivedHelpRequestRepository archivedHelpRequestRepository;
+
+  @MockBean
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @MockBean
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @MockBean
+  RetentionProgressRepository retentionProgressRepository;
+
+  @MockBean
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  RetentionService retentionService;
+
+  LocalDateTime now = LocalDateTime.parse("2024-05-14T04:00:00");
+
+  // stands in for RETENTION_PROGRESS
+  Map<String, RetentionProgress> table = new HashMap<>();
+
+  @BeforeEach
+  void configure() {
+    retentionService.batchSize = 2;
+    retentionService.pauseMs = 0;
+    retentionService.helpRequestDays = 0;
+    retentionService.helpRequestAction = "archive";
+    retentionService.archivedHelpRequestDays = 0;
+    retentionService.recommendationRequestDays = 0;
+    retentionService.menuItemReviewDays = 0;
+    retentionService.node = "web.1";
+    retentionService.clock = Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    when(retentionProgressRepository.save(any())).thenAnswer(invocation -> {
+      RetentionProgress row = invocation.getArgument(0);
+      table.put(row.getPolicy(), row.toBuilder().build());
+      return row;
+    });
+    when(retentionProgressRepository.findById(anyString()))
+        .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.getArgument(0))));
+  }
+
+  @Test
+  void test_before_any_run_enabled_policies_are_idle_and_others_disabled() {
+    retentionService.recommendationRequestDays = 365;
+
+    List<RetentionProgress> progress = retentionService.progress();
+
+    assertEquals(List.of("help-requests", "archived-help-requests", "recommendation-requests", "menu-item-reviews"),
+        progress.stream().map(RetentionProgress::getPolicy).toList());
+    assertEquals(List.of("disabled", "disabled", "idle", "disabled"),
+        progress.stream().map(RetentionProgress::getState).toList());
+    assertEquals("archive", progress.get(0).getAction());
+  }
+
+  @Test
+  void test_disabled_policies_touch_nothing() {
+    retentionService.purgeAll();
+
+    verify(helpRequestRepository, never()).findSolvedIdsRequestedBefore(any(), anyLong(), anyInt());
+    verify(archivedHelpRequestRepository, never()).findSolvedIdsRequestedBefore(any(), anyLong(), anyInt());
+    verify(recommendationRequestRepository, never()).findDoneIdsNeededBefore(any(), anyLong(), anyInt());
+    verify(menuItemReviewRepository, never()).findIdsReviewedBefore(any(), anyLong(), anyInt());
+  }
+
+  @Test
+  void test_help_requests_are_archived_in_keyset_batches() {
+    retentionService.helpRequestDays = 180;
+    LocalDateTime cutoff = now.minusDays(180);
+    when(helpRequestRepository.findSolvedIdsRequestedBefore(cutoff, 0, 2)).thenReturn(List.of(3L, 5L));
+    when(helpRequestRepository.findSolvedIdsRequestedBefore(cutoff, 5, 2)).thenReturn(List.of(8L));
+
+    retentionService.purgeAll();
+
+    InOrder order = inOrder(archivedHelpRequestRepository, helpRequestRepository);
+    order.verify(archivedHelpRequestRepository).copyFromHelpRequests(List.of(3L, 5L));
+    order.verify(helpRequestRepository).deleteByIds(List.of(3L, 5L));
+    order.verify(archivedHelpRequestRepository).copyFromHelpRequests(List.of(8L));
+    order.verify(helpRequestRepository).deleteByIds(List.of(8L));
+    verify(transactionManager, times(2)).commit(any());
+
+    RetentionProgress progress = retentionService.progress().get(0);
+    assertEquals("done", progress.getState());
+    assertEquals(cutoff, progress.getCutoff());
+    assertEquals(now, progress.getStartedAt());
+    assertEquals(now, progress.getFinishedAt());
+    assertEquals("web.1", progress.getNode());
+    assertEquals(2, progress.getBatches());
+    assertEquals(3, progress.getRows());
+    assertEquals(8, progress.getLastId());
+    assertNull(progress.getError());
+  }
+
+  @Test
+  void test_help_requests_can_be_deleted_instead_of_archived() {
+    retentionService.helpRequestDays = 180;
+    retentionService.helpRequestAction = "delete";
+    when(helpRequestRepository.findSolvedIdsRequestedBefore(any(), anyLong(), anyInt())).thenReturn(List.of(3L));
+
+    retentionService.purgeAll();
+
+    verify(helpRequestRepository, times(1)).deleteByIds(List.of(3L));
+    verify(archivedHelpRequestRepository, never()).copyFromHelpRequests(any());
+    assertEquals("delete", retentionService.progress().get(0).getAction());
+  }
+
+  @Test
+  void test_a_full_last_batch_is_followed_by_an_empty_page() {
+    retentionService.archivedHelpRequestDays = 1095;
+    retentionService.recommendationRequestDays = 365;
+    retentionService.menuItemReviewDays = 730;
+    when(archivedHelpRequestRepository.findSolvedIdsRequestedBefore(now.minusDays(1095), 0, 2))
+        .thenReturn(List.of(1L, 2L));
+    when(archivedHelpRequestRepository.findSolvedIdsRequestedBefore(now.minusDays(1095), 2, 2))
+        .thenReturn(List.of());
+    when(recommendationRequestRepository.findDoneIdsNeededBefore(now.minusDays(365), 0, 2))
+        .thenReturn(List.of(4L));
+    when(menuItemReviewRepository.findIdsReviewedBefore(now.minusDays(730), 0, 2))
+        .thenReturn(List.of());
+
+    retentionService.purgeAll();
+
+    verify(archivedHelpRequestRepository, times(1)).deleteByIds(List.of(1L, 2L));
+    verify(recommendationRequestRepository, times(1)).deleteByIds(List.of(4L));
+    verify(menuItemReviewRepository, never()).deleteByIds(any());
+
+    List<RetentionProgress> progress = retentionService.progress();
+    assertEquals(2, progress.get(1).getRows());
+    assertEquals(1, progress.get(2).getRows());
+    assertEquals(0, progress.get(3).getRows());
+    assertEquals("done", progress.get(3).getState());
+  }
+
+  @Test
+  void test_a_failing_batch_stops_the_policy_and_is_reported() {
+    retentionService.menuItemReviewDays = 730;
+    when(menuItemReviewRepository.findIdsReviewedBefore(any(), anyLong(), anyInt())).thenReturn(List.of(1L, 2L));
+    when(menuItemReviewRepository.deleteByIds(any())).thenThrow(new QueryTimeoutException("lock timeout"));
+
+    retentionService.purgeAll();
+
+    RetentionProgress progress = retentionService.progress().get(3);
+    assertEquals("failed", progress.getState());
+    assertEquals("lock timeout", progress.getError());
+    assertEquals(0, progress.getRows());
+    assertEquals(now, progress.getFinishedAt());
+  }
+
+  @Test
+  void test_progress_shows_a_run_recorded_by_another_node() {
+    retentionService.menuItemReviewDays = 730;
+    table.put("menu-item-reviews", RetentionProgress.builder()
+        .policy("menu-item-reviews").node("web.2").action("delete").retentionDays(730).state("running")
+        .batches(4).rows(2000).lastId(2000)
+        .build());
+
+    RetentionProgress progress = retentionService.progress().get(3);
+
+    assertEquals("web.2", progress.getNode());
+    assertEquals("running", progress.getState());
+    assertEquals(2000, progress.getRows());
+  }
+
+  @Test
+  void test_a_long_error_is_cut_to_fit_its_column() {
+    retentionService.menuItemReviewDays = 730;
+    when(menuItemReviewRepository.findIdsReviewedBefore(any(), anyLong(), anyInt()))
+        .thenThrow(new QueryTimeoutException("x".repeat(5000)));
+
+    retentionService.purgeAll();
+
+    assertEquals(RetentionService.MAX_ERROR_LENGTH, retentionService.progress().get(3).getError().length());
+  }
+
+  @Test
+  void test_a_run_overwrites_the_previous_one() {
+    retentionService.menuItemReviewDays = 730;
+    when(menuItemReviewRepository.findIdsReviewedBefore(any(), anyLong(), anyInt())).thenReturn(List.of());
+    table.put("menu-item-reviews", RetentionProgress.builder()
+        .policy("menu-item-reviews").node("web.2").state("failed").error("lock timeout").rows(7)
+        .build());
+
+    retentionService.purgeAll();
+
+    RetentionProgress progress = retentionService.progress().get(3);
+    assertEquals("web.1", progress.getNode());
+    assertEquals("done", progress.getState());
+    assertNull(progress.getError());
+    assertEquals(0, progress.getRows());
+  }
+}
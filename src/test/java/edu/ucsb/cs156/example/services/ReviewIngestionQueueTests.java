@@ -0,0 +1,246 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.QueueFullException;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReviewIngestionQueueTests {
+
+  @TempDir
+  Path dir;
+
+  ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+  ReviewIngestionQueue queue = new ReviewIngestionQueue();
+
+  MenuItemReviewRepository menuItemReviewRepository = mock(MenuItemReviewRepository.class);
+
+  MenuItemReview a = ReviewJournalTests.review("a");
+  MenuItemReview b = ReviewJournalTests.review("b");
+  MenuItemReview c = ReviewJournalTests.review("c");
+
+  @BeforeEach
+  void configure() {
+    queue.mode = "async";
+    queue.capacity = 10;
+    queue.batchSize = 2;
+    queue.offerTimeoutMs = 0;
+    queue.retryBackoffMs = 0;
+    queue.journalPath = dir.resolve("reviews.journal").toString();
+    queue.journalFsync = false;
+    queue.menuItemReviewRepository = menuItemReviewRepository;
+    queue.transactionManager = mock(PlatformTransactionManager.class);
+    queue.objectMapper = mapper;
+  }
+
+  // sets the queue up as start() would, minus the writer thread
+  void openWithoutWriter() throws IOException {
+    queue.journal = new ReviewJournal(Path.of(queue.journalPath), mapper, false);
+    queue.permits = new Semaphore(queue.capacity);
+  }
+
+  @Test
+  void test_sync_mode_starts_and_stops_nothing() throws Exception {
+    queue.mode = "sync";
+
+    queue.start();
+    queue.stop();
+
+    assertFalse(queue.isAsync());
+    assertNull(queue.journal);
+    assertFalse(Files.exists(Path.of(queue.journalPath)));
+  }
+
+  @Test
+  void test_background_writer_writes_submitted_reviews_and_empties_the_journal() throws Exception {
+    queue.start();
+    assertTrue(queue.isAsync());
+
+    queue.submit(a);
+    queue.submit(b);
+    queue.submit(c);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (queue.size() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    queue.stop();
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<MenuItemReview>> batches = ArgumentCaptor.forClass(List.class);
+    verify(menuItemReviewRepository, atLeastOnce()).saveAll(batches.capture());
+    assertEquals(List.of(a, b, c), batches.getAllValues().stream().flatMap(List::stream).toList());
+    assertEquals(0, Files.size(Path.of(queue.journalPath)));
+  }
+
+  @Test
+  void test_reviews_left_in_the_journal_are_queued_on_start() throws Exception {
+    try (ReviewJournal journal = new ReviewJournal(Path.of(queue.journalPath), mapper, false)) {
+      journal.append(a);
+      journal.append(b);
+    }
+    queue.capacity = 1;
+
+    queue.start();
+    queue.stop();
+
+    verify(menuItemReviewRepository, times(1)).saveAll(List.of(a, b));
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  void test_drain_once_writes_at_most_one_batch_in_one_transaction() throws Exception {
+    openWithoutWriter();
+    queue.submit(a);
+    queue.submit(b);
+    queue.submit(c);
+    assertEquals(7, queue.permits.availablePermits());
+
+    assertEquals(2, queue.drainOnce(0));
+    verify(menuItemReviewRepository, times(1)).saveAll(List.of(a, b));
+    verify(queue.transactionManager, times(1)).commit(any());
+    assertEquals(1, queue.size());
+    assertEquals(9, queue.permits.availablePermits());
+
+    assertEquals(1, queue.drainOnce(0));
+    verify(menuItemReviewRepository, times(1)).saveAll(List.of(c));
+    assertEquals(0, queue.drainOnce(0));
+  }
+
+  @Test
+  void test_failed_batch_goes_back_to_the_head_of_the_queue() throws Exception {
+    openWithoutWriter();
+    queue.submit(a);
+    queue.submit(b);
+    queue.submit(c);
+    when(menuItemReviewRepository.saveAll(any()))
+        .thenThrow(new DataAccessResourceFailureException("database down"))
+        .thenReturn(List.of());
+    when(menuItemReviewRepository.save(a)).thenThrow(new DataAccessResourceFailureException("database down"));
+
+    assertEquals(0, queue.drainOnce(0));
+    assertEquals(3, queue.size());
+    assertEquals(7, queue.permits.availablePermits());
+
+    assertEquals(2, queue.drainOnce(0));
+    verify(menuItemReviewRepository, times(2)).saveAll(List.of(a, b));
+  }
+
+  @Test
+  void test_a_review_the_database_rejects_is_dropped_and_the_rest_are_written() throws Exception {
+    openWithoutWriter();
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    queue.bindTo(registry);
+    queue.submit(a);
+    queue.submit(b);
+    queue.submit(c);
+    when(menuItemReviewRepository.saveAll(List.of(a, b)))
+        .thenThrow(new DataIntegrityViolationException("no such menu item"));
+    when(menuItemReviewRepository.save(a)).thenThrow(new DataIntegrityViolationException("no such menu item"));
+
+    assertEquals(1, queue.drainOnce(0));
+    verify(menuItemReviewRepository, times(1)).save(b);
+    assertEquals(1, queue.size());
+    assertEquals(9, queue.permits.availablePermits());
+    assertEquals(1.0, registry.get("review.ingestion.reviews").tag("outcome", "dropped")
+        .functionCounter().count());
+    assertEquals(1.0, registry.get("review.ingestion.reviews").tag("outcome", "written")
+        .functionCounter().count());
+    assertEquals(0.0, registry.get("review.ingestion.batches").functionCounter().count());
+
+    assertEquals(1, queue.drainOnce(0));
+    assertEquals(0, queue.size());
+    queue.journal.close();
+    try (ReviewJournal journal = new ReviewJournal(Path.of(queue.journalPath), mapper, false)) {
+      assertEquals(List.of(), journal.pending());
+    }
+  }
+
+  @Test
+  void test_async_mode_needs_a_journal_path() throws Exception {
+    queue.journalPath = " ";
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> queue.start());
+
+    assertEquals("app.review-ingestion.journal must name a file on persistent storage", e.getMessage());
+  }
+
+  @Test
+  void test_submit_is_rejected_when_the_queue_is_full() throws Exception {
+    queue.capacity = 2;
+    openWithoutWriter();
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    queue.bindTo(registry);
+
+    queue.submit(a);
+    queue.submit(b);
+    QueueFullException e = assertThrows(QueueFullException.class, () -> queue.submit(c));
+
+    assertEquals("review queue is full (2 pending), please retry", e.getMessage());
+    assertEquals(2.0, registry.get("review.ingestion.queue").gauge().value());
+    assertEquals(1.0, registry.get("review.ingestion.reviews").tag("outcome", "rejected")
+        .functionCounter().count());
+
+    queue.drainOnce(0);
+    assertEquals(2.0, registry.get("review.ingestion.reviews").tag("outcome", "written")
+        .functionCounter().count());
+    assertEquals(1.0, registry.get("review.ingestion.batches").functionCounter().count());
+  }
+
+  @Test
+  void test_journal_failure_gives_the_permit_back() throws Exception {
+    queue.journal = mock(ReviewJournal.class);
+    queue.permits = new Semaphore(1);
+    when(queue.journal.append(a)).thenThrow(new UncheckedIOException(new IOException("disk full")));
+
+    assertThrows(UncheckedIOException.class, () -> queue.submit(a));
+
+    assertEquals(1, queue.permits.availablePermits());
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  void test_interrupted_writer_stops_waiting() throws Exception {
+    openWithoutWriter();
+    queue.submit(a);
+
+    Thread.currentThread().interrupt();
+    assertEquals(0, queue.drainOnce(1000));
+    assertEquals(1, queue.size());
+
+    // not running any more, so the loop only drains what is left
+    queue.drainLoop();
+    assertEquals(0, queue.size());
+    verify(menuItemReviewRepository, times(1)).saveAll(List.of(a));
+  }
+}
@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+class ReviewJournalTests {
+
+  @TempDir
+  Path dir;
+
+  ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+  static MenuItemReview review(String comments) {
+    return MenuItemReview.builder()
+        .itemId(7L)
+        .reviewerEmail("cgaucho@ucsb.edu")
+        .stars(4)
+        .dateReviewed(LocalDateTime.parse("2022-01-03T12:30:00"))
+        .comments(comments)
+        .build();
+  }
+
+  @Test
+  void test_new_journal_starts_empty_and_numbers_appends() throws Exception {
+    try (ReviewJournal journal = new ReviewJournal(dir.resolve("j"), mapper, true)) {
+      assertTrue(journal.pending().isEmpty());
+      assertEquals(1, journal.append(review("a")));
+      assertEquals(2, journal.append(review("b")));
+    }
+    assertEquals(2, Files.readAllLines(dir.resolve("j")).size());
+  }
+
+  @Test
+  void test_partial_commit_writes_marker_and_full_commit_truncates() throws Exception {
+    Path path = dir.resolve("j");
+    try (ReviewJournal journal = new ReviewJournal(path, mapper, false)) {
+      journal.append(review("a"));
+      journal.append(review("b"));
+      journal.commit(1);
+      assertEquals(3, Files.readAllLines(path).size());
+
+      journal.commit(2);
+      assertEquals(0, Files.size(path));
+
+      assertEquals(3, journal.append(review("c")));
+      assertEquals(1, Files.readAllLines(path).size());
+    }
+  }
+
+  @Test
+  void test_reopening_returns_uncommitted_reviews_and_skips_a_torn_line() throws Exception {
+    Path path = dir.resolve("j");
+    try (ReviewJournal journal = new ReviewJournal(path, mapper, true)) {
+      journal.append(review("a"));
+      journal.append(review("b"));
+      journal.append(review("c"));
+      journal.commit(1);
+    }
+    Files.writeString(path, "{\"seq\":4,\"review\":{\"comm", StandardOpenOption.APPEND);
+
+    try (ReviewJournal journal = new ReviewJournal(path, mapper, true)) {
+      assertEquals(List.of(new ReviewJournal.Entry(2, review("b")), new ReviewJournal.Entry(3, review("c"))),
+          journal.pending());
+      assertEquals(2, Files.readAllLines(path).size());
+      assertEquals(4, journal.append(review("d")));
+    }
+
+    try (ReviewJournal journal = new ReviewJournal(path, mapper, true)) {
+      assertEquals(3, journal.pending().size());
+    }
+  }
+
+  @Test
+  void test_reopening_a_fully_committed_journal_truncates_it() throws Exception {
+    Path path = dir.resolve("j");
+    try (ReviewJournal journal = new ReviewJournal(path, mapper, true)) {
+      journal.append(review("a"));
+      journal.append(review("b"));
+      journal.commit(1);
+    }
+    Files.writeString(path, "{\"committed\":2}\n", StandardOpenOption.APPEND);
+
+    try (ReviewJournal journal = new ReviewJournal(path, mapper, true)) {
+      assertTrue(journal.pending().isEmpty());
+      assertEquals(0, Files.size(path));
+    }
+  }
+
+  @Test
+  void test_io_failures_are_unchecked() throws Exception {
+    ReviewJournal journal = new ReviewJournal(dir.resolve("j"), mapper, true);
+    journal.append(review("a"));
+    journal.close();
+
+    assertThrows(UncheckedIOException.class, () -> journal.append(review("b")));
+    assertThrows(UncheckedIOException.class, () -> journal.commit(0));
+    assertThrows(UncheckedIOException.class, () -> journal.commit(1));
+  }
+}
@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@JdbcTest
+@Import(SchemaChecksum.class)
+class SchemaChecksumTests {
+
+  @Autowired
+  SchemaChecksum schemaChecksum;
+
+  @Test
+  void test_verify_fails_until_the_checksum_is_recorded() {
+    assertNull(schemaChecksum.recorded());
+    IllegalStateException e = assertThrows(IllegalStateException.class, schemaChecksum::verify);
+    assertEquals("database schema checksum is null but this build expects %s; run MigrationRunner first"
+        .formatted(schemaChecksum.expected()), e.getMessage());
+
+    schemaChecksum.record(schemaChecksum.expected());
+    assertEquals(schemaChecksum.expected(), schemaChecksum.recorded());
+    schemaChecksum.verify();
+  }
+
+  @Test
+  void test_record_replaces_the_previous_checksum() {
+    schemaChecksum.record("0123");
+    schemaChecksum.record("4567");
+
+    assertEquals("4567", schemaChecksum.recorded());
+    assertThrows(IllegalStateException.class, schemaChecksum::verify);
+  }
+
+  @Test
+  void test_expected_depends_on_file_names_and_contents() throws Exception {
+    assertEquals(checksum(file("a.json", "{}"), file("b.json", "[]")),
+        checksum(file("b.json", "[]"), file("a.json", "{}")));
+    assertNotEquals(checksum(file("a.json", "{}")), checksum(file("a.json", "[]")));
+    assertNotEquals(checksum(file("a.json", "{}")), checksum(file("b.json", "{}")));
+  }
+
+  @Test
+  void test_unreadable_changelog_is_an_unchecked_io_exception() throws Exception {
+    ResourcePatternResolver resources = mock(ResourcePatternResolver.class);
+    when(resources.getResources(anyString())).thenThrow(new IOException("jar is gone"));
+
+    SchemaChecksum checksum = new SchemaChecksum(mock(JdbcTemplate.class), resources);
+
+    assertThrows(UncheckedIOException.class, checksum::expected);
+  }
+
+  // master changelog empty, changes/*.json as given
+  private static String checksum(Resource... changes) throws IOException {
+    ResourcePatternResolver resources = mock(ResourcePatternResolver.class);
+    when(resources.getResources(SchemaChecksum.CHANGELOG[0])).thenReturn(new Resource[0]);
+    when(resources.getResources(SchemaChecksum.CHANGELOG[1])).thenReturn(changes);
+    return new SchemaChecksum(mock(JdbcTemplate.class), resources).expected();
+  }
+
+  private static Resource file(String name, String content) {
+    return new ByteArrayResource(content.getBytes()) {
+      @Override
+      public String getFilename() {
+        return name;
+      }
+    };
+  }
+}
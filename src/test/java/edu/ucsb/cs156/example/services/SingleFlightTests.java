@@ -0,0 +1,157 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTests {
+
+  SingleFlight singleFlight = new SingleFlight();
+
+  ExecutorService pool = Executors.newFixedThreadPool(8);
+
+  @AfterEach
+  void shutdown() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  void test_sequential_calls_each_execute() {
+    AtomicInteger executions = new AtomicInteger();
+
+    assertEquals(1, singleFlight.run("k", executions::incrementAndGet));
+    assertEquals(2, singleFlight.run("k", executions::incrementAndGet));
+    assertEquals(0, singleFlight.collapsed("k"));
+  }
+
+  @Test
+  void test_concurrent_identical_calls_share_one_execution_and_result() throws Exception {
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    byte[] buffer = new byte[] { 1, 2, 3 };
+
+    List<Future<byte[]>> results = startCalls(8, "ucsbdates/all", () -> {
+      executions.incrementAndGet();
+      await(release);
+      return buffer;
+    });
+    waitForCollapsed("ucsbdates/all", 7);
+    release.countDown();
+
+    for (Future<byte[]> result : results) {
+      assertSame(buffer, result.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void test_different_keys_do_not_share() {
+    assertEquals("a", singleFlight.run("a", () -> "a"));
+    assertEquals("b", singleFlight.run("b", () -> "b"));
+  }
+
+  @Test
+  void test_leaders_exception_is_rethrown_to_everyone() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    List<Future<Object>> results = startCalls(3, "k", () -> {
+      await(release);
+      throw new IllegalStateException("database down");
+    });
+    waitForCollapsed("k", 2);
+    release.countDown();
+
+    for (Future<Object> result : results) {
+      Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+      assertEquals(IllegalStateException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test
+  void test_leaders_error_is_rethrown_to_followers() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    List<Future<Object>> results = startCalls(2, "k", () -> {
+      await(release);
+      throw new AssertionError("boom");
+    });
+    waitForCollapsed("k", 1);
+    release.countDown();
+
+    for (Future<Object> result : results) {
+      Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+      assertEquals(AssertionError.class, e.getCause().getClass());
+    }
+  }
+
+  @Test
+  void test_forget_lets_new_callers_start_a_fresh_execution() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> stale = pool.submit(() -> singleFlight.run("k", () -> {
+      started.countDown();
+      await(release);
+      return "before write";
+    }));
+    started.await(5, TimeUnit.SECONDS);
+
+    singleFlight.forget("k");
+    assertEquals("after write", singleFlight.run("k", () -> "after write"));
+    assertEquals(0, singleFlight.collapsed("k"));
+
+    release.countDown();
+    assertEquals("before write", stale.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void test_counters_are_published_to_meter_registry() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    singleFlight.run("before-bind", () -> 1);
+    singleFlight.bindTo(registry);
+    singleFlight.run("after-bind", () -> 1);
+
+    assertEquals(1.0, registry.get("singleflight.requests")
+        .tags("key", "before-bind", "outcome", "executed").functionCounter().count());
+    assertEquals(1.0, registry.get("singleflight.requests")
+        .tags("key", "after-bind", "outcome", "executed").functionCounter().count());
+    assertEquals(0.0, registry.get("singleflight.requests")
+        .tags("key", "after-bind", "outcome", "collapsed").functionCounter().count());
+  }
+
+  private <T> List<Future<T>> startCalls(int n, String key, Supplier<T> work) {
+    List<Future<T>> results = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      results.add(pool.submit(() -> singleFlight.run(key, work)));
+    }
+    return results;
+  }
+
+  private void waitForCollapsed(String key, long n) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (singleFlight.collapsed(key) < n && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(n, singleFlight.collapsed(key));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketLimiterTests {
+
+  static final long SECOND = 1_000_000_000L;
+
+  long now = 42 * SECOND;
+
+  // 3 token burst, refilling at 2 tokens per second
+  TokenBucketLimiter limiter = new TokenBucketLimiter(3, 2.0, 2, () -> now);
+
+  @Test
+  void test_burst_up_to_capacity_then_reject_with_wait_time() {
+    assertEquals(0, limiter.tryAcquire("alice"));
+    assertEquals(0, limiter.tryAcquire("alice"));
+    assertEquals(0, limiter.tryAcquire("alice"));
+
+    assertEquals(SECOND / 2, limiter.tryAcquire("alice"));
+    assertEquals(SECOND / 2, limiter.tryAcquire("alice"));
+  }
+
+  @Test
+  void test_tokens_refill_over_time() {
+    for (int i = 0; i < 3; i++) {
+      limiter.tryAcquire("alice");
+    }
+
+    now += SECOND / 4;
+    assertEquals(SECOND / 4, limiter.tryAcquire("alice"));
+
+    now += SECOND / 4;
+    assertEquals(0, limiter.tryAcquire("alice"));
+    assertEquals(SECOND / 2, limiter.tryAcquire("alice"));
+  }
+
+  @Test
+  void test_idle_bucket_does_not_accumulate_beyond_capacity() {
+    now += 3600 * SECOND;
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0, limiter.tryAcquire("alice"));
+    }
+    assertEquals(SECOND / 2, limiter.tryAcquire("alice"));
+  }
+
+  @Test
+  void test_keys_have_independent_buckets() {
+    for (int i = 0; i < 3; i++) {
+      limiter.tryAcquire("alice");
+    }
+
+    assertEquals(0, limiter.tryAcquire("bob"));
+  }
+
+  @Test
+  void test_full_buckets_are_dropped_beyond_max_keys() {
+    limiter.tryAcquire("alice");
+    limiter.tryAcquire("bob");
+    limiter.tryAcquire("carol");
+    assertEquals(3, limiter.size());
+
+    // a second later every bucket has refilled, so the sweep empties the map
+    now += SECOND;
+    limiter.tryAcquire("carol");
+    limiter.tryAcquire("carol");
+    limiter.tryAcquire("dave");
+
+    assertEquals(2, limiter.size());
+  }
+
+  @Test
+  void test_sweeps_run_at_most_once_per_burst_interval() {
+    now += SECOND;
+    limiter.tryAcquire("alice");
+    limiter.tryAcquire("bob");
+    limiter.tryAcquire("carol");
+    // over maxKeys: this sweep finds nothing full yet
+    limiter.tryAcquire("dave");
+    assertEquals(4, limiter.size());
+
+    // everything has refilled, but the last sweep was only a second ago
+    now += SECOND;
+    limiter.tryAcquire("erin");
+    assertEquals(5, limiter.size());
+
+    now += SECOND / 2;
+    limiter.tryAcquire("frank");
+    assertEquals(1, limiter.size());
+  }
+
+  @Test
+  void test_concurrent_acquires_never_exceed_capacity() throws Exception {
+    TokenBucketLimiter frozen = new TokenBucketLimiter(100, 1.0, 10, () -> 0L);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      results.add(pool.submit(() -> {
+        int granted = 0;
+        for (int i = 0; i < 1000; i++) {
+          if (frozen.tryAcquire("alice") == 0) {
+            granted++;
+          }
+        }
+        return granted;
+      }));
+    }
+    int granted = 0;
+    for (Future<Integer> result : results) {
+      granted += result.get();
+    }
+    pool.shutdown();
+
+    assertEquals(100, granted);
+  }
+}
@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.example.models.UserSummary;
+import edu.ucsb.cs156.example.services.UserListingService.Filter;
+
+@JdbcTest
+@Import(UserListingService.class)
+class UserListingServiceTests {
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  UserListingService userListingService;
+
+  static final Filter NONE = new Filter(null, null, null);
+
+  @BeforeEach
+  void users() {
+    insert(1, "cgaucho@ucsb.edu", "ucsb.edu", true);
+    insert(2, "ldelplaya@ucsb.edu", "ucsb.edu", false);
+    insert(3, "someone@gmail.com", null, false);
+    insert(4, "c_gaucho@ucsb.edu", "ucsb.edu", false);
+    insert(5, "cgaucho2@umail.ucsb.edu", "umail.ucsb.edu", false);
+  }
+
+  void insert(long id, String email, String hostedDomain, boolean admin) {
+    jdbcTemplate.update("""
+        insert into USERS (ID, EMAIL, GOOGLE_SUB, FULL_NAME, EMAIL_VERIFIED, LOCALE, HOSTED_DOMAIN, ADMIN)
+        values (?, ?, ?, ?, true, 'en', ?, ?)""",
+        id, email, "sub" + id, "User " + id, hostedDomain, admin);
+  }
+
+  List<Long> ids(long afterId, int limit, Filter filter) {
+    return userListingService.page(afterId, limit, filter).stream().map(UserSummary::id).toList();
+  }
+
+  @Test
+  void test_pages_are_keyset_ordered_by_id() {
+    assertEquals(List.of(1L, 2L), ids(0, 2, NONE));
+    assertEquals(List.of(3L, 4L), ids(2, 2, NONE));
+    assertEquals(List.of(5L), ids(4, 2, NONE));
+    assertEquals(List.of(), ids(5, 2, NONE));
+  }
+
+  @Test
+  void test_rows_are_mapped_in_entity_field_order() {
+    assertEquals(new UserSummary(1, "cgaucho@ucsb.edu", "sub1", null, "User 1", null, null, true, "en",
+        "ucsb.edu", true), userListingService.page(0, 1, NONE).get(0));
+  }
+
+  @Test
+  void test_filters_combine() {
+    assertEquals(List.of(1L), ids(0, 10, new Filter(true, null, null)));
+    assertEquals(List.of(2L, 4L), ids(0, 10, new Filter(false, "ucsb.edu", null)));
+    assertEquals(List.of(1L, 5L), ids(0, 10, new Filter(null, null, "cgaucho")));
+    assertEquals(List.of(5L), ids(0, 10, new Filter(false, "umail.ucsb.edu", "cgaucho")));
+  }
+
+  @Test
+  void test_email_prefix_wildcards_are_literal() {
+    assertEquals(List.of(4L), ids(0, 10, new Filter(null, null, "c_")));
+    assertEquals(List.of(), ids(0, 10, new Filter(null, null, "%gaucho")));
+    assertEquals(List.of(), ids(0, 10, new Filter(null, null, "c\\")));
+  }
+}
@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+
+// Starts the whole application from the test classpath.  ExampleApplication's
+// component scan would also pick up the test beans under this package and
+// loadtest (e.g. a second "currentUser" service), so they are filtered out;
+// a test that wants one passes it as an extra source.  @SpringBootTest
+// classes get the same filter with @TypeExcludeFilters(TestBeansExcludeFilter.class).
+public final class FullApplication {
+
+  private FullApplication() {
+  }
+
+  public static SpringApplicationBuilder builder(Class<?>... extraSources) {
+    return new SpringApplicationBuilder(ExampleApplication.class)
+        .sources(extraSources)
+        .initializers(context -> context.getBeanFactory()
+            .registerSingleton("testBeansExcludeFilter", new TestBeansExcludeFilter()));
+  }
+
+  public static final class TestBeansExcludeFilter extends TypeExcludeFilter {
+    @Override
+    public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+      String name = metadataReader.getClassMetadata().getClassName();
+      return name.startsWith("edu.ucsb.cs156.example.testconfig.")
+          || name.startsWith("edu.ucsb.cs156.example.loadtest.");
+    }
+  }
+}
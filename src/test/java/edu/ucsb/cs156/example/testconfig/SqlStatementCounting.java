@@ -0,0 +1,65 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import javax.sql.DataSource;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+// Wraps the application's DataSource in a datasource-proxy that counts the
+// statements run on each thread, and has MockMvc reset the count at the
+// start of every request.  A test then states a request's budget with
+//
+//   mockMvc.perform(get("/api/Articles?id=1")).andExpect(sqlStatements(1));
+//
+// so a change that adds a round trip (an extra findById, a lazy load per
+// row) fails the build.  Counts are per thread: they only see the work done
+// on MockMvc's thread, which is all of it unless a handler goes async.
+
+@TestConfiguration
+public class SqlStatementCounting {
+
+  static final String DATA_SOURCE = "counted";
+
+  @Bean
+  public static BeanPostProcessor countingDataSourcePostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+          return ProxyDataSourceBuilder.create(dataSource).name(DATA_SOURCE).countQuery().build();
+        }
+        return bean;
+      }
+    };
+  }
+
+  @Bean
+  public MockMvcBuilderCustomizer resetSqlStatementCountPerRequest() {
+    return builder -> builder.defaultRequest(get("/").with(request -> {
+      QueryCountHolder.clear();
+      return request;
+    }));
+  }
+
+  public static ResultMatcher sqlStatements(int budget) {
+    return result -> {
+      QueryCount count = QueryCountHolder.get(DATA_SOURCE);
+      long total = count == null ? 0 : count.getTotal();
+      assertTrue(total <= budget, () -> ("%s %s?%s ran %d SQL statements (%d select, %d insert, %d update, "
+          + "%d delete, %d other); budget is %d")
+          .formatted(result.getRequest().getMethod(), result.getRequest().getRequestURI(),
+              result.getRequest().getQueryString(), total, count.getSelect(), count.getInsert(),
+              count.getUpdate(), count.getDelete(), count.getOther(), budget));
+    };
+  }
+}